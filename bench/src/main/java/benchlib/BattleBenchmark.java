@@ -0,0 +1,57 @@
+package benchlib;
+
+import characterlib.Enemy;
+import characterlib.PassiveEnemy;
+import characterlib.Player;
+import environmentlib.World;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures a single round of combat (<code>Player.battle</code>) against an aggressive and a <br/>
+ * passive enemy. Health and attack timers are restored before each round so that both sides <br/>
+ * strike every time and nobody dies.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BattleBenchmark {
+	
+	private Player player;
+	private Enemy enemy;
+	private PassiveEnemy passiveEnemy;
+	
+	@Setup(Level.Trial)
+	public void createUnits() throws IOException {
+		World world = new World();
+		
+		this.player = world.getPlayer();
+		this.player.setMaxHealth(BenchmarkWorlds.INVULNERABLE_HEALTH);
+		this.player.setHealth(BenchmarkWorlds.INVULNERABLE_HEALTH);
+		this.enemy = new Enemy(0, 0, "zombie.png", world.getCollider(), 60, 800, 0, 10);
+		this.passiveEnemy = new PassiveEnemy(0, 0, "dreadbat.png", world.getCollider(), 100, 0, 0, 0);
+		this.enemy.setRandom(world.getRandomService().newStream());
+		this.passiveEnemy.setRandom(world.getRandomService().newStream());
+	}
+	
+	@Benchmark
+	public int battleEnemy() {
+		this.player.setSpeed(0f);
+		this.enemy.setSpeed(0f);
+		this.enemy.setHealth(this.enemy.getMaxHealth());
+		this.player.battle(this.enemy);
+		return this.enemy.getHealth();
+	}
+	
+	@Benchmark
+	public int battlePassiveEnemy() {
+		this.player.setSpeed(0f);
+		this.passiveEnemy.setHealth(this.passiveEnemy.getMaxHealth());
+		this.player.battle(this.passiveEnemy);
+		return this.passiveEnemy.getHealth();
+	}
+}
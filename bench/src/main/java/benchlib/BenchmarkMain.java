@@ -0,0 +1,42 @@
+package benchlib;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so every result is reported with its <br/>
+ * allocation rate per operation (<code>gc.alloc.rate.norm</code>) next to its throughput.<br/><br/>
+ * 
+ * Accepts the usual JMH command line, e.g. a benchmark name pattern or <code>-p unitCount=1000</code>. <br/>
+ * This is the main class of the benchmark jar.
+ */
+public class BenchmarkMain {
+	
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if(commandLine.shouldHelp()) {
+			commandLine.showHelp();
+			return;
+		}
+		
+		Options options = new OptionsBuilder()
+				.parent(commandLine)
+				.addProfiler(GCProfiler.class)
+				.build();
+		Runner runner = new Runner(options);
+		
+		if(commandLine.shouldList()) {
+			runner.list();
+		}
+		else {
+			runner.run();
+		}
+	}
+}
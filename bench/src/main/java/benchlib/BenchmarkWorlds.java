@@ -0,0 +1,75 @@
+package benchlib;
+
+import environmentlib.World;
+import java.io.IOException;
+import java.util.Random;
+import maplib.CollisionMap;
+
+/**
+ * Builds the worlds the benchmarks run against.<br/><br/>
+ * 
+ * Every benchmark starts from the normal game world and adds a number of extra units on <br/>
+ * randomly chosen walkable tiles. The random placement is seeded, so every run (and every <br/>
+ * build being compared) sees the same world.
+ */
+public final class BenchmarkWorlds {
+	
+	/**Seed used to place the extra units*/
+	public static final long SEED = 20130501L;
+	
+	/**Health given to the player so that it can't die (and reset the map) during a measurement*/
+	public static final int INVULNERABLE_HEALTH = Integer.MAX_VALUE / 2;
+	
+	/**The kinds of unit that can be added to a world*/
+	public enum UnitType {
+		ENEMY, PASSIVE_ENEMY, VILLAGER
+	}
+	
+	private BenchmarkWorlds() {
+	}
+	
+	/**
+	 * Creates the game world with extra units added<br/><br/>
+	 * 
+	 * <strong>Precondition:</strong> the working directory is the repository root, so the map can be found<br/>
+	 * <strong>Postcondition:</strong> A world holding the normal units plus <code>count</code> of <code>type</code> is returned<br/><br/>
+	 * 
+	 * @param type The kind of unit to add
+	 * @param count The number of units to add
+	 * @return The world
+	 * @throws IOException The map fails to load
+	 */
+	public static World create(UnitType type, int count) throws IOException {
+		World world = new World();
+		Random random = new Random(SEED);
+		CollisionMap map = world.getCollisionMap();
+		
+		for(int i = 0; i < count; i++) {
+			int tileX, tileY;
+			do {
+				tileX = random.nextInt(map.getWidth());
+				tileY = random.nextInt(map.getHeight());
+			} while(map.isBlocked(tileX, tileY));
+			
+			float x = tileX * map.getTileWidth();
+			float y = tileY * map.getTileHeight();
+			
+			switch(type) {
+			case ENEMY:
+				world.addEnemy(x, y, "zombie.png", 60, 800, 0, 10);
+				break;
+			case PASSIVE_ENEMY:
+				world.addPassiveEnemy(x, y, "dreadbat.png", 100, 0, 0, 0);
+				break;
+			case VILLAGER:
+				world.addVillager(x, y, "peasant.png");
+				break;
+			}
+		}
+		
+		world.getPlayer().setMaxHealth(INVULNERABLE_HEALTH);
+		world.getPlayer().setHealth(INVULNERABLE_HEALTH);
+		
+		return world;
+	}
+}
@@ -0,0 +1,78 @@
+package benchlib;
+
+import benchlib.BenchmarkWorlds.UnitType;
+import characterlib.Enemy;
+import environmentlib.World;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import maplib.CollisionResolver;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the collision checks made while units and the player move.<br/><br/>
+ * 
+ * <code>npcCanMove</code> runs <code>NPC.canMove</code> for every enemy in the world, so its <br/>
+ * cost per operation scales with <code>unitCount</code>. <code>playerSweep</code> resolves one <br/>
+ * horizontal and one vertical move through the same <code>CollisionResolver</code> that <br/>
+ * <code>World.movePlayer</code> uses (this replaced the old per-pixel <code>World.canMove</code> <br/>
+ * tile property lookups), from a rotating set of random positions.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+	
+	/**Number of precomputed positions the sweeps start from*/
+	private static final int POSITIONS = 1024;
+	
+	@Param({"100", "1000", "10000"})
+	public int unitCount;
+	
+	private List<Enemy> enemies;
+	private CollisionResolver collider;
+	private float[] xPositions;
+	private float[] yPositions;
+	private float[] deltas;
+	private int next;
+	
+	@Setup(Level.Trial)
+	public void createWorld() throws IOException {
+		World world = BenchmarkWorlds.create(UnitType.ENEMY, this.unitCount);
+		Random random = new Random(BenchmarkWorlds.SEED);
+		
+		this.enemies = world.getEnemyList();
+		this.collider = world.getCollider();
+		this.xPositions = new float[POSITIONS];
+		this.yPositions = new float[POSITIONS];
+		this.deltas = new float[POSITIONS];
+		
+		float mapWidth = world.getCollisionMap().getWidth() * world.getCollisionMap().getTileWidth();
+		float mapHeight = world.getCollisionMap().getHeight() * world.getCollisionMap().getTileHeight();
+		
+		for(int i = 0; i < POSITIONS; i++) {
+			this.xPositions[i] = random.nextFloat() * mapWidth;
+			this.yPositions[i] = random.nextFloat() * mapHeight;
+			this.deltas[i] = (random.nextFloat() - 0.5f) * 2 * world.getCollisionMap().getTileWidth();
+		}
+	}
+	
+	@Benchmark
+	public void npcCanMove() {
+		for(int i = 0; i < this.enemies.size(); i++) {
+			this.enemies.get(i).canMove();
+		}
+	}
+	
+	@Benchmark
+	public void playerSweep(Blackhole blackhole) {
+		int i = this.next++ & (POSITIONS - 1);
+		blackhole.consume(this.collider.resolveX(this.xPositions[i], this.yPositions[i], this.deltas[i]));
+		blackhole.consume(this.collider.resolveY(this.xPositions[i], this.yPositions[i], this.deltas[i]));
+	}
+}
@@ -0,0 +1,39 @@
+package benchlib;
+
+import benchlib.BenchmarkWorlds.UnitType;
+import environmentlib.World;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures scrolling the world (<code>World.moveWorld</code>) as the number of units grows. <br/>
+ * The player is nudged back and forth so the camera moves on every call.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveWorldBenchmark {
+	
+	@Param({"0", "100", "1000", "10000"})
+	public int unitCount;
+	
+	private World world;
+	private float step;
+	
+	@Setup(Level.Trial)
+	public void createWorld() throws IOException {
+		this.world = BenchmarkWorlds.create(UnitType.ENEMY, this.unitCount);
+		this.step = 1;
+	}
+	
+	@Benchmark
+	public void moveWorld() {
+		this.world.getPlayer().setXPosition(this.world.getPlayer().getXPosition() + this.step);
+		this.step = -this.step;
+		this.world.moveWorld();
+	}
+}
@@ -0,0 +1,75 @@
+package benchlib;
+
+import benchlib.BenchmarkWorlds.UnitType;
+import enginelib.EventLog;
+import enginelib.LogLevel;
+import environmentlib.World;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures a full <code>World.update</code> tick as the number of units grows.<br/><br/>
+ * 
+ * The player walks in each of the eight directions in turn, like <code>HeadlessRunner</code>. <br/>
+ * The world is rebuilt for every iteration, since units die and wander during a measurement.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldUpdateBenchmark {
+	
+	/**Frame time passed to each update (60fps)*/
+	private static final int DELTA = 16;
+	/**Number of ticks the player walks in one direction before turning*/
+	private static final int TICKS_PER_DIRECTION = 120;
+	
+	private static final int[] WALK_X = {1, 1, 0, -1, -1, -1, 0, 1};
+	private static final int[] WALK_Y = {0, 1, 1, 1, 0, -1, -1, -1};
+	
+	@Param({"ENEMY", "PASSIVE_ENEMY", "VILLAGER"})
+	public UnitType unitType;
+	
+	@Param({"0", "100", "1000", "10000"})
+	public int unitCount;
+	
+	/**Threads the AI runs on (see <code>World.setAIThreads</code>); 0 is the game's default, the common pool*/
+	@Param({"0"})
+	public int aiThreads;
+	
+	private World world;
+	private int tick;
+	/**The log level before the trial*/
+	private LogLevel logLevel;
+	
+	/**
+	 * Only logs errors during the trial, so the game's messages (Elvira greeting the player as <br/>
+	 * it walks past) aren't part of what is measured
+	 */
+	@Setup(Level.Trial)
+	public void silence() {
+		this.logLevel = EventLog.getLevel();
+		EventLog.setLevel(LogLevel.ERROR);
+	}
+	
+	@TearDown(Level.Trial)
+	public void restore() {
+		EventLog.setLevel(this.logLevel);
+	}
+	
+	@Setup(Level.Iteration)
+	public void createWorld() throws IOException {
+		this.world = BenchmarkWorlds.create(this.unitType, this.unitCount);
+		this.world.setAIThreads(this.aiThreads);
+		this.tick = 0;
+	}
+	
+	@Benchmark
+	public void update() {
+		int direction = (this.tick++ / TICKS_PER_DIRECTION) % WALK_X.length;
+		this.world.update(WALK_X[direction], WALK_Y[direction], DELTA);
+	}
+}
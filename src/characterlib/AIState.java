@@ -0,0 +1,26 @@
+package characterlib;
+
+/**
+ * What an NPC is doing, as decided by the <code>StateMachine</code> of its kind. Each unit keeps <br/>
+ * one of these, as a byte in its entity store slot, in place of the yes/no flags (aware of the <br/>
+ * player, attacking, avoiding, at rest...) that used to describe it between them.
+ */
+public enum AIState {
+	/**Staying put with nothing to react to; every unit starts here*/
+	IDLE,
+	/**Walking along the edge of its bounding box*/
+	WANDER,
+	/**Standing still, watching the player come near (villagers)*/
+	WATCH,
+	/**Heading for the player*/
+	CHASE,
+	/**Within reach of the player and fighting it; a passive enemy runs while it fights*/
+	ATTACK,
+	/**Running from the player*/
+	FLEE,
+	/**Getting its breath back after running, asleep until it has rested*/
+	REST;
+
+	/**Every state, indexed by ordinal*/
+	static final AIState[] VALUES = values();
+}
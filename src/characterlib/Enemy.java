@@ -2,9 +2,10 @@ package characterlib;
 
 import static config.GlobalConfiguration.*;
 
-import org.newdawn.slick.Color;
-import org.newdawn.slick.Graphics;
-import org.newdawn.slick.tiled.TiledMap;
+import maplib.CollisionMap;
+import maplib.CollisionResolver;
+import maplib.FlowField;
+import maplib.GridPathfinder;
 
 /**
  * Class for all enemy units that react to player's attacks.
@@ -15,21 +16,21 @@ import org.newdawn.slick.tiled.TiledMap;
 public class Enemy extends NPC {
 	
 	/**
-	 * Toggle which turns on the "chase" mechanism
+	 * Finds the way around obstacles when chasing; if null, the unit heads straight for the player
 	 */
-	private Boolean chasePlayer;
+	private GridPathfinder pathfinder;
 	/**
-	 * Toggle which turns on the "attack" mechanism
+	 * Shared distances to the player's tile; if set, the unit follows it instead of searching for its own path
 	 */
-	private Boolean attackPlayer;
+	private FlowField flowField;
 	/**
-	 * Sets whether the unit is dead or not.
+	 * The player's tile when the current path was found, or -1 if there is no path
 	 */
-	private Boolean isDead;
+	private int pathGoalTile;
 	/**
-	 * Sets to "true" if the unit is Draelic
+	 * The tile the unit is walking to on its way to the player, or -1 if there is none
 	 */
-	private Boolean isBoss;
+	private int waypointTile;
 
 	/**
 	 * Default constructor, calls parent default and sets all other values to false
@@ -37,80 +38,55 @@ public class Enemy extends NPC {
 	public Enemy() {
 		super();
 		
-		this.isBoss = false;
-		this.chasePlayer = false;
-		this.attackPlayer = false;
-		this.isDead = false;
+		this.pathGoalTile = -1;
+		this.waypointTile = -1;
 	}
 	
 	/**
 	 * Default constructor for setting some parameters, calls parent and sets all other values to false
 	 */
-	public Enemy(float xpos, float ypos, String spriteFile, TiledMap map) {
-		super(xpos, ypos, spriteFile, map);
+	public Enemy(float xpos, float ypos, String spriteFile, CollisionResolver collider) {
+		super(xpos, ypos, spriteFile, collider);
 		
-		this.isBoss = false;
-		this.chasePlayer = false;
-		this.attackPlayer = false;
-		this.isDead = false;
+		this.pathGoalTile = -1;
+		this.waypointTile = -1;
 	}
 	
 	/**
 	 * Default constructor for setting some parameters, calls parent and sets all other values to false
 	 */	
-	public Enemy(float xpos, float ypos, String spriteFile, TiledMap map, int hp, int sp, int ar, int at) {
-		super(xpos, ypos, spriteFile, map, hp, sp, ar, at);
-		
-		this.isBoss = false;
-		this.chasePlayer = false;
-		this.attackPlayer = false;
-		this.isDead = false;
+	public Enemy(float xpos, float ypos, String spriteFile, CollisionResolver collider, int hp, int sp, int ar, int at) {
+		this(new EntityStore(1), xpos, ypos, spriteFile, collider, hp, sp, ar, at, false);
 	}
 	
 	/**
 	 * Default constructor for setting some parameters, calls parent and sets all other values to false<br/>
 	 * apart from "boss" which is set to true if the character is Draelic (argument boss = true)
 	 */
-	public Enemy(float xpos, float ypos, String spriteFile, TiledMap map, int hp, int sp, int ar, int at, Boolean boss) {
-		super(xpos, ypos, spriteFile, map, hp, sp, ar, at);
-		
-		this.isBoss = boss;
-		this.chasePlayer = false;
-		this.attackPlayer = false;
-		this.isDead = false;
+	public Enemy(float xpos, float ypos, String spriteFile, CollisionResolver collider, int hp, int sp, int ar, int at, Boolean boss) {
+		this(new EntityStore(1), xpos, ypos, spriteFile, collider, hp, sp, ar, at, boss);
 	}
 	
-///////////////////////////////////////////////////////////////////////////////////
-	
 	/**
-	 * Checks if the player is within attacking distance, or in the "field of view"<br/>
-	 * If the player is within the field of view, the enemy unit will chase after the player<br/>
-	 * If the player is within attacking distance, the enemy unit will pause and attack the player
+	 * Creates the enemy with its state in a slot of a given store, such as its world's
 	 */
-	public void checkAwareOfPlayer() {
-		if(this.getXPosition() >= PLAYER_START_POS_X - ATTACK_RANGE && this.getXPosition() <= PLAYER_START_POS_X + ATTACK_RANGE 
-				&& this.getYPosition() >= PLAYER_START_POS_Y - ATTACK_RANGE && this.getYPosition() <= PLAYER_START_POS_Y + ATTACK_RANGE) {
-			this.setAwareOfPlayer(true);
-			this.setRandomMovementEnabled(false);
-			this.setAttackPlayer(true);
-		}
-		else if(this.getXPosition() >= PLAYER_START_POS_X - FOV && this.getXPosition() <= PLAYER_START_POS_X + FOV 
-				&& this.getYPosition() >= PLAYER_START_POS_Y - FOV && this.getYPosition() <= PLAYER_START_POS_Y + FOV) {
-			this.setAwareOfPlayer(true);
-			this.setRandomMovementEnabled(false);
-			this.setAttackPlayer(false);
-		}
-		else {
-			this.setAwareOfPlayer(false);
-			this.setRandomMovementEnabled(true);
-			this.setAttackPlayer(false);
-		}
+	public Enemy(EntityStore store, float xpos, float ypos, String spriteFile, CollisionResolver collider, int hp, int sp, int ar, int at, Boolean boss) {
+		super(store, xpos, ypos, spriteFile, collider, hp, sp, ar, at);
+		
+		this.setIsBoss(boss);
+		this.pathGoalTile = -1;
+		this.waypointTile = -1;
 	}
 	
+///////////////////////////////////////////////////////////////////////////////////
+	
 	/**
-	 * Engages the unit's chasing algorithm. If the unit is aware, but not attacking the player, <br/>
-	 * then the unit will attempt to move within attacking distance.<br/>
-	 * The unit will be unable to move towards the player if blocked by an obstacle.
+	 * Engages the unit's chasing algorithm. If the unit is chasing the player, it will attempt to <br/>
+	 * move within attacking distance.<br/>
+	 * If the unit has a flow field or a pathfinder it walks the shortest path around obstacles, <br/>
+	 * heading for one tile (or turning point of the path) at a time; otherwise (or once on the <br/>
+	 * player's tile, or if the player can't be reached) it heads straight for the player and may <br/>
+	 * be blocked by obstacles.
 	 * 
 	 * @param baseSpeed The distance to move in this frame
 	 */
@@ -118,15 +94,32 @@ public class Enemy extends NPC {
 		this.resetBlocks();
 		this.canMove();
 		
-		if(this.getAwareOfPlayer() && !this.getAttackPlayer()) {
-			float distX = (PLAYER_START_POS_X - this.getXPosition());
+		if(this.getChasePlayer()) {
+			float goalX = this.getTarget().getX();
+			float goalY = this.getTarget().getY();
+			
+			if((this.flowField != null || this.pathfinder != null) && this.findWaypoint(baseSpeed)) {
+				CollisionResolver collider = this.getCollider();
+				CollisionMap map = collider.getMap();
+				goalX = (this.waypointTile % map.getWidth() + 0.5f) * map.getTileWidth() - collider.getCentreOffsetX();
+				goalY = (this.waypointTile / map.getWidth() + 0.5f) * map.getTileHeight() - collider.getCentreOffsetY();
+			}
+			
+			float distX = (goalX - this.getXPosition());
 			
-			float distY = (PLAYER_START_POS_Y - this.getYPosition());
+			float distY = (goalY - this.getYPosition());
 			
 			float distTotal = (float)Math.sqrt(distX*distX + distY*distY);
 			
-			float dX = (distX/distTotal) * baseSpeed;
-			float dY = (distY/distTotal) * baseSpeed;
+			if(distTotal == 0) {
+				return;
+			}
+			
+			//don't overshoot a waypoint, or the unit will wobble around it
+			float speed = Math.min(baseSpeed, distTotal);
+			
+			float dX = (distX/distTotal) * speed;
+			float dY = (distY/distTotal) * speed;
 			
 			if(dX < 0 && !this.getBlockWest()) {
 				this.moveX((float)dX);
@@ -146,163 +139,135 @@ public class Enemy extends NPC {
 	}
 	
 	/**
-	 * Engages the unit's random movement algorithm.<br/>
-	 * If the unit is not aware of the player, nor attacking the player, the unit will move at random.<br/>
-	 * A random "dice" is rolled, and the result determines whether to stay put, or move along the x/y axis<br/>
-	 * The chance of a "stay put" result is significantly higher than all the other results, so the unit <br/>
-	 * is more likely to stay still in a frame, resulting in more realistic movement.<br/>
+	 * Chooses the tile the unit should walk to next on its way to the player. With a flow field <br/>
+	 * this is the field's next step from the unit's tile, looked up when the unit reaches its <br/>
+	 * waypoint. Otherwise a new path is only searched for when the player moves to another tile <br/>
+	 * or the unit reaches its waypoint.<br/><br/>
+	 * 
+	 * <strong>Precondition:</strong> <code>flowField</code> or <code>pathfinder</code> is not null<br/>
+	 * <strong>Postcondition:</strong> <code>waypointTile</code> is the next turning point of the path, or -1<br/><br/>
 	 * 
-	 * The unit moves along the edges of an invisible box of a predetermined size, and cannot move beyond <br/>
-	 * the bounds of this box, unless chasing the player.<br/>
-	 * If the unit chases the player outside of the bounding box's perimeter, the unit will attempt to find its<br/>
-	 * way back to the box's location.<br/>
-	 * However, if the unit has moved a certain distance away from its original point, it will set a new point to<br/>
-	 * walk around from its current location
+	 * @param baseSpeed The distance the unit moves in this frame, within which a waypoint counts as reached
+	 * @return true if the unit should head for <code>waypointTile</code>, false if it should head straight for the player
 	 */
-	public void moveAtRandom(float baseSpeed) {this.resetBlocks();
-		this.canMove();
-		double randyNum = Math.random();
-		this.checkAwareOfPlayer();
-		baseSpeed *= 1.1;
+	private boolean findWaypoint(float baseSpeed) {
+		CollisionResolver collider = this.getCollider();
+		CollisionMap map = collider.getMap();
 		
-		if(this.getRandomMovementEnabled()) {
-			
-			if(this.getDistanceTraveledX() > BREAK_BOX || this.getDistanceTraveledX() < -BREAK_BOX || this.getDistanceTraveledY() > BREAK_BOX || this.getDistanceTraveledY() < -BREAK_BOX) {
-				this.setDistanceTraveledX(0);
-				this.setDistanceTraveledY(0);
-			}
-			
-			
-			if(this.getLockMovementUp() && !this.getBlockNorth() && this.getDistanceTraveledY() >= -BOUNDING_BOX_SIZE) { 
-				this.moveY(-baseSpeed);
-			}
-			
-			else if(this.getLockMovementDown() && !this.getBlockSouth() && this.getDistanceTraveledY() <= BOUNDING_BOX_SIZE) {
-				this.moveY(baseSpeed);
-			}
-			
-			else if(this.getLockMovementLeft() && !this.getBlockWest() && this.getDistanceTraveledX() >= -BOUNDING_BOX_SIZE) {
-				this.moveX(-baseSpeed);
-			}
-			
-			else if(this.getLockMovementRight() && !this.getBlockEast() && this.getDistanceTraveledX() <= BOUNDING_BOX_SIZE) {
-				this.moveX(baseSpeed);
+		float centreX = this.getXPosition() + collider.getCentreOffsetX();
+		float centreY = this.getYPosition() + collider.getCentreOffsetY();
+		int tileX = map.toTileX(centreX);
+		int tileY = map.toTileY(centreY);
+		int goalX = map.toTileX(this.getTarget().getX() + collider.getCentreOffsetX());
+		int goalY = map.toTileY(this.getTarget().getY() + collider.getCentreOffsetY());
+		int goalTile = goalY * map.getWidth() + goalX;
+		
+		if(tileX == goalX && tileY == goalY) {
+			this.pathGoalTile = -1;
+			this.waypointTile = -1;
+			return false;
+		}
+		
+		boolean reached = false;
+		if(this.waypointTile >= 0) {
+			float dX = (this.waypointTile % map.getWidth() + 0.5f) * map.getTileWidth() - centreX;
+			float dY = (this.waypointTile / map.getWidth() + 0.5f) * map.getTileHeight() - centreY;
+			reached = dX*dX + dY*dY <= baseSpeed*baseSpeed;
+		}
+		
+		if(this.flowField != null) {
+			if(this.waypointTile < 0 || reached) {
+				this.waypointTile = this.flowField.getNextTile(tileX, tileY);
 			}
+			return this.waypointTile >= 0;
+		}
+		
+		if(goalTile != this.pathGoalTile || reached) {
+			this.pathGoalTile = goalTile;
+			this.waypointTile = -1;
 			
-			else if(randyNum < 0.96) {
-				//do nothing;
-			}
-			else if(randyNum < 0.97) {
-				this.resetLocks();
-				if(this.getDistanceTraveledY() <= -BOUNDING_BOX_SIZE || this.getBlockNorth()) { //if youve gone too far or are blocked, turn off the lock
-					this.setBlockNorth(true);
-				}
-				
-				else {
-					this.moveY(-baseSpeed);
-					this.setLockMovementUp(true);
-				}
-			}
-			else if(randyNum < 0.98) {
-				this.resetLocks();
-				if(this.getDistanceTraveledX() <= -BOUNDING_BOX_SIZE || this.getBlockWest()) { //if youve gone too far or are blocked, turn off the lock
-					this.setBlockWest(true);
-				}
-				
-				else {
-					this.moveX(-baseSpeed);
-					this.setLockMovementLeft(true);
-				}
-			}
-			else if(randyNum < 0.99) {
-				this.resetLocks();
-				if(this.getDistanceTraveledY() >= BOUNDING_BOX_SIZE || this.getBlockSouth()) {
-					this.setBlockSouth(true);
-				}
-				else {
-					this.moveY(baseSpeed);
-					this.setLockMovementDown(true);
-				}
-			}
-			else {
-				this.resetLocks();
-				if(this.getDistanceTraveledX() >= BOUNDING_BOX_SIZE || this.getBlockEast()) {
-					this.setBlockEast(true);
-				}
-				else {
-					this.moveX(baseSpeed);
-					this.setLockMovementRight(true);
-				}
+			if(this.pathfinder.findPath(tileX, tileY, goalX, goalY) && this.pathfinder.getPathLength() > 0) {
+				this.waypointTile = this.pathfinder.getPathTileY(0) * map.getWidth() + this.pathfinder.getPathTileX(0);
 			}
 		}
 		
-		else this.chasePlayer(baseSpeed);
-		
+		return this.waypointTile >= 0;
 	}
 	
 	/**
-	 * Default render method. renders the unit at its current position, as well as the health bar
+	 * Engages the unit's random movement algorithm (see <code>NPC.wander</code>).<br/>
+	 * If the unit has moved a certain distance away from its original point, for instance while <br/>
+	 * chasing the player, it sets a new point to walk around from its current location.
 	 */
-	public void render(Graphics g) {
-		sprite.draw(this.xPosition, this.yPosition);
-		g.setColor(new Color(0,0,0));
-		g.fillRect(this.getXPosition() - 16, this.getYPosition() - 6, 100, 8);
-		g.setColor(new Color(255,0,0));
-		g.fillRect(this.getXPosition() - 16, this.getYPosition() - 16, ((100/this.getMaxHealth()) * this.getHealth()), 12);
-		g.setColor(Color.yellow);
-        String text = this.getHealth() + "/" + this.getMaxHealth();
-        g.drawString(text, this.getXPosition() - 16, this.getYPosition() - 6);
-		 
+	@Override
+	public boolean wander(float baseSpeed, int sleep) {
+		if(this.getDistanceTraveledX() > BREAK_BOX || this.getDistanceTraveledX() < -BREAK_BOX || this.getDistanceTraveledY() > BREAK_BOX || this.getDistanceTraveledY() < -BREAK_BOX) {
+			this.setDistanceTraveledX(0);
+			this.setDistanceTraveledY(0);
+		}
 		
+		return super.wander(baseSpeed, sleep);
 	}
 	
 	/**
-	 * Secondary render method. Renders the unit and its health bar at a point passed in to the method
+	 * Forgets the path the unit was following, since it was planned from where the unit was <br/>
+	 * before it was put back
 	 */
-	public void render(Graphics g, float x, float y) {
-		
-		sprite.draw(x, y);
-		g.setColor(new Color(0,0,0));
-		g.fillRect(this.getXPosition() - 16, this.getYPosition() - 6, 100, 12);
-		g.setColor(new Color(255,0,0));		
-		g.fillRect(this.getXPosition() - 16, this.getYPosition() - 6, 100 * this.getHealth()/this.getMaxHealth(), 12);
-		g.setColor(Color.yellow);
-        String text = this.getHealth() + "/" + this.getMaxHealth();
-        g.drawString(text, this.getXPosition() + 5, this.getYPosition() - 9);
+	@Override
+	void restored() {
+		this.pathGoalTile = -1;
+		this.waypointTile = -1;
 	}
-
+	
 /////////////////////////////////////////////////////////////////////////////////////
 	
 	//GETTERS AND SETTERS
-	public void setChasePlayer(Boolean chasePlayer) {
-		this.chasePlayer = chasePlayer;
+	/**
+	 * Checks whether the unit is heading for the player
+	 */
+	public boolean getChasePlayer() {
+		return this.store.state[this.slot] == AIState.CHASE.ordinal();
+	}
+
+	/**
+	 * Checks whether the player is within the unit's reach, so that the two fight this tick
+	 */
+	public boolean getAttackPlayer() {
+		return this.store.state[this.slot] == AIState.ATTACK.ordinal();
+	}
+
+	public void setIsDead(boolean isDead) {
+		this.setFlag(EntityStore.FLAG_DEAD, isDead);
 	}
 
-	public Boolean getChasePlayer() {
-		return chasePlayer;
+	public boolean getIsDead() {
+		return this.getFlag(EntityStore.FLAG_DEAD);
 	}
 
-	public void setAttackPlayer(Boolean attackPlayer) {
-		this.attackPlayer = attackPlayer;
+	public void setIsBoss(boolean isBoss) {
+		this.setFlag(EntityStore.FLAG_BOSS, isBoss);
 	}
 
-	public Boolean getAttackPlayer() {
-		return attackPlayer;
+	public boolean getIsBoss() {
+		return this.getFlag(EntityStore.FLAG_BOSS);
 	}
 
-	public void setIsDead(Boolean isDead) {
-		this.isDead = isDead;
+	public void setPathfinder(GridPathfinder pathfinder) {
+		this.pathfinder = pathfinder;
+		this.pathGoalTile = -1;
+		this.waypointTile = -1;
 	}
 
-	public Boolean getIsDead() {
-		return isDead;
+	public GridPathfinder getPathfinder() {
+		return pathfinder;
 	}
 
-	public void setIsBoss(Boolean isBoss) {
-		this.isBoss = isBoss;
+	public void setFlowField(FlowField flowField) {
+		this.flowField = flowField;
+		this.waypointTile = -1;
 	}
 
-	public Boolean getIsBoss() {
-		return isBoss;
+	public FlowField getFlowField() {
+		return flowField;
 	}
 }
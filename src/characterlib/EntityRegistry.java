@@ -0,0 +1,192 @@
+package characterlib;
+
+import java.util.Arrays;
+
+/**
+ * Hands out handles to the characters in a world, which stay safe to hold after the character <br/>
+ * has gone.<br/><br/>
+ *
+ * A handle packs an index into the registry's table with the generation of that entry, as <br/>
+ * <code>(generation &lt;&lt; 32) | index</code>. Looking a handle up is one array read and one <br/>
+ * comparison. When a character is released its entry's generation goes up, so every handle to <br/>
+ * it is seen to be stale from then on, and the entry is put on a free list to be reused by the <br/>
+ * next character registered. The table therefore only grows with the number of characters alive <br/>
+ * at once, however many come and go.<br/><br/>
+ *
+ * Code that needs to refer to a character it doesn't own (a target, the holder of an item, an <br/>
+ * id in a log) should keep its handle rather than the object. A registry is not thread safe; <br/>
+ * characters are registered and released between ticks.
+ */
+public class EntityRegistry {
+
+	/**A handle that never refers to a character (generations start at 1)*/
+	public static final long NO_HANDLE = 0;
+
+	/**Number of entries a registry starts with when none is given*/
+	private static final int DEFAULT_CAPACITY = 64;
+	/**Marks the end of the free list*/
+	private static final int END_OF_LIST = -1;
+
+	/**The character in each entry, or null if the entry is free*/
+	private GameCharacter[] characters;
+	/**The current generation of each entry*/
+	private int[] generations;
+	/**For each free entry, the index of the next free entry*/
+	private int[] nextFree;
+	/**Index of the first free entry, or END_OF_LIST*/
+	private int firstFree;
+	/**Number of entries ever used; entries from here on have never held a character*/
+	private int used;
+	/**Number of characters registered*/
+	private int count;
+
+	/**
+	 * Creates an empty registry with room for a typical number of characters
+	 */
+	public EntityRegistry() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty registry<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>capacity</code> is positive<br/>
+	 * <strong>Postcondition:</strong> The registry holds no characters; it grows as they are registered<br/><br/>
+	 *
+	 * @param capacity The number of characters the registry has room for before it must grow
+	 */
+	public EntityRegistry(int capacity) {
+		this.characters = new GameCharacter[capacity];
+		this.generations = new int[capacity];
+		this.nextFree = new int[capacity];
+		this.firstFree = END_OF_LIST;
+		this.used = 0;
+		this.count = 0;
+	}
+
+	/**
+	 * Registers a character, giving it a handle<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>charac</code> is not registered with any registry<br/>
+	 * <strong>Postcondition:</strong> <code>charac.getHandle()</code> is its new handle, which finds <br/>
+	 * it until it is released<br/><br/>
+	 *
+	 * @param charac The character to register
+	 * @return The character's handle
+	 */
+	public long register(GameCharacter charac) {
+		int index;
+
+		if(this.firstFree != END_OF_LIST) {
+			index = this.firstFree;
+			this.firstFree = this.nextFree[index];
+		}
+		else {
+			if(this.used == this.characters.length) {
+				this.grow(this.characters.length * 2);
+			}
+			index = this.used++;
+			this.generations[index] = 1;
+		}
+
+		this.characters[index] = charac;
+		this.count++;
+
+		charac.handle = ((long)this.generations[index] << 32) | index;
+		return charac.handle;
+	}
+
+	/**
+	 * Releases a character's handle. The handle (and any copy of it) no longer finds anything, <br/>
+	 * and the character can be registered again later with a new one.
+	 *
+	 * @param charac A character registered with this registry
+	 */
+	public void release(GameCharacter charac) {
+		if(this.get(charac.handle) != charac) {
+			return;
+		}
+
+		int index = (int)charac.handle;
+		this.characters[index] = null;
+		//skip 0 when the generation wraps, so NO_HANDLE is never handed out
+		this.generations[index] = this.generations[index] == Integer.MAX_VALUE ? 1 : this.generations[index] + 1;
+		this.nextFree[index] = this.firstFree;
+		this.firstFree = index;
+		this.count--;
+
+		charac.handle = NO_HANDLE;
+	}
+
+	/**
+	 * Finds the character a handle refers to
+	 *
+	 * @param handle A handle from <code>register</code>
+	 * @return The character, or null if it has been released (or the handle is <code>NO_HANDLE</code>)
+	 */
+	public GameCharacter get(long handle) {
+		int index = (int)handle;
+		int generation = (int)(handle >>> 32);
+
+		if(index < 0 || index >= this.used || this.generations[index] != generation) {
+			return null;
+		}
+
+		return this.characters[index];
+	}
+
+	/**
+	 * Finds the character in an entry of the table, e.g. one named by the index part of a handle
+	 *
+	 * @return The character, or null if the entry is free
+	 */
+	public GameCharacter getAt(int index) {
+		return index >= 0 && index < this.used ? this.characters[index] : null;
+	}
+
+	/**
+	 * Checks whether a handle still refers to a character
+	 */
+	public boolean isValid(long handle) {
+		return this.get(handle) != null;
+	}
+
+	/**
+	 * Resizes the registry's table
+	 */
+	private void grow(int capacity) {
+		this.characters = Arrays.copyOf(this.characters, capacity);
+		this.generations = Arrays.copyOf(this.generations, capacity);
+		this.nextFree = Arrays.copyOf(this.nextFree, capacity);
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Gets the number of characters registered
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Gets the number of entries in the table, free or in use
+	 */
+	public int getCapacityUsed() {
+		return used;
+	}
+
+	/**
+	 * Gets the index part of a handle, e.g. to show it in a log
+	 */
+	public static int indexOf(long handle) {
+		return (int)handle;
+	}
+
+	/**
+	 * Gets the generation part of a handle
+	 */
+	public static int generationOf(long handle) {
+		return (int)(handle >>> 32);
+	}
+}
@@ -0,0 +1,72 @@
+package characterlib;
+
+/**
+ * A saved copy of the state of a group of characters, which can later be written back over <br/>
+ * them.<br/><br/>
+ *
+ * The copy is kept in an <code>EntityStore</code> of its own, one slot per saved character, so it is <br/>
+ * as compact as the live state. Restoring copies each saved slot back into whatever slot the <br/>
+ * character occupies now; the characters themselves are reused, so restoring creates nothing. <br/>
+ * State that isn't kept in the store (a character's sprite, target and random stream) is left <br/>
+ * as it is, and anything a character worked out from its old state, like an enemy's path, is <br/>
+ * thrown away.
+ */
+public class EntitySnapshot {
+
+	/**The saved state; each slot's owner is the character it was saved from*/
+	private final EntityStore saved;
+
+	/**
+	 * Creates an empty snapshot
+	 *
+	 * @param capacity The number of characters the snapshot has room for before it must grow
+	 */
+	public EntitySnapshot(int capacity) {
+		this.saved = new EntityStore(capacity);
+	}
+
+	/**
+	 * Saves a character's current state. A character saved twice is restored to the later state.<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>charac</code> is not null<br/>
+	 * <strong>Postcondition:</strong> The character's state is copied into the snapshot; the character is unchanged<br/><br/>
+	 *
+	 * @param charac The character to save
+	 */
+	public void save(GameCharacter charac) {
+		int slot = this.saved.allocate(charac);
+		EntityStore.copySlot(charac.store, charac.slot, this.saved, slot);
+	}
+
+	/**
+	 * Puts every saved character back into the state it was saved in<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> none<br/>
+	 * <strong>Postcondition:</strong> Every saved character has its saved state, in its current store and slot
+	 */
+	public void restore() {
+		for(int i = 0; i < this.saved.size(); i++) {
+			GameCharacter charac = this.saved.owners[i];
+			EntityStore.copySlot(this.saved, i, charac.store, charac.slot);
+			charac.restored();
+		}
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Gets the number of characters saved
+	 */
+	public int size() {
+		return saved.size();
+	}
+
+	/**
+	 * Gets a saved character
+	 *
+	 * @param index A number from 0 to <code>size() - 1</code>, in the order the characters were saved
+	 */
+	public GameCharacter getCharacter(int index) {
+		return saved.getOwner(index);
+	}
+}
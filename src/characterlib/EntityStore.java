@@ -0,0 +1,263 @@
+package characterlib;
+
+import java.util.Arrays;
+
+/**
+ * Holds the state of a group of characters in dense primitive arrays, one slot per character.<br/><br/>
+ *
+ * A <code>GameCharacter</code> is a thin view onto its slot: its getters and setters read and write <br/>
+ * the arrays here rather than fields of its own. The characters of a world all share the world's <br/>
+ * store, so a loop over one property (every x position, every health) walks contiguous memory, <br/>
+ * and whole-population steps like saving the previous positions are single array copies.<br/><br/>
+ *
+ * Yes/no state (blocked directions, movement locks and so on) is packed into one <code>int</code> <br/>
+ * of flag bits per slot, tested and set with the <code>FLAG_</code> masks. What an NPC is doing is <br/>
+ * one <code>AIState</code> ordinal per slot.<br/><br/>
+ *
+ * Slots are kept dense: removing a character moves the last slot into the gap and tells the <br/>
+ * character that owned it. A character created on its own gets a store of its own, and is moved <br/>
+ * into a shared store with <code>attach</code>.
+ */
+public class EntityStore {
+
+	/**Number of slots a store starts with when none is given*/
+	private static final int DEFAULT_CAPACITY = 64;
+
+	/*FLAG BITS*/
+	public static final int FLAG_BLOCK_NORTH = 1;
+	public static final int FLAG_BLOCK_SOUTH = 1 << 1;
+	public static final int FLAG_BLOCK_EAST = 1 << 2;
+	public static final int FLAG_BLOCK_WEST = 1 << 3;
+	public static final int FLAG_FLIPPED_SPRITE = 1 << 4;
+	public static final int FLAG_LOCK_UP = 1 << 5;
+	public static final int FLAG_LOCK_DOWN = 1 << 6;
+	public static final int FLAG_LOCK_LEFT = 1 << 7;
+	public static final int FLAG_LOCK_RIGHT = 1 << 8;
+	public static final int FLAG_PLAYER_IN_RANGE = 1 << 9;
+	public static final int FLAG_DEAD = 1 << 10;
+	public static final int FLAG_BOSS = 1 << 11;
+	public static final int FLAG_ELVIRA = 1 << 12;
+	public static final int FLAG_ASLEEP = 1 << 13;
+
+	/**All four blocked directions*/
+	public static final int BLOCK_FLAGS = FLAG_BLOCK_NORTH | FLAG_BLOCK_SOUTH | FLAG_BLOCK_EAST | FLAG_BLOCK_WEST;
+	/**All four movement locks*/
+	public static final int LOCK_FLAGS = FLAG_LOCK_UP | FLAG_LOCK_DOWN | FLAG_LOCK_LEFT | FLAG_LOCK_RIGHT;
+
+	/*STATE ARRAYS*/
+	float[] x;
+	float[] y;
+	float[] previousX;
+	float[] previousY;
+	float[] speed;
+	float[] distanceTraveledX;
+	float[] distanceTraveledY;
+	int[] sleepTicks;
+	int[] health;
+	int[] maxHealth;
+	int[] armor;
+	int[] attack;
+	int[] maxSpeed;
+	int[] flags;
+	/**<code>AIState</code> ordinals*/
+	byte[] state;
+	/**The character viewing each slot*/
+	GameCharacter[] owners;
+
+	/**Number of slots in use; slots 0 to count - 1 are all in use*/
+	private int count;
+
+	/**
+	 * Creates an empty store with room for a typical number of characters
+	 */
+	public EntityStore() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty store<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>capacity</code> is positive<br/>
+	 * <strong>Postcondition:</strong> The store holds no characters; it grows as they are added<br/><br/>
+	 *
+	 * @param capacity The number of characters the store has room for before it must grow
+	 */
+	public EntityStore(int capacity) {
+		this.x = new float[capacity];
+		this.y = new float[capacity];
+		this.previousX = new float[capacity];
+		this.previousY = new float[capacity];
+		this.speed = new float[capacity];
+		this.distanceTraveledX = new float[capacity];
+		this.distanceTraveledY = new float[capacity];
+		this.sleepTicks = new int[capacity];
+		this.health = new int[capacity];
+		this.maxHealth = new int[capacity];
+		this.armor = new int[capacity];
+		this.attack = new int[capacity];
+		this.maxSpeed = new int[capacity];
+		this.flags = new int[capacity];
+		this.state = new byte[capacity];
+		this.owners = new GameCharacter[capacity];
+		this.count = 0;
+	}
+
+	/**
+	 * Moves a character's state out of whatever store it is in and into this one<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>charac</code> is not null<br/>
+	 * <strong>Postcondition:</strong> <code>charac</code> is a view onto a slot of this store, with its state unchanged<br/><br/>
+	 *
+	 * @param charac The character to move
+	 */
+	public void attach(GameCharacter charac) {
+		EntityStore from = charac.store;
+		if(from == this) {
+			return;
+		}
+
+		int slot = this.allocate(charac);
+		copySlot(from, charac.slot, this, slot);
+		from.remove(charac.slot);
+
+		charac.store = this;
+		charac.slot = slot;
+	}
+
+	/**
+	 * Moves a character's state out of this store into a store of its own, freeing its slot. The <br/>
+	 * character keeps working, but no longer takes part in this store's batch operations. This <br/>
+	 * allocates, so it is meant for characters leaving for good; one that may come back is better <br/>
+	 * <code>attach</code>ed to another long-lived store.
+	 *
+	 * @param charac A character attached to this store
+	 */
+	public void detach(GameCharacter charac) {
+		if(charac.store != this) {
+			return;
+		}
+
+		EntityStore own = new EntityStore(1);
+		int slot = own.allocate(charac);
+		copySlot(this, charac.slot, own, slot);
+		this.remove(charac.slot);
+
+		charac.store = own;
+		charac.slot = slot;
+	}
+
+	/**
+	 * Records every character's current position as its position at the end of the previous tick
+	 */
+	public void savePreviousPositions() {
+		System.arraycopy(this.x, 0, this.previousX, 0, this.count);
+		System.arraycopy(this.y, 0, this.previousY, 0, this.count);
+	}
+
+	/**
+	 * Claims a new zeroed slot at the end of the store, growing it if full
+	 *
+	 * @return The index of the slot
+	 */
+	int allocate(GameCharacter owner) {
+		if(this.count == this.owners.length) {
+			this.grow(this.owners.length * 2);
+		}
+
+		int slot = this.count++;
+		this.owners[slot] = owner;
+		return slot;
+	}
+
+	/**
+	 * Frees a slot by moving the last slot into it, so the slots in use stay dense
+	 */
+	private void remove(int slot) {
+		int last = --this.count;
+
+		if(slot != last) {
+			copySlot(this, last, this, slot);
+			this.owners[slot].slot = slot;
+		}
+
+		this.clearSlot(last);
+	}
+
+	/**
+	 * Zeroes a slot so that it is ready to be claimed again
+	 */
+	private void clearSlot(int slot) {
+		this.x[slot] = this.y[slot] = 0;
+		this.previousX[slot] = this.previousY[slot] = 0;
+		this.speed[slot] = 0;
+		this.distanceTraveledX[slot] = this.distanceTraveledY[slot] = 0;
+		this.sleepTicks[slot] = 0;
+		this.health[slot] = this.maxHealth[slot] = 0;
+		this.armor[slot] = this.attack[slot] = this.maxSpeed[slot] = 0;
+		this.flags[slot] = 0;
+		this.state[slot] = 0;
+		this.owners[slot] = null;
+	}
+
+	/**
+	 * Copies every property (and the owner) of one slot into another
+	 */
+	static void copySlot(EntityStore from, int fromSlot, EntityStore to, int toSlot) {
+		to.x[toSlot] = from.x[fromSlot];
+		to.y[toSlot] = from.y[fromSlot];
+		to.previousX[toSlot] = from.previousX[fromSlot];
+		to.previousY[toSlot] = from.previousY[fromSlot];
+		to.speed[toSlot] = from.speed[fromSlot];
+		to.distanceTraveledX[toSlot] = from.distanceTraveledX[fromSlot];
+		to.distanceTraveledY[toSlot] = from.distanceTraveledY[fromSlot];
+		to.sleepTicks[toSlot] = from.sleepTicks[fromSlot];
+		to.health[toSlot] = from.health[fromSlot];
+		to.maxHealth[toSlot] = from.maxHealth[fromSlot];
+		to.armor[toSlot] = from.armor[fromSlot];
+		to.attack[toSlot] = from.attack[fromSlot];
+		to.maxSpeed[toSlot] = from.maxSpeed[fromSlot];
+		to.flags[toSlot] = from.flags[fromSlot];
+		to.state[toSlot] = from.state[fromSlot];
+		to.owners[toSlot] = from.owners[fromSlot];
+	}
+
+	/**
+	 * Resizes every array of the store
+	 */
+	private void grow(int capacity) {
+		this.x = Arrays.copyOf(this.x, capacity);
+		this.y = Arrays.copyOf(this.y, capacity);
+		this.previousX = Arrays.copyOf(this.previousX, capacity);
+		this.previousY = Arrays.copyOf(this.previousY, capacity);
+		this.speed = Arrays.copyOf(this.speed, capacity);
+		this.distanceTraveledX = Arrays.copyOf(this.distanceTraveledX, capacity);
+		this.distanceTraveledY = Arrays.copyOf(this.distanceTraveledY, capacity);
+		this.sleepTicks = Arrays.copyOf(this.sleepTicks, capacity);
+		this.health = Arrays.copyOf(this.health, capacity);
+		this.maxHealth = Arrays.copyOf(this.maxHealth, capacity);
+		this.armor = Arrays.copyOf(this.armor, capacity);
+		this.attack = Arrays.copyOf(this.attack, capacity);
+		this.maxSpeed = Arrays.copyOf(this.maxSpeed, capacity);
+		this.flags = Arrays.copyOf(this.flags, capacity);
+		this.state = Arrays.copyOf(this.state, capacity);
+		this.owners = Arrays.copyOf(this.owners, capacity);
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Gets the number of characters in the store
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Gets the character viewing a slot
+	 *
+	 * @param slot A slot from 0 to <code>size() - 1</code>
+	 */
+	public GameCharacter getOwner(int slot) {
+		return owners[slot];
+	}
+}
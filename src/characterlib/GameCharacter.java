@@ -5,8 +5,8 @@
  */
 package characterlib;
 
-import org.newdawn.slick.*;
 import static config.GlobalConfiguration.*;
+import java.util.SplittableRandom;
 
 /**
  * A class for any character that moves independently of the map.
@@ -16,37 +16,23 @@ import static config.GlobalConfiguration.*;
  */
 public abstract class GameCharacter {
 	
-	/**Counts the number of instantiated characters in the current level*/
-	static int numberOfObjects;
-	/**Unused variable at the moment*/
-	int health, armor, attack; 
-	float speed;
-	int maxHealth;
-	int maxSpeed;
-	/**The character's x position on the camera*/
-	float xPosition; 
-	/**The character's y position on the camera*/
-	float yPosition;
-	/**The character's sprite image*/
-	Image sprite;
-	private Boolean flippedSprite;
+	/**Path of the character's sprite image. The image itself is loaded and drawn by the renderer*/
+	String sprite;
+	/**The character's own random number stream, handed out by the world's <code>RandomService</code>; null until then*/
+	private SplittableRandom random;
 	
 
-	/**The character's index in the character array*/
-	int characterID;
-	/**The distance the character has travelled in the +-X direction*/
-	float distanceTraveledX;
-	/**The distance the character has travelled in the +-Y direction*/
-	float distanceTraveledY;
+	/**The character's handle in its world's <code>EntityRegistry</code>, or <code>NO_HANDLE</code> if it isn't in a world*/
+	long handle;
 	
-	/**If true, the player cannot move in the Northern direction*/
-	private Boolean blockNorth;
-	/**If true, the player cannot move in the Southern direction*/
-	private Boolean blockSouth;
-	/**If true, the player cannot move in the Eastern direction*/
-	private Boolean blockEast;
-	/**If true, the player cannot move in the Western direction*/
-	private Boolean blockWest;
+	/**
+	 * Holds the character's health, stats, position, distance travelled and flags. The character <br/>
+	 * starts in the store it is created in (one of its own if none is given); the world moves it <br/>
+	 * between its stores as it enters and leaves
+	 */
+	EntityStore store;
+	/**The character's slot in <code>store</code>*/
+	int slot;
 	
 	
 	
@@ -58,32 +44,30 @@ public abstract class GameCharacter {
 	 * 
 	 * <b>Precondition:</b> none<br/>
 	 * <b>Postcondition:</b> <br/>All default values set;<br/> 
-	 * <code>numberOfObjects</code> incremented; <br/>
+	 * the character has no handle until it is registered; <br/>
 	 * <code>sprite</code> is set to default sprite;<br/><br/>
 	 */
 	public GameCharacter() {
-		this.health = this.maxHealth = INITIAL_HEALTH;
-		this.armor = INITIAL_ARMOR;
-		this.speed = NIL;
-		this.attack = INITIAL_ATTACK;
+		this.store = new EntityStore(1);
+		this.slot = this.store.allocate(this);
 		
-		this.maxSpeed = INITIAL_SPEED;
+		this.setHealth(INITIAL_HEALTH);
+		this.setMaxHealth(INITIAL_HEALTH);
+		this.setArmor(INITIAL_ARMOR);
+		this.setSpeed(NIL);
+		this.setAttack(INITIAL_ATTACK);
 		
-		this.xPosition = INITIAL_POSITION;
-		this.yPosition = INITIAL_POSITION;
+		this.setMaxSpeed(INITIAL_SPEED);
 		
-		this.blockEast = false;
-		this.blockSouth = false;
-		this.blockNorth = false;
-		this.blockWest = false;
+		this.setXPosition(INITIAL_POSITION);
+		this.setYPosition(INITIAL_POSITION);
 		
-		this.characterID = numberOfObjects;
-		numberOfObjects++;
+		this.savePreviousPosition();
 		
-		this.flippedSprite = false;
+		this.handle = EntityRegistry.NO_HANDLE;
 		
-		this.distanceTraveledX = NIL;
-		this.distanceTraveledY = NIL;
+		this.setDistanceTraveledX(NIL);
+		this.setDistanceTraveledY(NIL);
 		
 		setSprite(DEFAULT_CHARACTER_SPRITE);
 	}
@@ -98,28 +82,26 @@ public abstract class GameCharacter {
 	 * @param spriteImageName The name of the sprite image under the default asset folder
 	 */
 	public GameCharacter(String spriteImageName) {
-		this.health = this.maxHealth = INITIAL_HEALTH;
-		this.armor = INITIAL_ARMOR;
-		this.speed = INITIAL_SPEED;
-		this.attack = INITIAL_ATTACK;
+		this.store = new EntityStore(1);
+		this.slot = this.store.allocate(this);
 		
-		this.maxSpeed = INITIAL_SPEED;
+		this.setHealth(INITIAL_HEALTH);
+		this.setMaxHealth(INITIAL_HEALTH);
+		this.setArmor(INITIAL_ARMOR);
+		this.setSpeed(INITIAL_SPEED);
+		this.setAttack(INITIAL_ATTACK);
 		
-		this.xPosition = INITIAL_POSITION;
-		this.yPosition = INITIAL_POSITION;
+		this.setMaxSpeed(INITIAL_SPEED);
 		
-		this.blockEast = false;
-		this.blockSouth = false;
-		this.blockNorth = false;
-		this.blockWest = false;
+		this.setXPosition(INITIAL_POSITION);
+		this.setYPosition(INITIAL_POSITION);
 		
-		this.characterID = numberOfObjects;
-		numberOfObjects++;
+		this.savePreviousPosition();
 		
-		this.flippedSprite = false;
+		this.handle = EntityRegistry.NO_HANDLE;
 		
-		this.distanceTraveledX = NIL;
-		this.distanceTraveledY = NIL;
+		this.setDistanceTraveledX(NIL);
+		this.setDistanceTraveledY(NIL);
 		
 		setSprite(SPRITE_FOLDER + spriteImageName);
 	}
@@ -131,35 +113,32 @@ public abstract class GameCharacter {
 	 * <b>Postcondition:</b><br/> <code>Health</code>, <code>Armor</code>, <code>Speed</code> set to default values; <br/>
 	 * 	<code>xPosition</code> and <code>yPosition</code> set to given <code>xpos</code> and <code>ypos</code> values; <br/>
 	 * 	<code>sprite</code> is set to default sprite;<br/>
-	 *  <code>characterID</code> is set to the number of objects so far (for referencing); <br/>
-	 * 	<code>numberOfObjects</code> is incremented;<br/><br/>
+	 * 	the character has no handle until it is registered;<br/><br/>
 	 * 
 	 * @param xpos Sets the initial x-coordinate to render the image at
 	 * @param ypos Sets the initial y-coordinate to render the image at
 	 */
 	public GameCharacter(float xpos, float ypos) {
-		this.health = this.maxHealth = INITIAL_HEALTH;
-		this.armor = INITIAL_ARMOR;
-		this.speed = INITIAL_SPEED;
-		this.attack = INITIAL_ATTACK;
+		this.store = new EntityStore(1);
+		this.slot = this.store.allocate(this);
 		
-		this.maxSpeed = INITIAL_SPEED;
+		this.setHealth(INITIAL_HEALTH);
+		this.setMaxHealth(INITIAL_HEALTH);
+		this.setArmor(INITIAL_ARMOR);
+		this.setSpeed(INITIAL_SPEED);
+		this.setAttack(INITIAL_ATTACK);
 		
-		this.xPosition = xpos;
-		this.yPosition = ypos;
+		this.setMaxSpeed(INITIAL_SPEED);
 		
-		this.blockEast = false;
-		this.blockSouth = false;
-		this.blockNorth = false;
-		this.blockWest = false;
+		this.setXPosition(xpos);
+		this.setYPosition(ypos);
 		
-		this.characterID = numberOfObjects;
-		numberOfObjects++;
+		this.savePreviousPosition();
 		
-		this.flippedSprite = false;
+		this.handle = EntityRegistry.NO_HANDLE;
 		
-		this.distanceTraveledX = NIL;
-		this.distanceTraveledY = NIL;
+		this.setDistanceTraveledX(NIL);
+		this.setDistanceTraveledY(NIL);
 		
 		setSprite(DEFAULT_CHARACTER_SPRITE);
 	}
@@ -171,87 +150,138 @@ public abstract class GameCharacter {
 	 * <b>Postcondition:</b> <br/>Health, Armor, Speed set to default values; 
 	 * 	<br/>xPosition and yPosition set to given xpos and ypos values; 
 	 * 	<br/>sprite is set to the sprite at path <code>spriteImageName</code>;
-	 *  <br/>characterID is set to the number of objects so far (for referencing); 
-	 * 	<br/>numberOfObjects is incremented;<br/><br/>
+	 * 	<br/>the character has no handle until it is registered;<br/><br/>
 	 * 
 	 * @param spriteImageName The name of the sprite image under the default asset folder
 	 * @param xpos Sets the initial x-coordinate to render the image at
 	 * @param ypos Sets the initial y-coordinate to render the image at
 	 */
 	public GameCharacter(String spriteImageName, float xpos, float ypos) {
-		this.health = this.maxHealth = INITIAL_HEALTH;
-		this.armor = INITIAL_ARMOR;
-		this.speed = INITIAL_SPEED;
-		this.attack = INITIAL_ATTACK;
+		this(new EntityStore(1), spriteImageName, xpos, ypos);
+	}
+	
+	/**
+	 * Creates the character with its state in a slot of a given store, such as its world's, <br/>
+	 * rather than in a store of its own<br/><br/>
+	 * 
+	 * <b>Precondition:</b> <code>store</code> is not null<br/>
+	 * <b>Postcondition:</b> <br/>As the constructor without <code>store</code>, but the character's state <br/>
+	 * is in a new slot of <code>store</code>;<br/><br/>
+	 * 
+	 * @param store The store to keep the character's state in
+	 * @param spriteImageName The name of the sprite image under the default asset folder
+	 * @param xpos Sets the initial x-coordinate to render the image at
+	 * @param ypos Sets the initial y-coordinate to render the image at
+	 */
+	public GameCharacter(EntityStore store, String spriteImageName, float xpos, float ypos) {
+		this.store = store;
+		this.slot = store.allocate(this);
 		
-		this.maxSpeed = INITIAL_SPEED;
+		this.setHealth(INITIAL_HEALTH);
+		this.setMaxHealth(INITIAL_HEALTH);
+		this.setArmor(INITIAL_ARMOR);
+		this.setSpeed(INITIAL_SPEED);
+		this.setAttack(INITIAL_ATTACK);
 		
-		this.xPosition = xpos;
-		this.yPosition = ypos;
+		this.setMaxSpeed(INITIAL_SPEED);
 		
-		this.blockEast = false;
-		this.blockSouth = false;
-		this.blockNorth = false;
-		this.blockWest = false;
+		this.setXPosition(xpos);
+		this.setYPosition(ypos);
 		
-		this.characterID = numberOfObjects;
-		numberOfObjects++;
-	
+		this.savePreviousPosition();
 		
-		this.flippedSprite = false;
+		this.handle = EntityRegistry.NO_HANDLE;
 		
-		this.distanceTraveledX = NIL;
-		this.distanceTraveledY = NIL;
+		this.setDistanceTraveledX(NIL);
+		this.setDistanceTraveledY(NIL);
 		
 		setSprite(SPRITE_FOLDER + spriteImageName);
 	}
 	
 	public GameCharacter(String spriteImageName, float xpos, float ypos, int hp, int sp, int ar, int at) {
-		this.health = this.maxHealth = hp;
-		this.armor = ar;
-		this.speed = NIL;
-		this.attack = at;
+		this(new EntityStore(1), spriteImageName, xpos, ypos, hp, sp, ar, at);
+	}
+	
+	/**
+	 * Creates the character with given stats, with its state in a slot of a given store
+	 */
+	public GameCharacter(EntityStore store, String spriteImageName, float xpos, float ypos, int hp, int sp, int ar, int at) {
+		this.store = store;
+		this.slot = store.allocate(this);
 		
-		this.maxSpeed = sp;
+		this.setHealth(hp);
+		this.setMaxHealth(hp);
+		this.setArmor(ar);
+		this.setSpeed(NIL);
+		this.setAttack(at);
 		
-		this.xPosition = xpos;
-		this.yPosition = ypos;
+		this.setMaxSpeed(sp);
 		
-		this.blockEast = false;
-		this.blockSouth = false;
-		this.blockNorth = false;
-		this.blockWest = false;
+		this.setXPosition(xpos);
+		this.setYPosition(ypos);
 		
-		this.characterID = numberOfObjects;
-		numberOfObjects++;
-	
+		this.savePreviousPosition();
 		
-		this.flippedSprite = false;
+		this.handle = EntityRegistry.NO_HANDLE;
 		
-		this.distanceTraveledX = NIL;
-		this.distanceTraveledY = NIL;
+		this.setDistanceTraveledX(NIL);
+		this.setDistanceTraveledY(NIL);
 		
 		setSprite(SPRITE_FOLDER + spriteImageName);
 	}
 	
 	
-	/*RENDERING METHODS*/
+	/*SHORTCUT METHODS*/
 	/**
-	 * Renders the character on screen
+	 * Records the current position as the position at the end of the previous tick. Called at <br/>
+	 * the start of every simulation tick, and whenever the character jumps to a new position.
 	 */
-	public void render(Graphics g) {
-		sprite.draw(this.xPosition, this.yPosition);
-		 
-		
+	public void savePreviousPosition() {
+		this.store.previousX[this.slot] = this.store.x[this.slot];
+		this.store.previousY[this.slot] = this.store.y[this.slot];
 	}
 	
-	public void render(Graphics g, float x, float y) {
-		
-		sprite.draw(x, y);
+	/**
+	 * Called once an <code>EntitySnapshot</code> has put the character's state back, so that it can <br/>
+	 * forget anything it worked out from the state it had before. Does nothing by default.
+	 */
+	void restored() {
 	}
 	
+	/**
+	 * Gets the x position to draw the character at, between the previous and current ticks
+	 * 
+	 * @param alpha How far between the previous tick (0) and the current tick (1) to draw
+	 * @return The interpolated map x-coordinate
+	 */
+	public float getInterpolatedXPosition(float alpha) {
+		float previous = this.store.previousX[this.slot];
+		return previous + (this.store.x[this.slot] - previous) * alpha;
+	}
+	
+	/**
+	 * Gets the y position to draw the character at, between the previous and current ticks
+	 * 
+	 * @param alpha How far between the previous tick (0) and the current tick (1) to draw
+	 * @return The interpolated map y-coordinate
+	 */
+	public float getInterpolatedYPosition(float alpha) {
+		float previous = this.store.previousY[this.slot];
+		return previous + (this.store.y[this.slot] - previous) * alpha;
+	}
+	
+
+	/**
+	 * Works out how many ticks a countdown in speed units (a rest timer, an attack cooldown) takes <br/>
+	 * to run out, counting down by <code>TICK_COUNTDOWN</code> each tick
+	 * 
+	 * @param amount The amount left to count down
+	 * @return The number of ticks, at least 1 if anything is left
+	 */
+	public static int ticksToCountDown(float amount) {
+		return (int)Math.ceil(amount / TICK_COUNTDOWN);
+	}
 	
-	/*SHORTCUT METHODS*/
 	/**
 	 * Shortcut method to increase the X/Y distance travelled by the character<br/>
 	 * 
@@ -262,152 +292,204 @@ public abstract class GameCharacter {
 	 * @param inY The value to increment the Y distance by
 	 */
 	public void increaseDistanceTraveled(float inX, float inY) {
-		this.setDistanceTraveledX(this.getDistanceTraveledX() + inX);
-		this.setDistanceTraveledY(this.getDistanceTraveledY() + inY);
+		this.store.distanceTraveledX[this.slot] += inX;
+		this.store.distanceTraveledY[this.slot] += inY;
+	}
+	
+	/**
+	 * Checks one of the character's flag bits
+	 * 
+	 * @param mask One of the <code>EntityStore.FLAG_</code> masks
+	 */
+	boolean getFlag(int mask) {
+		return (this.store.flags[this.slot] & mask) != 0;
+	}
+	
+	/**
+	 * Turns one or more of the character's flag bits on or off
+	 * 
+	 * @param mask One or more of the <code>EntityStore.FLAG_</code> masks, combined with |
+	 * @param on true to turn the flags on, false to turn them off
+	 */
+	void setFlag(int mask, boolean on) {
+		if(on) this.store.flags[this.slot] |= mask;
+		else this.store.flags[this.slot] &= ~mask;
 	}
 	
 	/*SETTERS*/
 	public void setHealth(int in) {
-		this.health = in;
+		this.store.health[this.slot] = in;
 	}
 	
 	public void setArmor(int in) {
-		this.armor = in;
+		this.store.armor[this.slot] = in;
 	}
 	
 	public void setSpeed(int in) {
-		this.speed = in;
+		this.store.speed[this.slot] = in;
 	}
 	
 	public void setXPosition(float in) {
-		this.xPosition = in;
+		this.store.x[this.slot] = in;
 	}
 	
 	public void setYPosition(float in) {
-		this.yPosition = in;
+		this.store.y[this.slot] = in;
 	}
 	
 	public void setSprite(String in) {
-		try {
-			this.sprite = new Image(in);
-		}
-		catch (SlickException err) {
-			System.out.println("Error in method \"setSprite\": No such resource " + in);
-			System.exit(0);
-		}
+		this.sprite = in;
+	}
+	
+	public String getSprite() {
+		return this.sprite;
 	}
 	
 	public void setDistanceTraveledX(float in) {
-		this.distanceTraveledX = in;
+		this.store.distanceTraveledX[this.slot] = in;
 	}
 	
 	public void setDistanceTraveledY(float in) {
-		this.distanceTraveledY = in;
+		this.store.distanceTraveledY[this.slot] = in;
 	}
 	
 	
 	/* GETTERS*/
 	public int getHealth() {
-		return this.health;
+		return this.store.health[this.slot];
 	}
 	
 	public int getArmor() {
-		return this.armor;
+		return this.store.armor[this.slot];
 	}
 	
 	public float getSpeed() {
-		return this.speed;
+		return this.store.speed[this.slot];
 	}
 	
 	public void setSpeed(float speed) {
-		this.speed = speed;
+		this.store.speed[this.slot] = speed;
 	}
 
 	public int getMaxSpeed() {
-		return maxSpeed;
+		return this.store.maxSpeed[this.slot];
 	}
 
 	public void setMaxSpeed(int maxSpeed) {
-		this.maxSpeed = maxSpeed;
+		this.store.maxSpeed[this.slot] = maxSpeed;
 	}
 
 	public float getXPosition() {
-		return this.xPosition;
+		return this.store.x[this.slot];
 	}
 	
 	public float getYPosition() {
-		return this.yPosition;
+		return this.store.y[this.slot];
 	}
 	
 	public float getDistanceTraveledX() {
-		return this.distanceTraveledX;
+		return this.store.distanceTraveledX[this.slot];
 	}
 	
 	public float getDistanceTraveledY() {
-		return this.distanceTraveledY;
+		return this.store.distanceTraveledY[this.slot];
 	}
 	
 	public int getImageHeight() {
-		return this.sprite.getHeight();
+		return SPRITE_SIZE;
 	}
 	
 	public int getImageWidth() {
-		return this.sprite.getWidth();
+		return SPRITE_SIZE;
 	}
 
 	public int getAttack() {
-		return attack;
+		return this.store.attack[this.slot];
 	}
 
 	public void setAttack(int attack) {
-		this.attack = attack;
+		this.store.attack[this.slot] = attack;
 	}
 
 	public int getMaxHealth() {
-		return this.maxHealth;
+		return this.store.maxHealth[this.slot];
 	}
 
 	public void setMaxHealth(int maxHealth) {
-		this.maxHealth = maxHealth;
+		this.store.maxHealth[this.slot] = maxHealth;
+	}
+
+	public boolean getBlockNorth() {
+		return this.getFlag(EntityStore.FLAG_BLOCK_NORTH);
 	}
 
-	public Boolean getBlockNorth() {
-		return blockNorth;
+	public void setBlockNorth(boolean blockNorth) {
+		this.setFlag(EntityStore.FLAG_BLOCK_NORTH, blockNorth);
 	}
 
-	public void setBlockNorth(Boolean blockNorth) {
-		this.blockNorth = blockNorth;
+	public boolean getBlockSouth() {
+		return this.getFlag(EntityStore.FLAG_BLOCK_SOUTH);
 	}
 
-	public Boolean getBlockSouth() {
-		return blockSouth;
+	public void setBlockSouth(boolean blockSouth) {
+		this.setFlag(EntityStore.FLAG_BLOCK_SOUTH, blockSouth);
 	}
 
-	public void setBlockSouth(Boolean blockSouth) {
-		this.blockSouth = blockSouth;
+	public boolean getBlockEast() {
+		return this.getFlag(EntityStore.FLAG_BLOCK_EAST);
 	}
 
-	public Boolean getBlockEast() {
-		return blockEast;
+	public void setBlockEast(boolean blockEast) {
+		this.setFlag(EntityStore.FLAG_BLOCK_EAST, blockEast);
 	}
 
-	public void setBlockEast(Boolean blockEast) {
-		this.blockEast = blockEast;
+	public boolean getBlockWest() {
+		return this.getFlag(EntityStore.FLAG_BLOCK_WEST);
 	}
 
-	public Boolean getBlockWest() {
-		return blockWest;
+	public void setBlockWest(boolean blockWest) {
+		this.setFlag(EntityStore.FLAG_BLOCK_WEST, blockWest);
+	}
+	
+	/**
+	 * Gets the character's own random number stream. Every stream must come from a seeded <br/>
+	 * <code>RandomService</code> for runs to be reproducible, so a character is given none until <br/>
+	 * <code>setRandom</code> is called, and using it before then is a mistake.
+	 * 
+	 * @throws IllegalStateException if the character hasn't been given a stream
+	 */
+	public SplittableRandom getRandom() {
+		if(random == null) {
+			throw new IllegalStateException("character has no random number stream; see setRandom");
+		}
+		return random;
 	}
 
-	public void setBlockWest(Boolean blockWest) {
-		this.blockWest = blockWest;
+	public void setRandom(SplittableRandom random) {
+		this.random = random;
 	}
 	
-	public Boolean getFlippedSprite() {
-		return flippedSprite;
+	public boolean getFlippedSprite() {
+		return this.getFlag(EntityStore.FLAG_FLIPPED_SPRITE);
 	}
 
-	public void setFlippedSprite(Boolean flippedSprite) {
-		this.flippedSprite = flippedSprite;
+	public void setFlippedSprite(boolean flippedSprite) {
+		this.setFlag(EntityStore.FLAG_FLIPPED_SPRITE, flippedSprite);
+	}
+	
+	public EntityStore getStore() {
+		return store;
+	}
+	
+	public int getSlot() {
+		return slot;
+	}
+	
+	/**
+	 * Gets the character's handle in its world's <code>EntityRegistry</code>, or <br/>
+	 * <code>EntityRegistry.NO_HANDLE</code> if it isn't in a world
+	 */
+	public long getHandle() {
+		return handle;
 	}
 }
@@ -2,10 +2,8 @@ package characterlib;
 
 import static config.GlobalConfiguration.*;
 import wrapperlib.CoordinatePoint;
-import org.newdawn.slick.Image;
-import org.newdawn.slick.SlickException;
+import maplib.CollisionResolver;
 
-import org.newdawn.slick.tiled.TiledMap;
 /**
  * The over-arching class for non playable units
  * 
@@ -13,88 +11,74 @@ import org.newdawn.slick.tiled.TiledMap;
  *
  */
 public class NPC extends GameCharacter {
-	 /**
-	  * Random movement toggle
-	  */
-	private Boolean randomMovementEnabled;
 	/**
-	 * Player awareness toggle
+	 * Value of a unit's sleep ticks when the world has woken it because its sleep is over
 	 */
-	private Boolean awareOfPlayer;
-
+	public static final int WAKE_NOW = -1;
+	
 	/**
-	 * These positions only change when the character actually actively moves<br/>
-	 * vs x and y positions which change when the camera OR the character moves
+	 * Natural log of the chance an idle unit stays put on a tick, for drawing how long it stays put
 	 */
-	private float positionOnMapX;
+	private static final double LOG_STAY_PUT = Math.log(IDLE_STAY_PUT_CHANCE);
 	
 	/**
-	 * These positions only change when the character actually actively moves<br/>
-	 * vs x and y positions which change when the camera OR the character moves
+	 * The map position of the player, as published by the world each frame
 	 */
-	private float positionOnMapY;
+	private CoordinatePoint target;
 	
 	/**
-	 * Movement "lock" toggles used in random movement
+	 * Resolves the unit's movement against the map's blocking tiles
 	 */
-	private Boolean lockMovementUp;
-	private Boolean lockMovementDown;
-	private Boolean lockMovementLeft;
-	private Boolean lockMovementRight;
+	private CollisionResolver collider;
 	
 	/**
-	 * A reference to the map file, to gain access to its fields
+	 * The kind of unit this is, shared with every other unit of its kind, or null if it wasn't <br/>
+	 * made from an archetype
 	 */
-	private TiledMap mapReference;
+	private UnitArchetype archetype;
 	
 	/**
 	 * Default constructor
 	 */
 	public NPC() {
 		super(INITIAL_POSITION, INITIAL_POSITION);
-		
-		this.randomMovementEnabled = true;
 	}
 	
-	public NPC(float xpos, float ypos, String spriteName, TiledMap map) {
-		super(spriteName, xpos, ypos);
-		this.positionOnMapX = xpos + ZERO_MAP_POSITION_X;
-		this.positionOnMapY = ypos + ZERO_MAP_POSITION_Y;
-		
-		this.lockMovementDown = false;
-		this.lockMovementUp = false;
-		this.lockMovementLeft = false;
-		this.lockMovementRight = false;
-		
-		this.awareOfPlayer = false;
-		
-		this.mapReference = map;
-		
-		this.randomMovementEnabled = true;
+	public NPC(float xpos, float ypos, String spriteName, CollisionResolver collider) {
+		this(new EntityStore(1), xpos, ypos, spriteName, collider);
 	}
 	
-	public NPC(float xpos, float ypos, String spriteName, TiledMap map, int hp, int sp, int ar, int at) {
-		super(spriteName, xpos, ypos, hp, sp, ar, at);
+	/**
+	 * Creates the unit with its state in a slot of a given store, such as its world's
+	 */
+	public NPC(EntityStore store, float xpos, float ypos, String spriteName, CollisionResolver collider) {
+		super(store, spriteName, xpos, ypos);
+		this.target = new CoordinatePoint(PLAYER_SPAWN_X, PLAYER_SPAWN_Y);
 		
-		this.positionOnMapX = xpos + ZERO_MAP_POSITION_X;
-		this.positionOnMapY = ypos + ZERO_MAP_POSITION_Y;
+		this.setPlayerInRange(true);
 		
-		this.lockMovementDown = false;
-		this.lockMovementUp = false;
-		this.lockMovementLeft = false;
-		this.lockMovementRight = false;
+		this.collider = collider;
+	}
+	
+	public NPC(float xpos, float ypos, String spriteName, CollisionResolver collider, int hp, int sp, int ar, int at) {
+		this(new EntityStore(1), xpos, ypos, spriteName, collider, hp, sp, ar, at);
+	}
+	
+	/**
+	 * Creates the unit with given stats, with its state in a slot of a given store
+	 */
+	public NPC(EntityStore store, float xpos, float ypos, String spriteName, CollisionResolver collider, int hp, int sp, int ar, int at) {
+		super(store, spriteName, xpos, ypos, hp, sp, ar, at);
 		
-		this.awareOfPlayer = false;
+		this.target = new CoordinatePoint(PLAYER_SPAWN_X, PLAYER_SPAWN_Y);
 		
-		this.mapReference = map;
+		this.setPlayerInRange(true);
 		
-		this.randomMovementEnabled = true;
+		this.collider = collider;
 	}
 	
 	public NPC(float xpos, float ypos) {
 		super(xpos, ypos);
-		
-		this.randomMovementEnabled = true;
 	}
 /////////////////////////////////////////////////////////////////////////////////////////////////
 
@@ -103,418 +87,343 @@ public class NPC extends GameCharacter {
 	 * Turns off all movement locks
 	 */
 	protected void resetLocks() {
-		this.setLockMovementDown(false);
-		this.setLockMovementUp(false);
-		this.setLockMovementLeft(false);
-		this.setLockMovementRight(false);
+		this.setFlag(EntityStore.LOCK_FLAGS, false);
 	}
 	
 	/**
 	 * Turns off all blocking
 	 */
 	protected void resetBlocks() {
-		this.setBlockEast(false);
-		this.setBlockWest(false);
-		this.setBlockSouth(false);
-		this.setBlockNorth(false);
+		this.setFlag(EntityStore.BLOCK_FLAGS, false);
 	}
 	
 	/**
-	 * Engages the unit's random movement algorithm, used for villagers (enemies have altered movement methods)<br/>
-	 * If the unit is not aware of the player, nor attacking the player, the unit will move at random.<br/>
-	 * A random "dice" is rolled, and the result determines whether to stay put, or move along the x/y axis<br/>
-	 * The chance of a "stay put" result is significantly higher than all the other results, so the unit <br/>
-	 * is more likely to stay still in a frame, resulting in more realistic movement.<br/>
+	 * Engages the unit's random movement algorithm, carried out by units that are idle or wandering <br/>
+	 * (see <code>StateMachine</code>).<br/>
+	 * An idle unit mostly stays put, now and then setting off in a random direction along the x/y axis <br/>
+	 * (see <code>isTimeToMove</code>), which results in more realistic movement. It sleeps while it <br/>
+	 * stays put, rather than being woken every tick to roll for it.<br/>
 	 * 
 	 * The unit moves along the edges of an invisible box of a predetermined size, and cannot move beyond <br/>
 	 * the bounds of this box, unless chasing the player.<br/>
 	 * If the unit chases the player outside of the bounding box's perimeter, the unit will attempt to find its<br/>
-	 * way back to the box's location.<br/>
-	 * However, if the unit has moved a certain distance away from its original point, it will set a new point to<br/>
-	 * walk around from its current location
+	 * way back to the box's location.
+	 * 
+	 * @param baseSpeed The distance a unit moves this tick
+	 * @param sleep The unit's sleep ticks at the start of this update (see <code>takeSleepTicks</code>)
+	 * @return true if the unit is walking, false if it is staying put
+	 */
+	public boolean wander(float baseSpeed, int sleep) {
+		this.resetBlocks();
+		this.canMove();
+		baseSpeed *= 1.1;
+		
+		if(this.getLockMovementUp() && !this.getBlockNorth() && this.getDistanceTraveledY() >= -BOUNDING_BOX_SIZE) { 
+			this.moveY(-baseSpeed);
+		}
+		
+		else if(this.getLockMovementDown() && !this.getBlockSouth() && this.getDistanceTraveledY() <= BOUNDING_BOX_SIZE) {
+			this.moveY(baseSpeed);
+		}
+		
+		else if(this.getLockMovementLeft() && !this.getBlockWest() && this.getDistanceTraveledX() >= -BOUNDING_BOX_SIZE) {
+			this.moveX(-baseSpeed);
+		}
+		
+		else if(this.getLockMovementRight() && !this.getBlockEast() && this.getDistanceTraveledX() <= BOUNDING_BOX_SIZE) {
+			this.moveX(baseSpeed);
+		}
+		
+		else if(this.isTimeToMove(sleep)) {
+			this.moveInRandomDirection(baseSpeed);
+			return this.getFlag(EntityStore.LOCK_FLAGS);
+		}
+		
+		else {
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Decides whether an idle unit sets off in a random direction this tick.<br/><br/>
+	 * 
+	 * Each tick an idle unit has the same chance (<code>1 - IDLE_STAY_PUT_CHANCE</code>) of setting <br/>
+	 * off. Rather than rolling for it every tick, the unit draws how many ticks in a row it will stay <br/>
+	 * put with a single roll, and asks to sleep for them; the world wakes it when they are over <br/>
+	 * (<code>WAKE_NOW</code>), or sooner if the player comes near, in which case it sleeps out the <br/>
+	 * rest if it is still idle.
+	 * 
+	 * @param sleep The unit's sleep ticks at the start of this update (see <code>takeSleepTicks</code>)
+	 * @return true if the unit should set off now
 	 */
-	public void moveAtRandom(float baseSpeed) {
-		//System.out.println(this.getBlockNorth() + "n and s" + this.getBlockSouth() + " with TL: " + this.getTileAboveLeft() + ", and TR: " + this.getTileAboveRight());
+	protected boolean isTimeToMove(int sleep) {
+		if(sleep == WAKE_NOW) {
+			return true;
+		}
 		
-		this.checkAwareOfPlayer();
+		if(sleep > 0) {
+			this.setSleepTicks(sleep);
+			return false;
+		}
 		
-		//System.out.println(this.getDistanceTraveledY());
+		//the number of ticks before the first move, each tick staying put with IDLE_STAY_PUT_CHANCE
+		int stayPut = (int)(Math.log(1 - this.getRandom().nextDouble()) / LOG_STAY_PUT);
+		if(stayPut == 0) {
+			return true;
+		}
 		
-		if(this.getRandomMovementEnabled()) {
-			
-			this.resetBlocks();
-			this.canMove();
-			double randyNum = Math.random();
-			baseSpeed *= 1.1;
-			
-			if(this.getLockMovementUp() && !this.getBlockNorth() && this.getDistanceTraveledY() >= -BOUNDING_BOX_SIZE) { 
+		this.setSleepTicks(stayPut);
+		return false;
+	}
+	
+	/**
+	 * Sets off in one of the four directions, chosen at random, and keeps going that way on later <br/>
+	 * ticks. If the unit is blocked that way, or has reached the edge of its bounding box, it stays <br/>
+	 * put instead.
+	 */
+	protected void moveInRandomDirection(float baseSpeed) {
+		int direction = this.getRandom().nextInt(4);
+		this.resetLocks();
+		
+		if(direction == 0) {
+			if(this.getDistanceTraveledY() <= -BOUNDING_BOX_SIZE || this.getBlockNorth()) { //if youve gone too far or are blocked, turn off the lock
+				this.setBlockNorth(true);
+			}
+			else {
 				this.moveY(-baseSpeed);
+				this.setLockMovementUp(true);
 			}
-			
-			else if(this.getLockMovementDown() && !this.getBlockSouth() && this.getDistanceTraveledY() <= BOUNDING_BOX_SIZE) {
-				this.moveY(baseSpeed);
+		}
+		else if(direction == 1) {
+			if(this.getDistanceTraveledX() <= -BOUNDING_BOX_SIZE || this.getBlockWest()) { //if youve gone too far or are blocked, turn off the lock
+				this.setBlockWest(true);
 			}
-			
-			else if(this.getLockMovementLeft() && !this.getBlockWest() && this.getDistanceTraveledX() >= -BOUNDING_BOX_SIZE) {
+			else {
 				this.moveX(-baseSpeed);
+				this.setLockMovementLeft(true);
 			}
-			
-			else if(this.getLockMovementRight() && !this.getBlockEast() && this.getDistanceTraveledX() <= BOUNDING_BOX_SIZE) {
-				this.moveX(baseSpeed);
-			}
-			
-			else if(randyNum < 0.96) {
-				//do nothing;
-			}
-			else if(randyNum < 0.97) {
-				this.resetLocks();
-				if(this.getDistanceTraveledY() <= -BOUNDING_BOX_SIZE || this.getBlockNorth()) { //if youve gone too far or are blocked, turn off the lock
-					this.setBlockNorth(true);
-				}
-				
-				else {
-					this.moveY(-baseSpeed);
-					this.setLockMovementUp(true);
-				}
+		}
+		else if(direction == 2) {
+			if(this.getDistanceTraveledY() >= BOUNDING_BOX_SIZE || this.getBlockSouth()) {
+				this.setBlockSouth(true);
 			}
-			else if(randyNum < 0.98) {
-				this.resetLocks();
-				if(this.getDistanceTraveledX() <= -BOUNDING_BOX_SIZE || this.getBlockWest()) { //if youve gone too far or are blocked, turn off the lock
-					this.setBlockWest(true);
-				}
-				
-				else {
-					this.moveX(-baseSpeed);
-					this.setLockMovementLeft(true);
-				}
+			else {
+				this.moveY(baseSpeed);
+				this.setLockMovementDown(true);
 			}
-			else if(randyNum < 0.99) {
-				this.resetLocks();
-				if(this.getDistanceTraveledY() >= BOUNDING_BOX_SIZE || this.getBlockSouth()) {
-					this.setBlockSouth(true);
-				}
-				else {
-					this.moveY(baseSpeed);
-					this.setLockMovementDown(true);
-				}
+		}
+		else {
+			if(this.getDistanceTraveledX() >= BOUNDING_BOX_SIZE || this.getBlockEast()) {
+				this.setBlockEast(true);
 			}
 			else {
-				this.resetLocks();
-				
-				if(this.getDistanceTraveledX() >= BOUNDING_BOX_SIZE || this.getBlockEast()) {
-					this.setBlockEast(true);
-				}
-				else {
-					this.moveX(baseSpeed);
-					this.setLockMovementRight(true);
-				}
+				this.moveX(baseSpeed);
+				this.setLockMovementRight(true);
 			}
 		}
-		
 	}
 	
 	/**
-   * Checks left/right/above/below the player and freezes the camera in those directio-<br/>
-   * ns if the player is blocked by certain terrain<br/><br/>
+	 * Reads the unit's sleep ticks and clears them, so that a unit which does anything this update <br/>
+	 * other than ask to sleep again isn't put back to sleep by the world
+	 * 
+	 * @return <code>WAKE_NOW</code> if the unit's sleep is over, the ticks of sleep it has left if it <br/>
+	 * was woken early, or 0
+	 */
+	protected int takeSleepTicks() {
+		int sleep = this.getSleepTicks();
+		this.setSleepTicks(0);
+		return sleep;
+	}
+	
+	/**
+   * Checks left/right/above/below the unit and blocks movement in those directions if<br/>
+   * a single pixel step would carry the unit's hitbox into blocking terrain<br/><br/>
    * 
-   * <strong>Precondition:</strong> <code>speed</code> is a valid integer<br/>
-   * <strong>Postcondition:</strong> The player is frozen in zero or more directions<br/><br/>
+   * <strong>Precondition:</strong> <code>collider</code> is a valid CollisionResolver<br/>
+   * <strong>Postcondition:</strong> The unit is blocked in zero or more directions<br/><br/>
    */
 	public void canMove() {
+		float mapX = this.getXPosition();
+		float mapY = this.getYPosition();
 		
-  	
-	  	//freeze north
-	  	if(mapReference.getTileProperty(this.getTileAboveLeft(), "block", "0").equals("1") ||
-	  		mapReference.getTileProperty(this.getTileAboveRight(), "block", "0").equals("1")) 
-	  	{
+	  	if(this.collider.isBlockedY(mapX, mapY, -ONE_PIXEL)) {
 	  		this.setBlockNorth(true);
 	  	}
 	  	
-	  	//freeze south
-	  	if(mapReference.getTileProperty(this.getTileBelowRight(), "block", "0").equals("1") ||
-	  		mapReference.getTileProperty(this.getTileBelowLeft(), "block", "0").equals("1")	) 
-	  	{
-	  		
+	  	if(this.collider.isBlockedY(mapX, mapY, ONE_PIXEL)) {
 	  		this.setBlockSouth(true);
 	  	}
 	  	
-	  	//freeze west
-	  	if(mapReference.getTileProperty(this.getTileLeftTop(), "block", "0").equals("1") ||
-	  		mapReference.getTileProperty(this.getTileLeftBottom(), "block", "0").equals("1")) 
-	  	{
+	  	if(this.collider.isBlockedX(mapX, mapY, -ONE_PIXEL)) {
 	  		this.setBlockWest(true);
 	  	}
 	  	
-	  	//freeze east
-	  	if(mapReference.getTileProperty(this.getTileRightTop(), "block", "0").equals("1") ||
-	  		mapReference.getTileProperty(this.getTileRightBottom(), "block", "0").equals("1")) 
-	  	{
+	  	if(this.collider.isBlockedX(mapX, mapY, ONE_PIXEL)) {
 	  		this.setBlockEast(true);
 	  	}
-  	
 	}
 	
 	/**
-     * Gets the tile ID at the aboveLeft detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> land is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-	public int getTileAboveLeft() {
-    	return mapReference.getTileId(
-    			(int)((this.getPositionOnMapX() + MOVEMENT_THRESHOLD + PADDING)/mapReference.getTileWidth()), 
-    			(int)((this.getPositionOnMapY() + MOVEMENT_THRESHOLD)/mapReference.getTileHeight()), 
-    			0);
-	}
-    
-    /**
-     * Gets the tile ID at the aboveRight detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> land is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-    public int getTileAboveRight() {
-    	
-    	return mapReference.getTileId( 
-				(int)((this.getPositionOnMapX() + mapReference.getTileWidth() - MOVEMENT_THRESHOLD - PADDING)/mapReference.getTileWidth()), 
-				(int)((this.getPositionOnMapY() + MOVEMENT_THRESHOLD)/mapReference.getTileWidth()), 
-				0);
-    }
-    
-    /**
-     * Gets the tile ID at the leftTop detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> mapReference is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-    public int getTileLeftTop() {
-    	
-    	return mapReference.getTileId( 
-				(int)((this.getPositionOnMapX() + MOVEMENT_THRESHOLD)/mapReference.getTileWidth()), 
-				(int)((this.getPositionOnMapY() + MOVEMENT_THRESHOLD + PADDING)/mapReference.getTileWidth()), 
-				0);
-    }
-    
-    /**
-     * Gets the tile ID at the leftBottom detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> mapReference is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-    public int getTileLeftBottom() {
-    	
-    	return mapReference.getTileId( 
-				(int)((this.getPositionOnMapX() + MOVEMENT_THRESHOLD)/mapReference.getTileWidth()), 
-				(int)((this.getPositionOnMapY() + mapReference.getTileHeight() - MOVEMENT_THRESHOLD - PADDING)/mapReference.getTileWidth()), 
-				0);
-    }
-    
-    /**
-     * Gets the tile ID at the rightTop detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> mapReference is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-    public int getTileRightTop() {
-    	
-    	return mapReference.getTileId( 
-				(int)((this.getPositionOnMapX() + mapReference.getTileWidth() - MOVEMENT_THRESHOLD)/mapReference.getTileWidth()), 
-				(int)((this.getPositionOnMapY() + MOVEMENT_THRESHOLD + PADDING)/mapReference.getTileWidth()), 
-				0);
-    }
-    
-    /**
-     * Gets the tile ID at the rightBottom detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> mapReference is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-    public int getTileRightBottom() {
-    	
-    	return mapReference.getTileId( 
-				(int)((this.getPositionOnMapX() + mapReference.getTileWidth() - MOVEMENT_THRESHOLD)/mapReference.getTileWidth()), 
-				(int)((this.getPositionOnMapY() + mapReference.getTileHeight() - MOVEMENT_THRESHOLD - PADDING)/mapReference.getTileWidth()), 
-				0);
-    }
-    
-    /**
-     * Gets the tile ID at the belowRight detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> mapReference is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-    public int getTileBelowRight() {
-    	
-    	return mapReference.getTileId( 
-				(int)((this.getPositionOnMapX() + mapReference.getTileWidth() - MOVEMENT_THRESHOLD - PADDING)/mapReference.getTileWidth()), 
-				(int)((this.getPositionOnMapY() + mapReference.getTileHeight() - MOVEMENT_THRESHOLD/2)/mapReference.getTileWidth()), 
-				0);
-    }
-    
-    /**
-     * Gets the tile ID at the belowLeft detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> mapReference is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-    public int getTileBelowLeft() {
-    	
-    	return mapReference.getTileId( 
-				(int)((this.getPositionOnMapX() + MOVEMENT_THRESHOLD + PADDING)/mapReference.getTileWidth()), 
-				(int)((this.getPositionOnMapY() + mapReference.getTileHeight() - MOVEMENT_THRESHOLD/2)/mapReference.getTileWidth()), 
-				0);
-    }
-	
-    /**
-     * Checks if the player is within the field of view
-     */
-	public void checkAwareOfPlayer() {
-		if(this.getXPosition() > SCREEN_RESOLUTION_X/2 - FOV && this.getXPosition() < SCREEN_RESOLUTION_X/2 + FOV 
-				&& this.getYPosition() > SCREEN_RESOLUTION_Y/2 - FOV && this.getYPosition() < SCREEN_RESOLUTION_Y/2 + FOV) {
-			
-			this.setAwareOfPlayer(true);
-			this.setRandomMovementEnabled(false);
-			
-		}
-		else {
-			this.setAwareOfPlayer(false);
-			this.setRandomMovementEnabled(true);
-		}
-	}
-	
-	/**
-	 * Alters the X position of a player object.
+	 * Alters the X position of the unit. The movement is swept against the collision grid, so<br/>
+	 * the unit stops flush against the first blocking tile in its path, and is blocked in that direction.
 	 * 
-	 * @param amount An integer value specifying how much to move the object (-1 for one pixel left, +1 for one pixel right, 0 for no movement)
-	 * @return true if the operation completed successfully, false otherwise
+	 * @param amount The number of pixels to move the unit (negative for left, positive for right, 0 for no movement)
 	 */
 	public void moveX(float amount) {
-		this.resetBlocks();
-		this.canMove();
-		if(amount < 0) {
-			this.setXPosition(this.getXPosition() + amount);
-			this.setPositionOnMapX(this.getPositionOnMapX() + amount);
-			this.increaseDistanceTraveled(amount, 0);
+		float allowed = this.collider.resolveX(this.getXPosition(), this.getYPosition(), amount);
+		
+		if(allowed != 0) {
+			this.setXPosition(this.getXPosition() + allowed);
+			this.increaseDistanceTraveled(allowed, 0);
 		}
-		else if(amount > 0) {
-			this.setXPosition(this.getXPosition() + amount);
-			this.setPositionOnMapX(this.getPositionOnMapX() + amount);
-			this.increaseDistanceTraveled(amount, 0);
+		
+		if(allowed != amount) {
+			if(amount < 0) this.setBlockWest(true);
+			else this.setBlockEast(true);
 		}
 		
 		
 		if(amount < 0 && !this.getFlippedSprite()) {
-			this.sprite = this.sprite.getFlippedCopy(true, false);
 			this.setFlippedSprite(true);
 		}
 		
 		else if(amount > 0 && this.getFlippedSprite()) {
-			this.sprite = this.sprite.getFlippedCopy(true, false);
 			this.setFlippedSprite(false);
 		}
 	}
 	
 	/**
-	 * Alters the Y position of the player object 
+	 * Alters the Y position of the unit. The movement is swept against the collision grid, so<br/>
+	 * the unit stops flush against the first blocking tile in its path, and is blocked in that direction.
 	 * 
-	 * @param amount An integer value specifying how much to move the object (-1 for one pixel up, +1 for one pixel down, 0 for no movement)
-	 * @return true if the operation completed successfully, false otherwise
+	 * @param amount The number of pixels to move the unit (negative for up, positive for down, 0 for no movement)
 	 */
 	public void moveY(float amount) {
-		this.resetBlocks();
-		this.canMove();
-		if(amount < 0) {
-			this.setYPosition(this.getYPosition() + amount);
-			this.setPositionOnMapY(this.getPositionOnMapY() + amount);
-			this.increaseDistanceTraveled(0, amount);
+		float allowed = this.collider.resolveY(this.getXPosition(), this.getYPosition(), amount);
+		
+		if(allowed != 0) {
+			this.setYPosition(this.getYPosition() + allowed);
+			this.increaseDistanceTraveled(0, allowed);
 		}
-		else if(amount > 0) {
-			this.setYPosition(this.getYPosition() + amount);
-			this.setPositionOnMapY(this.getPositionOnMapY() + amount);
-			this.increaseDistanceTraveled(0, amount);
+		
+		if(allowed != amount) {
+			if(amount < 0) this.setBlockNorth(true);
+			else this.setBlockSouth(true);
 		}
 	}
 
 	
 /////////////////////////////////////////////////////////////////////////////////////////////////
-	public void setRandomMovementEnabled(Boolean randomMovementEnabled) {
-		this.randomMovementEnabled = randomMovementEnabled;
+	/**
+	 * Gets what the unit is doing, as decided by its <code>StateMachine</code>
+	 */
+	public AIState getState() {
+		return AIState.VALUES[this.store.state[this.slot]];
+	}
+
+	public void setState(AIState state) {
+		this.store.state[this.slot] = (byte)state.ordinal();
+	}
+
+	/**
+	 * Checks whether the unit is idle or wandering
+	 */
+	public boolean getRandomMovementEnabled() {
+		int state = this.store.state[this.slot];
+		return state == AIState.IDLE.ordinal() || state == AIState.WANDER.ordinal();
 	}
 
-	public Boolean getRandomMovementEnabled() {
-		return randomMovementEnabled;
+	/**
+	 * Checks whether the unit has noticed the player: it is watching, chasing or attacking it
+	 */
+	public boolean getAwareOfPlayer() {
+		int state = this.store.state[this.slot];
+		return state == AIState.WATCH.ordinal() || state == AIState.CHASE.ordinal() || state == AIState.ATTACK.ordinal();
 	}
 
-	public void setAwareOfPlayer(Boolean awareOfPlayer) {
-		this.awareOfPlayer = awareOfPlayer;
+	public void setLockMovementUp(boolean lockMovementUp) {
+		this.setFlag(EntityStore.FLAG_LOCK_UP, lockMovementUp);
 	}
 
-	public Boolean getAwareOfPlayer() {
-		return awareOfPlayer;
+	public boolean getLockMovementUp() {
+		return this.getFlag(EntityStore.FLAG_LOCK_UP);
 	}
-	
-	public Boolean getLockMovementUp() {
-		return this.lockMovementUp;
+
+	public void setLockMovementDown(boolean lockMovementDown) {
+		this.setFlag(EntityStore.FLAG_LOCK_DOWN, lockMovementDown);
 	}
 
-	public void setLockMovementUp(Boolean locMovementUp) {
-		this.lockMovementUp = locMovementUp;
+	public boolean getLockMovementDown() {
+		return this.getFlag(EntityStore.FLAG_LOCK_DOWN);
 	}
 
-	public Boolean getLockMovementDown() {
-		return lockMovementDown;
+	public void setLockMovementLeft(boolean lockMovementLeft) {
+		this.setFlag(EntityStore.FLAG_LOCK_LEFT, lockMovementLeft);
 	}
 
-	public void setLockMovementDown(Boolean lockMovementDown) {
-		this.lockMovementDown = lockMovementDown;
+	public boolean getLockMovementLeft() {
+		return this.getFlag(EntityStore.FLAG_LOCK_LEFT);
 	}
 
-	public Boolean getLockMovementLeft() {
-		return lockMovementLeft;
+	public void setLockMovementRight(boolean lockMovementRight) {
+		this.setFlag(EntityStore.FLAG_LOCK_RIGHT, lockMovementRight);
 	}
 
-	public void setLockMovementLeft(Boolean lockMovementLeft) {
-		this.lockMovementLeft = lockMovementLeft;
+	public boolean getLockMovementRight() {
+		return this.getFlag(EntityStore.FLAG_LOCK_RIGHT);
 	}
 
-	public Boolean getLockMovementRight() {
-		return lockMovementRight;
+	public void setPlayerInRange(boolean playerInRange) {
+		this.setFlag(EntityStore.FLAG_PLAYER_IN_RANGE, playerInRange);
 	}
 
-	public void setLockMovementRight(Boolean lockMovementRight) {
-		this.lockMovementRight = lockMovementRight;
+	public boolean getPlayerInRange() {
+		return this.getFlag(EntityStore.FLAG_PLAYER_IN_RANGE);
 	}
 
-	public float getPositionOnMapX() {
-		return positionOnMapX;
+	public CoordinatePoint getTarget() {
+		return target;
+	}
+
+	public void setTarget(CoordinatePoint target) {
+		this.target = target;
+	}
+
+	public CollisionResolver getCollider() {
+		return collider;
+	}
+
+	/**
+	 * Gets the number of ticks the unit has asked to sleep for (or see <code>takeSleepTicks</code>)
+	 */
+	public int getSleepTicks() {
+		return this.store.sleepTicks[this.slot];
+	}
+
+	public void setSleepTicks(int sleepTicks) {
+		this.store.sleepTicks[this.slot] = sleepTicks;
+	}
+
+	/**
+	 * Checks whether the unit is asleep, waiting on the world's timers, and so isn't being updated
+	 */
+	public boolean getAsleep() {
+		return this.getFlag(EntityStore.FLAG_ASLEEP);
 	}
 
-	public void setPositionOnMapX(float positionOnMapX) {
-		this.positionOnMapX = positionOnMapX;
+	public void setAsleep(boolean asleep) {
+		this.setFlag(EntityStore.FLAG_ASLEEP, asleep);
 	}
 
-	public float getPositionOnMapY() {
-		return positionOnMapY;
+	public UnitArchetype getArchetype() {
+		return archetype;
 	}
 
-	public void setPositionOnMapY(float positionOnMapY) {
-		this.positionOnMapY = positionOnMapY;
+	public void setArchetype(UnitArchetype archetype) {
+		this.archetype = archetype;
 	}
 
 
@@ -1,8 +1,6 @@
 package characterlib;
 
-import static config.GlobalConfiguration.*;
-
-import org.newdawn.slick.tiled.TiledMap;
+import maplib.CollisionResolver;
 /**
  * Passive enemies that run away when attacked
  * 
@@ -11,75 +9,23 @@ import org.newdawn.slick.tiled.TiledMap;
  */
 public class PassiveEnemy extends Enemy {
 
-	private Boolean avoidPlayer;
-	private float restTimer;
-	private Boolean atRest;
-	
 	public PassiveEnemy() {
 		super();
-		
-		this.restTimer = 0;
-		this.setAvoidPlayer(false);
-		this.atRest = false;
 	}
 	
-	public PassiveEnemy(float xpos, float ypos, String spriteFile, TiledMap map, int hp, int sp, int ar, int at) {
-		super(xpos, ypos, spriteFile, map, hp, sp, ar, at);
-		
-		this.restTimer = 0;
-		this.setAvoidPlayer(false);
-		this.atRest = false;
+	public PassiveEnemy(float xpos, float ypos, String spriteFile, CollisionResolver collider, int hp, int sp, int ar, int at) {
+		this(new EntityStore(1), xpos, ypos, spriteFile, collider, hp, sp, ar, at);
 	}
 	
-///////////////////////////////////////////////////////////////////////////////////////////////////////////
-
 	/**
-	 * Checks if the player is within the field of view or in attacking range, and runs away in<br/>
-	 * certain situations
-	 * @param baseSpeed
+	 * Creates the passive enemy with its state in a slot of a given store, such as its world's
 	 */
-	public void checkAwareOfPlayer(float baseSpeed) {
-		if(this.getXPosition() >= PLAYER_START_POS_X - ATTACK_RANGE && this.getXPosition() <= PLAYER_START_POS_X + ATTACK_RANGE 
-				&& this.getYPosition() >= PLAYER_START_POS_Y - ATTACK_RANGE && this.getYPosition() <= PLAYER_START_POS_Y + ATTACK_RANGE) {
-
-			this.setAtRest(false);
-			this.setAvoidPlayer(true);
-			this.setAttackPlayer(true);
-			this.setRandomMovementEnabled(false);
-			this.setRestTimer(REST_TIMER);
-			System.out.println("RUN!");
-			this.runAway(baseSpeed);
-		}
-		else if(this.getAvoidPlayer() && this.getXPosition() >= PLAYER_START_POS_X - FOV_PASSIVE && this.getXPosition() <= PLAYER_START_POS_X + FOV_PASSIVE 
-				&& this.getYPosition() >= PLAYER_START_POS_Y - FOV_PASSIVE && this.getYPosition() <= PLAYER_START_POS_Y + FOV_PASSIVE) {
-
-			this.setAtRest(false);
-			this.setAvoidPlayer(true);
-			this.setAttackPlayer(false);
-			this.setRandomMovementEnabled(false);
-			this.setRestTimer(REST_TIMER);
-			System.out.println("RUN AWAYY!");
-			this.runAway(baseSpeed);
-		}
-		else {
-			if(this.getRestTimer() <= 0) {
-				this.setRandomMovementEnabled(true);
-				this.setAvoidPlayer(false);
-				this.moveAtRandom(baseSpeed);
-				this.setAtRest(false);
-				System.out.println("MOVINGATRANDOM");
-			}
-			else {
-				System.out.println("WAITING...");
-				this.setAtRest(true);
-				this.setRestTimer(this.getRestTimer() - baseSpeed);
-			}
-
-		}
-			
-		
+	public PassiveEnemy(EntityStore store, float xpos, float ypos, String spriteFile, CollisionResolver collider, int hp, int sp, int ar, int at) {
+		super(store, xpos, ypos, spriteFile, collider, hp, sp, ar, at, false);
 	}
 	
+///////////////////////////////////////////////////////////////////////////////////////////////////////////
+
 	/**
 	 * Initiates the evasion algorithm, which is similar to the enemy chasing algorithm<br/>
 	 * but in the opposite directions.
@@ -91,10 +37,10 @@ public class PassiveEnemy extends Enemy {
 		this.resetBlocks();
 		this.canMove();
 		
-		if(this.getAvoidPlayer() || this.getAttackPlayer()) {
-			float distX = (PLAYER_START_POS_X - this.getXPosition());
+		if(this.getAvoidPlayer()) {
+			float distX = (this.getTarget().getX() - this.getXPosition());
 			
-			float distY = (PLAYER_START_POS_Y - this.getYPosition());
+			float distY = (this.getTarget().getY() - this.getYPosition());
 			
 			float distTotal = (float)Math.sqrt(distX*distX + distY*distY);
 			
@@ -119,27 +65,15 @@ public class PassiveEnemy extends Enemy {
 	}
 
 /////////////////////////////////////////////////////////////////////////////////
-	public void setAvoidPlayer(Boolean avoidPlayer) {
-		this.avoidPlayer = avoidPlayer;
-	}
-
-	public Boolean getAvoidPlayer() {
-		return avoidPlayer;
-	}
-
-	public void setRestTimer(float restTimer) {
-		this.restTimer = restTimer;
-	}
-
-	public float getRestTimer() {
-		return restTimer;
-	}
-
-	public void setAtRest(Boolean atRest) {
-		this.atRest = atRest;
+	/**
+	 * Checks whether the unit is keeping away from the player: running from it, or resting afterwards
+	 */
+	public boolean getAvoidPlayer() {
+		int state = this.store.state[this.slot];
+		return state == AIState.ATTACK.ordinal() || state == AIState.FLEE.ordinal() || state == AIState.REST.ordinal();
 	}
 
-	public Boolean getAtRest() {
-		return atRest;
+	public boolean getAtRest() {
+		return this.store.state[this.slot] == AIState.REST.ordinal();
 	}
 }
@@ -6,8 +6,7 @@
 package characterlib;
 
 import static config.GlobalConfiguration.*;
-import java.util.Random;
-import org.newdawn.slick.Graphics;
+import java.util.SplittableRandom;
 
 /**
  * A stub class for the player. Will be added to later to include health, armor, and 
@@ -62,7 +61,19 @@ public final class Player extends GameCharacter {
 	 * @param ypos Y position of the player object
 	 */
 	public Player(String spriteImageName, float xpos, float ypos) {
-		super(spriteImageName, xpos, ypos);
+		this(new EntityStore(1), spriteImageName, xpos, ypos);
+	}
+	
+	/**
+	 * Creates the player with its state in a slot of a given store, such as its world's
+	 * 
+	 * @param store The store to keep the player's state in
+	 * @param spriteImageName Name of the sprite image file
+	 * @param xpos X position of the player object
+	 * @param ypos Y position of the player object
+	 */
+	public Player(EntityStore store, String spriteImageName, float xpos, float ypos) {
+		super(store, spriteImageName, xpos, ypos);
 		
 		this.freeMovement = false;
 		this.elixirNotHeld = true;
@@ -87,22 +98,6 @@ public final class Player extends GameCharacter {
 		this.swordNotHeld = true;
 	}
 	
-	/**
-	 * Renders the player at its current position
-	 */
-	public void render(Graphics g) {
-		
-		sprite.draw(this.xPosition, this.yPosition);
-	}
-	
-	/**
-	 * Renders the player at a chosen position
-	 */
-	public void render(Graphics g, float x, float y) {
-		
-		sprite.draw(x, y);
-	}
-	
 	/**
 	 * Alters the X position of a player object.
 	 * 
@@ -115,12 +110,10 @@ public final class Player extends GameCharacter {
 		this.increaseDistanceTraveled(amount, 0);
 		
 		if(amount < 0 && !this.getFlippedSprite()) {
-			this.sprite = this.sprite.getFlippedCopy(true, false);
 			this.setFlippedSprite(true);
 		}
 		
 		else if(amount > 0 && this.getFlippedSprite()) {
-			this.sprite = this.sprite.getFlippedCopy(true, false);
 			this.setFlippedSprite(false);
 		}
 	}
@@ -130,7 +123,7 @@ public final class Player extends GameCharacter {
 	 * @param charac The character to attack
 	 */
 	public void battle(Enemy charac) {
-		Random dice = new Random();
+		SplittableRandom dice = this.getRandom();
 		
 		if(this.getSpeed() <= 0) {
 			charac.setHealth(charac.getHealth() - dice.nextInt(this.getAttack()));
@@ -158,7 +151,7 @@ public final class Player extends GameCharacter {
 	 * @param charac The character to attack
 	 */
 	public void battle(PassiveEnemy charac) {
-		Random dice = new Random();
+		SplittableRandom dice = this.getRandom();
 		
 		if(this.getSpeed() <= 0) {
 			charac.setHealth(charac.getHealth() - dice.nextInt(this.getAttack()));
@@ -172,11 +165,14 @@ public final class Player extends GameCharacter {
 	}
 	
 	/**
-	 * Causes the player to reset back to original position
+	 * Causes the player to reset back to original position on the map
 	 */
 	public void die() {
-		this.setXPosition(PLAYER_START_POS_X);
-		this.setYPosition(PLAYER_START_POS_Y);
+		this.setXPosition(PLAYER_SPAWN_X);
+		this.setYPosition(PLAYER_SPAWN_Y);
+		this.savePreviousPosition();
+		this.setDistanceTraveledX(NIL);
+		this.setDistanceTraveledY(NIL);
 	}
 	
 	/**
@@ -201,6 +197,22 @@ public final class Player extends GameCharacter {
 		return this.freeMovement;
 	}
 
+	/**
+	 * Checks whether the player holds an item
+	 * 
+	 * @param itemID The item's identification number (SWORD, ELIXIR, BOOK or AMULET)
+	 * @return true if the player holds it; false for any other number
+	 */
+	public boolean holds(int itemID) {
+		switch(itemID) {
+		case SWORD: return !this.swordNotHeld;
+		case ELIXIR: return !this.elixirNotHeld;
+		case BOOK: return !this.bookNotHeld;
+		case AMULET: return !this.amuletNotHeld;
+		default: return false;
+		}
+	}
+
 	public Boolean getElixirNotHeld() {
 		return elixirNotHeld;
 	}
@@ -0,0 +1,314 @@
+package characterlib;
+
+import static config.GlobalConfiguration.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import enginelib.EventLog;
+import enginelib.LogLevel;
+
+/**
+ * Decides and carries out what a kind of NPC does each tick, as a table-driven state machine.<br/><br/>
+ *
+ * Each unit keeps its <code>AIState</code> as a byte in its entity store slot. An update first <br/>
+ * senses how close the player is, as one of the <code>SENSE_</code> bands, and looks the unit's <br/>
+ * next state up in a table by its current state, that band and whether it has sleep left to <br/>
+ * sleep out (see <code>NPC.takeSleepTicks</code>). A unit entering a state starts it afresh: it <br/>
+ * forgets any sleep it had left, and one entering <code>REST</code> asks to sleep for <br/>
+ * <code>REST_TIMER</code>. The unit then carries out its new state's action. Villagers, passive <br/>
+ * enemies and enemies share the states and actions, and differ only in their tables <br/>
+ * (<code>VILLAGER</code>, <code>PASSIVE_ENEMY</code> and <code>ENEMY</code>).<br/><br/>
+ *
+ * <code>update</code> runs a range of units at once: every transition first, then the actions <br/>
+ * one state at a time, so that each loop runs one small piece of code over many units. A unit <br/>
+ * only ever touches its own state, so the grouping doesn't change the result.<br/><br/>
+ *
+ * The bands assume <code>ATTACK_RANGE</code> &lt; <code>FOV</code> &lt;= <code>FOV_PASSIVE</code>. A <br/>
+ * machine never changes once made, and may be used from several threads at once.
+ */
+public final class StateMachine {
+
+	/*SENSE BANDS*/
+	/**The player is out of range, or further than <code>FOV_PASSIVE</code>*/
+	public static final int SENSE_NONE = 0;
+	/**The player is within <code>FOV_PASSIVE</code>*/
+	public static final int SENSE_NEAR = 1;
+	/**The player is on the very edge of <code>FOV</code>, which villagers don't see but enemies do*/
+	public static final int SENSE_EDGE = 2;
+	/**The player is inside <code>FOV</code>*/
+	public static final int SENSE_SEEN = 3;
+	/**The player is within <code>ATTACK_RANGE</code>*/
+	public static final int SENSE_IN_REACH = 4;
+	private static final int SENSES = 5;
+
+	/*ACTIONS*/
+	/**Stands still*/
+	private static final byte DO_NOTHING = 0;
+	/**Walks its bounding box (<code>NPC.wander</code>)*/
+	private static final byte DO_WANDER = 1;
+	/**Heads for the player (<code>Enemy.chasePlayer</code>)*/
+	private static final byte DO_CHASE = 2;
+	/**Runs from the player (<code>PassiveEnemy.runAway</code>)*/
+	private static final byte DO_RUN_AWAY = 3;
+	/**Leaves its sleep ticks for the world to sleep out*/
+	private static final byte DO_REST = 4;
+
+	private static final int STATES = AIState.VALUES.length;
+	private static final int IDLE = AIState.IDLE.ordinal();
+	private static final int WANDER = AIState.WANDER.ordinal();
+	private static final int REST = AIState.REST.ordinal();
+
+	/**
+	 * Villagers wander, and stop to watch the player when it comes into view
+	 */
+	public static final StateMachine VILLAGER = new StateMachine("Villager")
+			.onAny(SENSE_SEEN, AIState.WATCH)
+			.onAny(SENSE_IN_REACH, AIState.WATCH);
+
+	/**
+	 * Enemies wander, chase the player when it comes into view and attack it within reach
+	 */
+	public static final StateMachine ENEMY = new StateMachine("Enemy")
+			.onAny(SENSE_EDGE, AIState.CHASE)
+			.onAny(SENSE_SEEN, AIState.CHASE)
+			.onAny(SENSE_IN_REACH, AIState.ATTACK)
+			.does(AIState.CHASE, DO_CHASE);
+
+	/**
+	 * Passive enemies wander and chase like enemies, but run when the player comes within reach, <br/>
+	 * and keep running until they are out of its sight (<code>FOV_PASSIVE</code>). Then they rest, <br/>
+	 * running again if the player comes near before they have rested.
+	 */
+	public static final StateMachine PASSIVE_ENEMY = new StateMachine("PassiveEnemy")
+			.onAny(SENSE_EDGE, AIState.CHASE)
+			.onAny(SENSE_SEEN, AIState.CHASE)
+			.onAny(SENSE_IN_REACH, AIState.ATTACK)
+			.on(AIState.ATTACK, SENSE_SEEN, AIState.FLEE)
+			.on(AIState.ATTACK, SENSE_EDGE, AIState.FLEE)
+			.on(AIState.ATTACK, SENSE_NEAR, AIState.FLEE)
+			.on(AIState.ATTACK, SENSE_NONE, AIState.REST)
+			.on(AIState.FLEE, SENSE_SEEN, AIState.FLEE)
+			.on(AIState.FLEE, SENSE_EDGE, AIState.FLEE)
+			.on(AIState.FLEE, SENSE_NEAR, AIState.FLEE)
+			.on(AIState.FLEE, SENSE_NONE, AIState.REST)
+			.on(AIState.REST, SENSE_SEEN, AIState.FLEE)
+			.on(AIState.REST, SENSE_EDGE, AIState.FLEE)
+			.on(AIState.REST, SENSE_NEAR, AIState.FLEE)
+			.onSleepLeft(AIState.REST, SENSE_NONE, AIState.REST)
+			.does(AIState.CHASE, DO_CHASE)
+			.does(AIState.ATTACK, DO_RUN_AWAY)
+			.does(AIState.FLEE, DO_RUN_AWAY)
+			.does(AIState.REST, DO_REST);
+
+	/**Source name for the log*/
+	private final String name;
+	/**The next state, indexed by <code>transitionIndex</code>*/
+	private final byte[] transitions;
+	/**The action of each state*/
+	private final byte[] actions;
+
+	/**
+	 * Creates a machine in which, whatever the player does, a unit idles or wanders<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>name</code> is not null<br/>
+	 * <strong>Postcondition:</strong> Every state goes to <code>IDLE</code> (or stays <code>WANDER</code>), <br/>
+	 * and only <code>IDLE</code> and <code>WANDER</code> do anything<br/><br/>
+	 *
+	 * @param name Source name for the log
+	 */
+	private StateMachine(String name) {
+		this.name = name;
+		this.transitions = new byte[STATES * SENSES * 2];
+		this.actions = new byte[STATES];
+
+		for(int state = 0; state < STATES; state++) {
+			byte next = (byte)(state == WANDER ? WANDER : IDLE);
+			Arrays.fill(this.transitions, transitionIndex(state, 0, false), transitionIndex(state + 1, 0, false), next);
+		}
+		this.actions[IDLE] = DO_WANDER;
+		this.actions[WANDER] = DO_WANDER;
+	}
+
+	/**
+	 * Updates a range of units of this machine's kind for one tick: moves each to its next state, <br/>
+	 * then carries out the actions, one state at a time<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> every unit in the range is of this machine's kind and alive; <br/>
+	 * <code>scratch</code> has at least <code>scratchSize(to - from)</code> elements and isn't used elsewhere meanwhile<br/>
+	 * <strong>Postcondition:</strong> Every unit in the range has decided and acted for this tick<br/><br/>
+	 *
+	 * @param units The units
+	 * @param from Index of the first unit to update
+	 * @param to One past the index of the last unit to update
+	 * @param baseSpeed The distance a unit moves this tick
+	 * @param scratch Working space, overwritten
+	 */
+	public void update(List<? extends NPC> units, int from, int to, float baseSpeed, int[] scratch) {
+		//scratch[0..STATES] counts, then bounds, the units in each state; the units follow, by state
+		int order = STATES + 1;
+		Arrays.fill(scratch, 0, order, 0);
+
+		for(int i = from; i < to; i++) {
+			scratch[this.transition(units.get(i)) + 1]++;
+		}
+		for(int state = 0; state < STATES; state++) {
+			scratch[state + 1] += scratch[state];
+		}
+		for(int i = from; i < to; i++) {
+			NPC unit = units.get(i);
+			scratch[order + scratch[unit.store.state[unit.slot]]++] = i;
+		}
+
+		//each state's units now run from scratch[state - 1] (0 for the first) to scratch[state]
+		float chaseSpeed = (float)(baseSpeed * 1.1);
+		int start = 0;
+		for(int state = 0; state < STATES; state++) {
+			int end = scratch[state];
+			switch(this.actions[state]) {
+				case DO_WANDER:
+					for(int k = start; k < end; k++) {
+						NPC unit = units.get(scratch[order + k]);
+						boolean moving = unit.wander(baseSpeed, unit.takeSleepTicks());
+						unit.store.state[unit.slot] = (byte)(moving ? WANDER : IDLE);
+					}
+					break;
+				case DO_CHASE:
+					for(int k = start; k < end; k++) {
+						((Enemy)units.get(scratch[order + k])).chasePlayer(chaseSpeed);
+					}
+					break;
+				case DO_RUN_AWAY:
+					for(int k = start; k < end; k++) {
+						((PassiveEnemy)units.get(scratch[order + k])).runAway(baseSpeed);
+					}
+					break;
+				default:
+					//DO_NOTHING, and DO_REST, whose sleep was asked for on entering the state
+					break;
+			}
+			start = end;
+		}
+	}
+
+	/**
+	 * Gets the number of scratch elements <code>update</code> needs for a number of units
+	 */
+	public static int scratchSize(int units) {
+		return STATES + 1 + units;
+	}
+
+	/**
+	 * Works out how close the player is to a unit
+	 *
+	 * @return One of the <code>SENSE_</code> bands
+	 */
+	public static int sense(NPC unit) {
+		if(!unit.getPlayerInRange()) {
+			return SENSE_NONE;
+		}
+
+		float x = unit.getXPosition();
+		float y = unit.getYPosition();
+		float targetX = unit.getTarget().getX();
+		float targetY = unit.getTarget().getY();
+
+		if(isWithin(x, y, targetX, targetY, ATTACK_RANGE)) {
+			return SENSE_IN_REACH;
+		}
+		if(isInside(x, y, targetX, targetY, FOV)) {
+			return SENSE_SEEN;
+		}
+		if(isWithin(x, y, targetX, targetY, FOV)) {
+			return SENSE_EDGE;
+		}
+		if(isWithin(x, y, targetX, targetY, FOV_PASSIVE)) {
+			return SENSE_NEAR;
+		}
+		return SENSE_NONE;
+	}
+
+	/**
+	 * Moves a unit to its next state, starting the state afresh if it has changed
+	 *
+	 * @return The unit's new state's ordinal
+	 */
+	private int transition(NPC unit) {
+		EntityStore store = unit.store;
+		int slot = unit.slot;
+		int state = store.state[slot];
+		int next = this.transitions[transitionIndex(state, sense(unit), store.sleepTicks[slot] > 0)];
+
+		if(next != state) {
+			store.state[slot] = (byte)next;
+			store.sleepTicks[slot] = next == REST ? GameCharacter.ticksToCountDown(REST_TIMER) : 0;
+			EventLog.log(LogLevel.TRACE, this.name, AIState.VALUES[next].name(), unit.handle);
+		}
+		return next;
+	}
+
+	/**
+	 * Checks whether a point is within a square of a given half-width around the target
+	 */
+	private static boolean isWithin(float x, float y, float targetX, float targetY, int range) {
+		return x >= targetX - range && x <= targetX + range && y >= targetY - range && y <= targetY + range;
+	}
+
+	/**
+	 * Checks whether a point is inside, and not on the edge of, a square of a given half-width around the target
+	 */
+	private static boolean isInside(float x, float y, float targetX, float targetY, int range) {
+		return x > targetX - range && x < targetX + range && y > targetY - range && y < targetY + range;
+	}
+
+	/**
+	 * Gets the index into <code>transitions</code> of a state, sense band and whether there is sleep left
+	 */
+	private static int transitionIndex(int state, int sense, boolean sleepLeft) {
+		return (state * SENSES + sense) << 1 | (sleepLeft ? 1 : 0);
+	}
+
+	/**
+	 * Sends every state to <code>to</code> in a sense band
+	 */
+	private StateMachine onAny(int sense, AIState to) {
+		for(AIState from : AIState.VALUES) {
+			this.on(from, sense, to);
+		}
+		return this;
+	}
+
+	/**
+	 * Sends one state to another in a sense band
+	 */
+	private StateMachine on(AIState from, int sense, AIState to) {
+		this.transitions[transitionIndex(from.ordinal(), sense, false)] = (byte)to.ordinal();
+		this.transitions[transitionIndex(from.ordinal(), sense, true)] = (byte)to.ordinal();
+		return this;
+	}
+
+	/**
+	 * Sends one state to another in a sense band, only while the unit has sleep left
+	 */
+	private StateMachine onSleepLeft(AIState from, int sense, AIState to) {
+		this.transitions[transitionIndex(from.ordinal(), sense, true)] = (byte)to.ordinal();
+		return this;
+	}
+
+	/**
+	 * Sets the action of a state
+	 */
+	private StateMachine does(AIState state, byte action) {
+		this.actions[state.ordinal()] = action;
+		return this;
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Gets the name of the kind of unit the machine drives
+	 */
+	public String getName() {
+		return name;
+	}
+}
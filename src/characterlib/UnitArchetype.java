@@ -0,0 +1,125 @@
+package characterlib;
+
+import static config.GlobalConfiguration.*;
+
+/**
+ * The fixed description of a kind of unit: what it looks like, what it starts with and how it <br/>
+ * behaves. Every unit made from an archetype shares the one copy, so only the state that <br/>
+ * changes (position, health, speed...) is kept per unit, in its entity store slot.<br/><br/>
+ *
+ * Archetypes are read from the spawn table (see <code>environmentlib.SpawnTable</code>) and <br/>
+ * never change once made.
+ */
+public final class UnitArchetype {
+
+	/**How units of an archetype behave, which decides the class they are made as*/
+	public enum Kind {
+		/**Wanders and can be talked to (<code>Villager</code>)*/
+		VILLAGER,
+		/**Runs away when attacked (<code>PassiveEnemy</code>)*/
+		PASSIVE,
+		/**Chases and attacks the player (<code>Enemy</code>)*/
+		ENEMY
+	}
+
+	/**Name the spawn table refers to the archetype by*/
+	private final String name;
+	private final Kind kind;
+	/**File name of the sprite in the units folder*/
+	private final String spriteName;
+	/**Full path of the sprite, shared by every unit of the archetype*/
+	private final String sprite;
+	private final int health;
+	private final int speed;
+	private final int armor;
+	private final int attack;
+	private final boolean boss;
+	private final boolean elvira;
+	/**Name of the item type dropped on death, or null*/
+	private final String drop;
+
+	/**
+	 * Creates an archetype<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>name</code>, <code>kind</code> and <code>spriteName</code> are not null<br/>
+	 * <strong>Postcondition:</strong> The archetype is created. Villagers ignore the stats and start <br/>
+	 * with the defaults.<br/><br/>
+	 *
+	 * @param name Name the spawn table refers to the archetype by
+	 * @param kind How units of the archetype behave
+	 * @param spriteName File name of the sprite in the units folder
+	 * @param health Starting and maximum health
+	 * @param speed Maximum speed
+	 * @param armor Armor level
+	 * @param attack Attack level
+	 * @param boss Whether units of the archetype are the boss
+	 * @param elvira Whether units of the archetype are Elvira
+	 * @param drop Name of the item type dropped on death, or null for none
+	 */
+	public UnitArchetype(String name, Kind kind, String spriteName, int health, int speed, int armor, int attack,
+			boolean boss, boolean elvira, String drop) {
+		this.name = name;
+		this.kind = kind;
+		this.spriteName = spriteName;
+		this.sprite = SPRITE_FOLDER + spriteName;
+		this.health = health;
+		this.speed = speed;
+		this.armor = armor;
+		this.attack = attack;
+		this.boss = boss;
+		this.elvira = elvira;
+		this.drop = drop;
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	public String getName() {
+		return name;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public String getSpriteName() {
+		return spriteName;
+	}
+
+	/**
+	 * Gets the full path of the sprite
+	 */
+	public String getSprite() {
+		return sprite;
+	}
+
+	public int getHealth() {
+		return health;
+	}
+
+	public int getSpeed() {
+		return speed;
+	}
+
+	public int getArmor() {
+		return armor;
+	}
+
+	public int getAttack() {
+		return attack;
+	}
+
+	public boolean isBoss() {
+		return boss;
+	}
+
+	public boolean isElvira() {
+		return elvira;
+	}
+
+	/**
+	 * Gets the name of the item type dropped on death, or null if nothing is dropped
+	 */
+	public String getDrop() {
+		return drop;
+	}
+}
@@ -1,6 +1,6 @@
 package characterlib;
 
-import org.newdawn.slick.tiled.TiledMap;
+import maplib.CollisionResolver;
 
 /**
  * NPC friendly characters, inclduing elvira and other quest characters
@@ -9,32 +9,36 @@ import org.newdawn.slick.tiled.TiledMap;
  *
  */
 public class Villager extends NPC {
- /**
-  * True if the villager is elvira
-  */
-	private Boolean isElvira;
-	
 	public Villager() {
 		super();
 		this.setIsElvira(false);
 	}
 	
-	public Villager(float xpos, float ypos, String spriteFile, TiledMap map) {
-		super(xpos, ypos, spriteFile, map);
-		this.isElvira = false;
+	public Villager(float xpos, float ypos, String spriteFile, CollisionResolver collider) {
+		this(new EntityStore(1), xpos, ypos, spriteFile, collider, false);
+	}
+	
+	public Villager(float xpos, float ypos, String spriteFile, CollisionResolver collider, Boolean elvira) {
+		this(new EntityStore(1), xpos, ypos, spriteFile, collider, elvira);
 	}
 	
-	public Villager(float xpos, float ypos, String spriteFile, TiledMap map, Boolean elvira) {
-		super(xpos, ypos, spriteFile, map);
-		this.isElvira = elvira;
+	/**
+	 * Creates the villager with its state in a slot of a given store, such as its world's
+	 */
+	public Villager(EntityStore store, float xpos, float ypos, String spriteFile, CollisionResolver collider, Boolean elvira) {
+		super(store, xpos, ypos, spriteFile, collider);
+		this.setIsElvira(elvira);
 	}
 
-	public void setIsElvira(Boolean isElvira) {
-		this.isElvira = isElvira;
+	/**
+	 * Sets whether the villager is elvira
+	 */
+	public void setIsElvira(boolean isElvira) {
+		this.setFlag(EntityStore.FLAG_ELVIRA, isElvira);
 	}
 
-	public Boolean getIsElvira() {
-		return isElvira;
+	public boolean getIsElvira() {
+		return this.getFlag(EntityStore.FLAG_ELVIRA);
 	}
 	
 	
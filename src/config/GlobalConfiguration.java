@@ -31,6 +31,11 @@ public abstract class GlobalConfiguration {
 	
 	public static final int PANEL_HEIGHT = 70;
 	
+	/**
+	 * Width and height of every unit and item sprite, in pixels
+	 */
+	public static final int SPRITE_SIZE = 72;
+	
 	/**
 	 * Default data folder path
 	 */
@@ -66,6 +71,11 @@ public abstract class GlobalConfiguration {
 	 */
 	public final static String DEFAULT_TILE_MAP = DEFAULT_TILESET_FOLDER + "map.tmx";
 	
+	/**
+	 * The name of the tile property which marks a tile as blocking
+	 */
+	public final static String BLOCK_PROPERTY = "block";
+	
 	/**
 	 * The default scripting folder
 	 */
@@ -76,6 +86,41 @@ public abstract class GlobalConfiguration {
 	 */
 	public final static String DEFAULT_DIALOGUE = SCRIPT_FOLDER + "default.txt";
 	
+	/**
+	 * The unit and item types, and where they are placed on the map
+	 */
+	public final static String SPAWN_TABLE = SCRIPT_FOLDER + "spawns.txt";
+	
+	/**
+	 * The compiled copy of the spawn table, rebuilt whenever the table is newer
+	 */
+	public final static String SPAWN_TABLE_CACHE = SCRIPT_FOLDER + "spawns.bin";
+	
+	/**
+	 * File the event log is written to
+	 */
+	public final static String LOG_FILE = "esmurelda.log";
+	
+	/**
+	 * Lowest level written to the event log, unless the "esmurelda.log.level" system property names another
+	 */
+	public final static String DEFAULT_LOG_LEVEL = "INFO";
+	
+	/**
+	 * Number of events the event log can hold before they are written out (a power of two)
+	 */
+	public final static int LOG_BUFFER_SIZE = 8192;
+	
+	/**
+	 * File the frame profiler writes its per-phase percentiles to (see <code>FrameProfiler</code>)
+	 */
+	public final static String PROFILE_FILE = "esmurelda-profile.csv";
+	
+	/**
+	 * Milliseconds between the lines the frame profiler writes, and between refreshes of its overlay
+	 */
+	public final static int PROFILE_INTERVAL = 2000;
+	
 	/**
 	 * A zero value
 	 */
@@ -85,6 +130,21 @@ public abstract class GlobalConfiguration {
 	 * blocking tiles can cross onto the player sprite.*/
 	public static final int MOVEMENT_THRESHOLD = 20;
 	
+	/**
+	 * Distance from the left and right of a character sprite to the edges of its collision hitbox
+	 */
+	public static final int HITBOX_INSET_X = MOVEMENT_THRESHOLD;
+	
+	/**
+	 * Distance from the top of a character sprite to the top of its collision hitbox
+	 */
+	public static final int HITBOX_INSET_TOP = MOVEMENT_THRESHOLD;
+	
+	/**
+	 * Distance from the bottom of a character sprite to the bottom of its collision hitbox
+	 */
+	public static final int HITBOX_INSET_BOTTOM = MOVEMENT_THRESHOLD/2;
+	
 	/**
 	 * Initial armor value for the player
 	 */
@@ -120,10 +180,10 @@ public abstract class GlobalConfiguration {
 	 */
 	public static final int MAX_DIALOGUE_LENGTH = 5;
 	
-	/**Initial player start x-position*/
+	/**Screen x-position the player is drawn at*/
 	public final static float PLAYER_START_POS_X = SCREEN_RESOLUTION_X/2 - 36;
 	
-	/**Initial player start y-position*/
+	/**Screen y-position the player is drawn at*/
 	public final static float PLAYER_START_POS_Y = SCREEN_RESOLUTION_Y/2 - 36;
 	
 	/**
@@ -136,19 +196,6 @@ public abstract class GlobalConfiguration {
 	 */
 	public static final int UNSEEN_TILES_Y = 2;
 	
-	/**
-	 * The amount to bring the blocking detection points in on NPC units
-	 */
-	public static final int PADDING = 10;
-
-	/**
-	 * Initial camera x-position
-	 */
-	public final static int CAMERA_START_POS_X = -UNSEEN_TILES_X*72;
-	
-	/**Initial camera y-position*/
-	public final static int CAMERA_START_POS_Y = -UNSEEN_TILES_Y*72;
-	
 	/**Initial tile x-position*/
 	public final static int INITIAL_TILE_X = 3;
 	
@@ -161,16 +208,53 @@ public abstract class GlobalConfiguration {
 	/**The global player movement speed. Increasing this speeds up the game*/
 	public final static float SPEED_MULTIPLIER = .25f;
 	
+	/**The length of one simulation tick in milliseconds. The world is always updated in steps of this size*/
+	public final static int SIMULATION_TICK_LENGTH = 16;
+	
+	/**How far a countdown measured in speed units (a rest timer, an attack cooldown) runs down in one tick*/
+	public final static float TICK_COUNTDOWN = SPEED_MULTIPLIER * SIMULATION_TICK_LENGTH;
+	
+	/**The chance that an idle unit stays where it is on any one tick, rather than setting off in a random direction*/
+	public final static double IDLE_STAY_PUT_CHANCE = 0.96;
+	
+	/**The seed every random number in a game is derived from, unless another is chosen*/
+	public final static long DEFAULT_RANDOM_SEED = 0x5EEDL;
+	
+	/**The most simulation ticks run for one rendered frame. Time beyond this is dropped, slowing the game instead of stalling it*/
+	public final static int MAX_TICKS_PER_FRAME = 10;
+	
+	/**The number of threads NPCs are updated on: 0 shares the JVM's common fork-join pool, 1 updates them on the game thread*/
+	public final static int AI_THREADS = 0;
+	
+	/**The fewest NPCs worth spreading across threads; smaller populations are updated on the game thread*/
+	public final static int PARALLEL_AI_MIN_UNITS = 1024;
+	
+	/**The number of NPCs each fork-join task updates on its own, without splitting further*/
+	public final static int AI_BATCH_SIZE = 256;
+	
+	/**How many ticks apart NPCs just beyond the player's surroundings are updated (see <code>AIScheduler</code>)*/
+	public final static int LOD_MID_INTERVAL = 4;
+	
 	/**
-	 * Sets the location of the 0,0 point of the map in space
+	 * Sets the location of the 0,0 point of the map in space (the map coordinate at the top left of the screen when the game starts)
 	 */
 	public final static int ZERO_MAP_POSITION_X = (UNSEEN_TILES_X + INITIAL_TILE_X)*72; 
 	
 	/**
-	 * Sets the location of the 0,0 point of the map in space
+	 * Sets the location of the 0,0 point of the map in space (the map coordinate at the top left of the screen when the game starts)
 	 */
 	public final static int ZERO_MAP_POSITION_Y = (UNSEEN_TILES_Y + INITIAL_TILE_Y)*72; 
 	
+	/**
+	 * The map x-coordinate the player starts (and respawns) at
+	 */
+	public final static float PLAYER_SPAWN_X = ZERO_MAP_POSITION_X + PLAYER_START_POS_X;
+	
+	/**
+	 * The map y-coordinate the player starts (and respawns) at
+	 */
+	public final static float PLAYER_SPAWN_Y = ZERO_MAP_POSITION_Y + PLAYER_START_POS_Y;
+	
 	/**
 	 * The size of the bounding box for NPC movement
 	 */
@@ -191,6 +275,17 @@ public abstract class GlobalConfiguration {
 	 */
 	public static final int ATTACK_RANGE = 50;
 	
+	/**
+	 * The furthest distance (along either axis) at which any unit can notice the player
+	 */
+	public static final int AWARENESS_RANGE = Math.max(Math.max(FOV, FOV_PASSIVE), ATTACK_RANGE);
+	
+	/**
+	 * The longest path (in tiles) that chasing enemies can follow through the flow field to the player.<br/>
+	 * Enemies only chase from within a few tiles, so this leaves room for long detours around walls.
+	 */
+	public static final int FLOW_FIELD_RANGE = 12;
+	
 	/**
 	 * Identification number of the Sword item
 	 */
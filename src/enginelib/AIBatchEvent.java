@@ -0,0 +1,45 @@
+package enginelib;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for one batch of the AI stage: the NPCs of one type in one range <br/>
+ * moving and deciding what to do, on whichever thread of the pool ran the range. A slow batch <br/>
+ * of villagers can so be told apart from a slow batch of enemies.
+ */
+@Name("esmurelda.AIBatch")
+@Label("AI Batch")
+@Category({"Esmurelda", "Simulation"})
+@Description("NPCs of one type updated together by the AI stage")
+@StackTrace(false)
+public class AIBatchEvent extends Event {
+
+	/**The event's type, which knows whether any recording wants it*/
+	private static final EventType TYPE = EventType.getEventType(AIBatchEvent.class);
+
+	@Label("Kind")
+	@Description("The type of NPC in the batch")
+	public String kind;
+
+	@Label("Units")
+	@Description("Number of NPCs in the batch")
+	public int units;
+
+	@Label("Parallel")
+	@Description("True if the stage was split across the fork-join pool")
+	public boolean parallel;
+
+	/**
+	 * Checks whether a running recording has the event enabled. Callers check this before <br/>
+	 * creating the event, so nothing is allocated or timed while nothing is recording it.
+	 */
+	public static boolean isRecorded() {
+		return TYPE.isEnabled();
+	}
+}
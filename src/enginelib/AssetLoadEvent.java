@@ -0,0 +1,32 @@
+package enginelib;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event for an image being decoded and uploaded as a texture.
+ */
+@Name("esmurelda.AssetLoad")
+@Label("Asset Load")
+@Category({"Esmurelda", "Rendering"})
+@Description("An image file being loaded")
+public class AssetLoadEvent extends Event {
+
+	@Label("Path")
+	public String path;
+
+	@Label("Width")
+	public int width;
+
+	@Label("Height")
+	public int height;
+
+	@Label("Size")
+	@Description("Size of the decoded image, at four bytes a pixel")
+	@DataAmount
+	public long bytes;
+}
@@ -0,0 +1,272 @@
+package enginelib;
+
+import static config.GlobalConfiguration.*;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A level-filtered event log that never blocks the game loop on I/O.<br/><br/>
+ *
+ * Events are written into a preallocated ring buffer and a background thread drains them to <br/>
+ * <code>LOG_FILE</code>. Logging an event claims a slot with a single compare-and-set and stores <br/>
+ * the event's fields in it; no lock is taken and nothing is allocated. If the drain thread falls <br/>
+ * so far behind that the buffer is full, the event is dropped and counted rather than stalling <br/>
+ * the tick.<br/><br/>
+ *
+ * An event is a level, a source (normally the class logging it), a message and an optional <br/>
+ * number, written as one tab-separated line. Events below the current level are rejected by a <br/>
+ * single comparison before anything else happens, so disabled logging is effectively free. <br/>
+ * Messages should be constant strings; build strings only for rare events such as errors.
+ */
+public final class EventLog {
+
+	/**Marks an event with no number attached*/
+	private static final long NO_VALUE = Long.MIN_VALUE;
+	/**How long the drain thread sleeps when the buffer is empty, in nanoseconds*/
+	private static final long IDLE_PARK_TIME = 1000000L;
+	/**How long shutdown waits for the drain thread to finish, in milliseconds*/
+	private static final long SHUTDOWN_WAIT = 1000L;
+
+	/**Number of slots in the ring buffer*/
+	private static final int CAPACITY = LOG_BUFFER_SIZE;
+	/**Mask turning a sequence number into a slot index*/
+	private static final int MASK = CAPACITY - 1;
+
+	private static final long[] times = new long[CAPACITY];
+	private static final LogLevel[] levels = new LogLevel[CAPACITY];
+	private static final String[] sources = new String[CAPACITY];
+	private static final String[] messages = new String[CAPACITY];
+	private static final long[] values = new long[CAPACITY];
+	/**For each slot, one more than the sequence number of the event last written to it*/
+	private static final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+
+	/**Sequence number of the next event to be logged*/
+	private static final AtomicLong claimed = new AtomicLong();
+	/**Sequence number of the next event to be written out (only advanced by the drain thread)*/
+	private static volatile long consumed = 0;
+	/**Number of events dropped because the buffer was full*/
+	private static final AtomicLong dropped = new AtomicLong();
+
+	/**Ordinal of the lowest level that is logged*/
+	private static volatile int threshold = readLevel().ordinal();
+
+	private static final AtomicBoolean started = new AtomicBoolean(false);
+	private static volatile boolean stopping = false;
+	private static Thread drainThread;
+
+	private EventLog() {
+	}
+
+	/**
+	 * Checks whether events of a level are currently logged. Use this to skip building a <br/>
+	 * message that would be thrown away.
+	 */
+	public static boolean isEnabled(LogLevel level) {
+		return level.ordinal() >= threshold;
+	}
+
+	/**
+	 * Logs an event
+	 *
+	 * @param level The severity of the event
+	 * @param source What logged the event, normally a class name
+	 * @param message What happened
+	 */
+	public static void log(LogLevel level, String source, String message) {
+		if(level.ordinal() >= threshold) {
+			publish(level, source, message, NO_VALUE);
+		}
+	}
+
+	/**
+	 * Logs an event with a number attached
+	 *
+	 * @param level The severity of the event
+	 * @param source What logged the event, normally a class name
+	 * @param message What happened
+	 * @param value A number describing the event (e.g. an amount or id)
+	 */
+	public static void log(LogLevel level, String source, String message, long value) {
+		if(level.ordinal() >= threshold) {
+			publish(level, source, message, value);
+		}
+	}
+
+	/**
+	 * Sets the lowest level that is logged
+	 */
+	public static void setLevel(LogLevel level) {
+		threshold = level.ordinal();
+	}
+
+	/**
+	 * Gets the lowest level that is logged
+	 */
+	public static LogLevel getLevel() {
+		return LogLevel.values()[threshold];
+	}
+
+	/**
+	 * Gets the number of events dropped so far because the buffer was full
+	 */
+	public static long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * Waits until every event logged so far has been written out, or until the timeout passes
+	 *
+	 * @param timeout The longest time to wait, in milliseconds
+	 * @return true if everything was written out
+	 */
+	public static boolean flush(long timeout) {
+		long target = claimed.get();
+		long deadline = System.currentTimeMillis() + timeout;
+
+		while(consumed < target) {
+			if(!started.get() || System.currentTimeMillis() > deadline) {
+				return false;
+			}
+			LockSupport.parkNanos(IDLE_PARK_TIME);
+		}
+		return true;
+	}
+
+	/**
+	 * Claims a slot in the ring buffer and fills it. Only the claim is atomic; the slot is <br/>
+	 * handed to the drain thread by the ordered write to <code>published</code>.
+	 */
+	private static void publish(LogLevel level, String source, String message, long value) {
+		long sequence;
+
+		do {
+			sequence = claimed.get();
+			if(sequence - consumed >= CAPACITY) {
+				dropped.incrementAndGet();
+				return;
+			}
+		} while(!claimed.compareAndSet(sequence, sequence + 1));
+
+		int slot = (int)(sequence & MASK);
+		times[slot] = System.currentTimeMillis();
+		levels[slot] = level;
+		sources[slot] = source;
+		messages[slot] = message;
+		values[slot] = value;
+		published.set(slot, sequence + 1);
+
+		if(!started.get()) {
+			start();
+		}
+	}
+
+	/**
+	 * Starts the drain thread, the first time an event is logged
+	 */
+	private static void start() {
+		if(!started.compareAndSet(false, true)) {
+			return;
+		}
+
+		drainThread = new Thread(EventLog::drain, "EventLog drain");
+		drainThread.setDaemon(true);
+		drainThread.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			stopping = true;
+			LockSupport.unpark(drainThread);
+			try {
+				drainThread.join(SHUTDOWN_WAIT);
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, "EventLog shutdown"));
+	}
+
+	/**
+	 * Body of the drain thread: writes events out in order until the program exits
+	 */
+	private static void drain() {
+		Writer out = openLog();
+		StringBuilder line = new StringBuilder(128);
+
+		try {
+			while(true) {
+				long sequence = consumed;
+				int slot = (int)(sequence & MASK);
+
+				if(published.get(slot) != sequence + 1) {
+					//nothing ready: write out what we have, then stop if the game is exiting
+					out.flush();
+					if(stopping && sequence >= claimed.get()) {
+						break;
+					}
+					LockSupport.parkNanos(IDLE_PARK_TIME);
+					continue;
+				}
+
+				line.setLength(0);
+				line.append(times[slot]).append('\t')
+					.append(levels[slot]).append('\t')
+					.append(sources[slot]).append('\t')
+					.append(messages[slot]);
+				if(values[slot] != NO_VALUE) {
+					line.append('\t').append(values[slot]);
+				}
+				line.append('\n');
+
+				sources[slot] = null;
+				messages[slot] = null;
+				consumed = sequence + 1;
+
+				out.append(line);
+			}
+
+			long lost = dropped.get();
+			if(lost > 0) {
+				out.append("# " + lost + " events dropped because the log buffer was full\n");
+			}
+			out.close();
+		}
+		catch(IOException e) {
+			System.err.println("ERROR in EventLog: can't write the log: " + e);
+		}
+	}
+
+	/**
+	 * Opens the log file, falling back to standard error if it can't be created
+	 */
+	private static Writer openLog() {
+		try {
+			return new BufferedWriter(new FileWriter(LOG_FILE, false));
+		}
+		catch(IOException e) {
+			System.err.println("ERROR in EventLog: can't open " + LOG_FILE + ", logging to standard error: " + e);
+			return new BufferedWriter(new OutputStreamWriter(System.err));
+		}
+	}
+
+	/**
+	 * Reads the starting level from the "esmurelda.log.level" system property, or the default
+	 */
+	private static LogLevel readLevel() {
+		String name = System.getProperty("esmurelda.log.level", DEFAULT_LOG_LEVEL);
+
+		try {
+			return LogLevel.valueOf(name.trim().toUpperCase());
+		}
+		catch(IllegalArgumentException e) {
+			System.err.println("ERROR in EventLog: unknown log level " + name + ", using " + DEFAULT_LOG_LEVEL);
+			return LogLevel.valueOf(DEFAULT_LOG_LEVEL);
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package enginelib;
+
+import static config.GlobalConfiguration.*;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Times the phases of each frame and periodically writes their percentiles to a file.<br/><br/>
+ *
+ * Code around a phase takes a timestamp with <code>start</code> and hands it back with <code>stop</code> <br/>
+ * (or <code>lap</code>, which also starts the next phase). The duration goes into the phase's <br/>
+ * <code>LatencyHistogram</code>; nothing is allocated. While profiling is off, <code>start</code> <br/>
+ * returns 0 without reading the clock and <code>stop</code> ignores it, so the calls can stay in <br/>
+ * the game loop.<br/><br/>
+ *
+ * Every <code>PROFILE_INTERVAL</code> milliseconds, <code>endFrame</code> writes one line per phase <br/>
+ * to <code>PROFILE_FILE</code> (the count, mean, 50th, 90th, 99th and 99.9th percentiles and <br/>
+ * maximum over the interval, in microseconds), refreshes the overlay text and starts the next <br/>
+ * interval with empty histograms.<br/><br/>
+ *
+ * Profiling starts on if the "esmurelda.profile" system property is "true". Phases must only be <br/>
+ * timed from the game thread.
+ */
+public final class FrameProfiler {
+
+	/**Percentiles written for each phase*/
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+	/**First line of the profile file*/
+	private static final String HEADER = "time_ms,phase,count,mean_us,p50_us,p90_us,p99_us,p999_us,max_us";
+
+	private static final ProfilePhase[] phases = ProfilePhase.values();
+	private static final LatencyHistogram[] histograms = new LatencyHistogram[phases.length];
+
+	static {
+		for(int i = 0; i < histograms.length; i++) {
+			histograms[i] = new LatencyHistogram();
+		}
+	}
+
+	private static volatile boolean enabled = Boolean.getBoolean("esmurelda.profile");
+	private static volatile boolean overlayShown = false;
+
+	/**Time the current interval started (System.nanoTime)*/
+	private static long intervalStart = System.nanoTime();
+	/**The last interval's percentiles, one line per phase, for the overlay*/
+	private static String[] summary = new String[0];
+	/**The profile file, opened when the first interval is written*/
+	private static Writer out;
+	/**True once the profile file has failed to open, so it isn't tried every interval*/
+	private static boolean failed = false;
+
+	private FrameProfiler() {
+	}
+
+	/**
+	 * Starts timing a phase
+	 *
+	 * @return The time now, to pass to <code>stop</code> or <code>lap</code>; 0 if profiling is off
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Finishes timing a phase
+	 *
+	 * @param phase The phase that was timed
+	 * @param start The value returned by <code>start</code> when the phase began
+	 */
+	public static void stop(ProfilePhase phase, long start) {
+		if(start != 0) {
+			histograms[phase.ordinal()].record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Finishes timing a phase and starts timing the one after it, reading the clock once
+	 *
+	 * @param phase The phase that was timed
+	 * @param start The value returned by <code>start</code> (or the last <code>lap</code>) when the phase began
+	 * @return The start of the next phase
+	 */
+	public static long lap(ProfilePhase phase, long start) {
+		if(start == 0) {
+			return 0;
+		}
+
+		long now = System.nanoTime();
+		histograms[phase.ordinal()].record(now - start);
+		return now;
+	}
+
+	/**
+	 * Marks the end of a frame, writing out the interval if it is over
+	 */
+	public static void endFrame() {
+		if(enabled && System.nanoTime() - intervalStart >= PROFILE_INTERVAL * 1000000L) {
+			dump();
+		}
+	}
+
+	/**
+	 * Writes out the current interval and starts a new one<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> none<br/>
+	 * <strong>Postcondition:</strong> The interval's percentiles are in the profile file and the <br/>
+	 * overlay text; every histogram is empty
+	 */
+	public static void dump() {
+		long time = System.currentTimeMillis();
+		String[] lines = new String[phases.length];
+		StringBuilder rows = new StringBuilder(1024);
+
+		for(int i = 0; i < phases.length; i++) {
+			LatencyHistogram histogram = histograms[i];
+			String label = phases[i].getLabel();
+
+			rows.append(time).append(',').append(label)
+				.append(',').append(histogram.getCount())
+				.append(',').append(String.format("%.3f", histogram.getMean() / 1e3));
+			for(double percentile : PERCENTILES) {
+				rows.append(',').append(String.format("%.3f", histogram.getValueAtPercentile(percentile) / 1e3));
+			}
+			rows.append(',').append(String.format("%.3f", histogram.getMax() / 1e3)).append('\n');
+
+			lines[i] = String.format("%-10s p50 %9.1f  p99 %9.1f  max %9.1f us", label,
+					histogram.getValueAtPercentile(50) / 1e3,
+					histogram.getValueAtPercentile(99) / 1e3,
+					histogram.getMax() / 1e3);
+		}
+
+		write(rows);
+		summary = lines;
+		reset();
+	}
+
+	/**
+	 * Empties every histogram and starts a new interval, e.g. after a warmup
+	 */
+	public static void reset() {
+		for(LatencyHistogram histogram : histograms) {
+			histogram.reset();
+		}
+		intervalStart = System.nanoTime();
+	}
+
+	/**
+	 * Appends rows to the profile file, opening it (and writing the header) the first time
+	 */
+	private static void write(CharSequence rows) {
+		if(failed) {
+			return;
+		}
+
+		try {
+			if(out == null) {
+				out = new BufferedWriter(new FileWriter(PROFILE_FILE, false));
+				out.append(HEADER).append('\n');
+			}
+			out.append(rows);
+			out.flush();
+		}
+		catch(IOException e) {
+			EventLog.log(LogLevel.ERROR, "FrameProfiler", "can't write " + PROFILE_FILE + ": " + e);
+			failed = true;
+		}
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Turns profiling on or off. Turning it on starts a new interval.
+	 */
+	public static void setEnabled(boolean on) {
+		if(on && !enabled) {
+			reset();
+		}
+		enabled = on;
+	}
+
+	public static boolean isOverlayShown() {
+		return overlayShown;
+	}
+
+	/**
+	 * Shows or hides the overlay. Showing it turns profiling on.
+	 */
+	public static void setOverlayShown(boolean shown) {
+		if(shown) {
+			setEnabled(true);
+		}
+		overlayShown = shown;
+	}
+
+	/**
+	 * Gets the histogram of a phase for the current interval
+	 */
+	public static LatencyHistogram getHistogram(ProfilePhase phase) {
+		return histograms[phase.ordinal()];
+	}
+
+	/**
+	 * Gets the overlay text: one line per phase with the last interval's percentiles, or none <br/>
+	 * if no interval has finished yet
+	 */
+	public static String[] getSummary() {
+		return summary;
+	}
+}
@@ -0,0 +1,143 @@
+package enginelib;
+
+import java.util.Arrays;
+
+/**
+ * Counts durations in fixed log-linear buckets, so percentiles can be read off without keeping <br/>
+ * every sample.<br/><br/>
+ *
+ * The first <code>SUB_BUCKET_COUNT</code> buckets hold one nanosecond each. Above that, every <br/>
+ * power of two is split into <code>SUB_BUCKET_COUNT / 2</code> equal buckets, so a value is known <br/>
+ * to within about 3% whatever its size (the same layout as an HDR histogram). All buckets are <br/>
+ * allocated up front: recording a value is a few shifts and an array increment, and never <br/>
+ * allocates.<br/><br/>
+ *
+ * A histogram is not thread safe; each one should be recorded to from a single thread.
+ */
+public class LatencyHistogram {
+
+	/**Number of buckets below the first split, which are one nanosecond wide (a power of two)*/
+	private static final int SUB_BUCKET_COUNT = 64;
+	private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+	/**log2 of SUB_BUCKET_HALF*/
+	private static final int SUB_BUCKET_HALF_BITS = Integer.numberOfTrailingZeros(SUB_BUCKET_HALF);
+	/**Largest power of two that can be told apart from larger values (2^36ns is about 69 seconds)*/
+	private static final int HIGHEST_BIT = 36;
+
+	/**Number of times a value fell in each bucket*/
+	private final long[] counts;
+	/**Number of values recorded*/
+	private long count;
+	/**Sum of the values recorded, in nanoseconds*/
+	private long total;
+	/**Largest value recorded, in nanoseconds*/
+	private long max;
+
+	/**
+	 * Creates an empty histogram
+	 */
+	public LatencyHistogram() {
+		this.counts = new long[bucketIndex((1L << HIGHEST_BIT) - 1) + 1];
+		this.reset();
+	}
+
+	/**
+	 * Records one duration<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> none<br/>
+	 * <strong>Postcondition:</strong> The duration is counted; negative durations count as 0, and <br/>
+	 * durations too large to tell apart fall in the last bucket<br/><br/>
+	 *
+	 * @param nanos The duration, in nanoseconds
+	 */
+	public void record(long nanos) {
+		if(nanos < 0) {
+			nanos = 0;
+		}
+
+		this.counts[Math.min(bucketIndex(nanos), this.counts.length - 1)]++;
+		this.count++;
+		this.total += nanos;
+		if(nanos > this.max) {
+			this.max = nanos;
+		}
+	}
+
+	/**
+	 * Forgets every value recorded
+	 */
+	public void reset() {
+		Arrays.fill(this.counts, 0);
+		this.count = 0;
+		this.total = 0;
+		this.max = 0;
+	}
+
+	/**
+	 * Gets the value below which a percentage of the recorded values fall
+	 *
+	 * @param percentile The percentage, from 0 to 100
+	 * @return The largest value in the bucket holding that percentile (no more than the largest <br/>
+	 * value recorded), in nanoseconds; 0 if nothing has been recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if(this.count == 0) {
+			return 0;
+		}
+
+		long target = Math.max(1, (long)Math.ceil(percentile / 100 * this.count));
+		long seen = 0;
+
+		for(int i = 0; i < this.counts.length; i++) {
+			seen += this.counts[i];
+			if(seen >= target) {
+				return Math.min(highestValueIn(i), this.max);
+			}
+		}
+
+		return this.max;
+	}
+
+	/**
+	 * Finds the bucket holding a value
+	 */
+	private static int bucketIndex(long nanos) {
+		if(nanos < SUB_BUCKET_COUNT) {
+			return (int)nanos;
+		}
+
+		//shift the value down until it lies in [SUB_BUCKET_HALF, SUB_BUCKET_COUNT)
+		int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_HALF_BITS;
+		return SUB_BUCKET_COUNT + ((shift - 1) << SUB_BUCKET_HALF_BITS) + (int)(nanos >>> shift) - SUB_BUCKET_HALF;
+	}
+
+	/**
+	 * Finds the largest value that falls in a bucket
+	 */
+	private static long highestValueIn(int index) {
+		if(index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+
+		int shift = ((index - SUB_BUCKET_COUNT) >> SUB_BUCKET_HALF_BITS) + 1;
+		long subBucket = ((index - SUB_BUCKET_COUNT) & (SUB_BUCKET_HALF - 1)) + SUB_BUCKET_HALF;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Gets the mean of the recorded values in nanoseconds, or 0 if nothing has been recorded
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : (double)total / count;
+	}
+}
@@ -0,0 +1,19 @@
+package enginelib;
+
+/**
+ * Severity of an event written to the <code>EventLog</code>, from least to most severe
+ */
+public enum LogLevel {
+	/**Per-unit, per-tick detail (e.g. an AI decision)*/
+	TRACE,
+	/**Detail useful when debugging a single system*/
+	DEBUG,
+	/**Notable game events*/
+	INFO,
+	/**Something unexpected that the game recovered from*/
+	WARN,
+	/**Something failed*/
+	ERROR,
+	/**Used as a threshold only: nothing is logged*/
+	OFF
+}
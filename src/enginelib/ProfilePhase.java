@@ -0,0 +1,49 @@
+package enginelib;
+
+/**
+ * A part of a frame timed by the <code>FrameProfiler</code>. The simulation phases are timed once <br/>
+ * per tick, so a frame that runs several ticks records several of each.
+ */
+public enum ProfilePhase {
+	/**Reading the keyboard in RPG.update*/
+	INPUT("input"),
+	/**Moving the player and checking it against the map (World.movePlayer)*/
+	PLAYER("player"),
+	/**Moving the camera and the map under it (World.moveWorld)*/
+	WORLD("world"),
+	/**Rebuilding the flow field toward the player*/
+	FLOW_FIELD("flowfield"),
+	/**Finding the units near the player and choosing which to update*/
+	SCHEDULE("schedule"),
+	/**Moving the scheduled NPCs and making their decisions (the AI stage)*/
+	AI("ai"),
+	/**Applying the AI stage's results: the spatial index, battles and Elvira*/
+	COMBAT("combat"),
+	/**Picking up items near the player*/
+	ITEMS("items"),
+	/**One whole World.update*/
+	TICK("tick"),
+	/**Drawing the visible map tiles*/
+	TILES("tiles"),
+	/**Drawing the player, units, health bars and items*/
+	UNITS("units"),
+	/**Drawing the status panel*/
+	PANEL("panel"),
+	/**One whole WorldRenderer.render*/
+	RENDER("render"),
+	/**All the work of one frame: input, every tick of the frame and rendering*/
+	FRAME("frame");
+
+	/**Name of the phase in the profile file and overlay*/
+	private final String label;
+
+	private ProfilePhase(String label) {
+		this.label = label;
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	public String getLabel() {
+		return label;
+	}
+}
@@ -0,0 +1,50 @@
+package enginelib;
+
+import java.util.SplittableRandom;
+
+/**
+ * Hands out independent random number streams, all derived from one seed.<br/><br/>
+ * 
+ * Every unit and subsystem that needs random numbers gets a stream of its own, split from a <br/>
+ * root generator. No generator is shared, so streams never contend with each other (or need <br/>
+ * locking if units are updated on several threads), and nothing is allocated per roll. Streams <br/>
+ * are split in the order they are requested, so a game created with the same seed and run with <br/>
+ * the same input plays out identically.<br/><br/>
+ * 
+ * The service itself is not thread safe; streams should be requested from the simulation thread.
+ */
+public class RandomService {
+	
+	/**The seed the service was created with*/
+	private final long seed;
+	/**The generator that every stream is split from*/
+	private final SplittableRandom root;
+	
+	/**
+	 * Creates a service whose streams are all derived from a seed
+	 * 
+	 * @param seed The seed for the whole game
+	 */
+	public RandomService(long seed) {
+		this.seed = seed;
+		this.root = new SplittableRandom(seed);
+	}
+	
+	/**
+	 * Creates a new independent stream<br/><br/>
+	 * 
+	 * <strong>Precondition:</strong> none<br/>
+	 * <strong>Postcondition:</strong> The root generator is advanced, so the next stream differs<br/><br/>
+	 * 
+	 * @return A generator for the exclusive use of one unit or subsystem
+	 */
+	public SplittableRandom newStream() {
+		return this.root.split();
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////
+	
+	public long getSeed() {
+		return seed;
+	}
+}
@@ -0,0 +1,30 @@
+package enginelib;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event for <code>World.resetMap</code>: the player dying and the map's <br/>
+ * units being put back.
+ */
+@Name("esmurelda.Respawn")
+@Label("Respawn")
+@Category({"Esmurelda", "Simulation"})
+@Description("The map being reset after the player died")
+public class RespawnEvent extends Event {
+
+	@Label("Enemies")
+	public int enemies;
+
+	@Label("Passive Enemies")
+	public int passiveEnemies;
+
+	@Label("Villagers")
+	public int villagers;
+
+	@Label("Items")
+	public int items;
+}
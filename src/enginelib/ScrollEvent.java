@@ -0,0 +1,44 @@
+package enginelib;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for a step of <code>World.moveWorld</code> that scrolled the camera. <br/>
+ * Steps where the camera stays still are not recorded.
+ */
+@Name("esmurelda.Scroll")
+@Label("Scroll")
+@Category({"Esmurelda", "Simulation"})
+@Description("The camera following the player")
+@StackTrace(false)
+public class ScrollEvent extends Event {
+
+	/**The event's type, which knows whether any recording wants it*/
+	private static final EventType TYPE = EventType.getEventType(ScrollEvent.class);
+
+	@Label("Distance X")
+	@Description("Pixels the camera moved horizontally")
+	public int distanceX;
+
+	@Label("Distance Y")
+	@Description("Pixels the camera moved vertically")
+	public int distanceY;
+
+	@Label("Tile Changed")
+	@Description("True if the camera moved onto a new top-left tile")
+	public boolean tileChanged;
+
+	/**
+	 * Checks whether a running recording has the event enabled. Callers check this before <br/>
+	 * creating the event, so nothing is allocated or timed while nothing is recording it.
+	 */
+	public static boolean isRecorded() {
+		return TYPE.isEnabled();
+	}
+}
@@ -0,0 +1,107 @@
+package enginelib;
+
+/**
+ * A fixed-timestep clock that decides how many simulation ticks to run for each rendered frame.<br/><br/>
+ * 
+ * Frame times are added to an accumulator, and a tick is run for every whole tick length it <br/>
+ * holds. The world therefore always advances in steps of the same size, so movement, collision <br/>
+ * and combat timers behave the same at any frame rate. The time left over (less than one tick) <br/>
+ * is exposed as an interpolation fraction, so the renderer can draw units between their last two <br/>
+ * simulated positions.<br/><br/>
+ * 
+ * If a frame takes so long that more than <code>maxTicksPerFrame</code> ticks are owed, the extra <br/>
+ * time is dropped. The game then runs slower for that frame rather than spending ever longer <br/>
+ * catching up.
+ */
+public class SimulationClock {
+	
+	/**Length of one tick in milliseconds*/
+	private final int tickLength;
+	/**Most ticks run for one frame*/
+	private final int maxTicksPerFrame;
+	/**Frame time not yet simulated, in milliseconds*/
+	private long accumulator;
+	/**Total number of ticks run*/
+	private long tickCount;
+	/**Total frame time dropped because of the catch-up limit, in milliseconds*/
+	private long droppedTime;
+	
+	/**
+	 * Creates a clock with an empty accumulator<br/><br/>
+	 * 
+	 * <strong>Precondition:</strong> both arguments are positive<br/>
+	 * <strong>Postcondition:</strong> A clock with no time owed is created<br/><br/>
+	 * 
+	 * @param tickLength Length of one tick in milliseconds
+	 * @param maxTicksPerFrame Most ticks to run for one frame
+	 */
+	public SimulationClock(int tickLength, int maxTicksPerFrame) {
+		this.tickLength = tickLength;
+		this.maxTicksPerFrame = maxTicksPerFrame;
+		this.accumulator = 0;
+		this.tickCount = 0;
+		this.droppedTime = 0;
+	}
+	
+	/**
+	 * Adds a frame's time to the clock and returns how many ticks to run for it<br/><br/>
+	 * 
+	 * <strong>Precondition:</strong> <code>frameTime</code> is not negative<br/>
+	 * <strong>Postcondition:</strong> The ticks returned are removed from the accumulator; at most <br/>
+	 * one tick's worth of time is left in it<br/><br/>
+	 * 
+	 * @param frameTime Time passed since the last frame, in milliseconds
+	 * @return The number of ticks to run, between 0 and <code>maxTicksPerFrame</code>
+	 */
+	public int advance(long frameTime) {
+		this.accumulator += frameTime;
+		
+		int ticks = (int)Math.min(this.accumulator / this.tickLength, this.maxTicksPerFrame);
+		this.accumulator -= (long)ticks * this.tickLength;
+		
+		//too far behind: drop whole ticks of time, keeping the fraction for interpolation
+		if(this.accumulator >= this.tickLength) {
+			long excess = this.accumulator - this.accumulator % this.tickLength;
+			this.droppedTime += excess;
+			this.accumulator -= excess;
+		}
+		
+		this.tickCount += ticks;
+		return ticks;
+	}
+	
+	/**
+	 * Gets how far the clock is between the last tick and the next, for interpolating positions <br/>
+	 * when rendering
+	 * 
+	 * @return A value from 0 (at the last tick) up to, but not including, 1 (at the next tick)
+	 */
+	public float getAlpha() {
+		return (float)this.accumulator / this.tickLength;
+	}
+	
+	/**
+	 * Discards any time owed, e.g. after loading or a pause
+	 */
+	public void reset() {
+		this.accumulator = 0;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////
+	
+	public int getTickLength() {
+		return tickLength;
+	}
+	
+	public int getMaxTicksPerFrame() {
+		return maxTicksPerFrame;
+	}
+	
+	public long getTickCount() {
+		return tickCount;
+	}
+	
+	public long getDroppedTime() {
+		return droppedTime;
+	}
+}
@@ -0,0 +1,82 @@
+package enginelib;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for one phase of a <code>World.update</code> tick, so that slow ticks <br/>
+ * can be lined up with garbage collections and compilation in the same recording.<br/><br/>
+ *
+ * Like every event in the game, it is recorded only while a recording with it enabled is <br/>
+ * running (it is on in the default settings, and can be turned off with <br/>
+ * <code>esmurelda.TickPhase#enabled=false</code>). Otherwise <code>start</code> creates no event <br/>
+ * and returns null, which <code>lap</code> and <code>stop</code> accept.
+ */
+@Name("esmurelda.TickPhase")
+@Label("Tick Phase")
+@Category({"Esmurelda", "Simulation"})
+@Description("One phase of a simulation tick")
+@StackTrace(false)
+public class TickPhaseEvent extends Event {
+
+	/**The event's type, which knows whether any recording wants it*/
+	private static final EventType TYPE = EventType.getEventType(TickPhaseEvent.class);
+
+	@Label("Phase")
+	String phase;
+
+	@Label("Units")
+	@Description("Number of units the phase worked on")
+	int units;
+
+	/**
+	 * Begins timing a phase
+	 *
+	 * @return The event for the phase, or null if no recording has the event enabled
+	 */
+	public static TickPhaseEvent start() {
+		if(!TYPE.isEnabled()) {
+			return null;
+		}
+		TickPhaseEvent event = new TickPhaseEvent();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Ends a phase, committing its event if it is being recorded, and begins the next
+	 *
+	 * @param event The event returned by <code>start</code> (or the last <code>lap</code>) when the phase began
+	 * @param phase The phase that finished
+	 * @param units The number of units the phase worked on
+	 * @return The event for the next phase, or null if no recording has the event enabled
+	 */
+	public static TickPhaseEvent lap(TickPhaseEvent event, ProfilePhase phase, int units) {
+		stop(event, phase, units);
+		return start();
+	}
+
+	/**
+	 * Ends a phase, committing its event if it is being recorded
+	 *
+	 * @param event The event returned by <code>start</code> (or the last <code>lap</code>) when the phase began
+	 * @param phase The phase that finished
+	 * @param units The number of units the phase worked on
+	 */
+	public static void stop(TickPhaseEvent event, ProfilePhase phase, int units) {
+		if(event == null) {
+			return;
+		}
+		event.end();
+		if(event.shouldCommit()) {
+			event.phase = phase.getLabel();
+			event.units = units;
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,279 @@
+package enginelib;
+
+import java.util.Arrays;
+
+/**
+ * Timers that go off on a chosen simulation tick, kept in a hierarchical timing wheel.<br/><br/>
+ *
+ * The wheel has four levels of 64 slots. Level 0 holds the timers due in the next 64 ticks, one <br/>
+ * slot per tick; each level above holds timers 64 times further off, one slot per 64 ticks of <br/>
+ * the level below. When a level 0 pass wraps, the next slot of the level above is emptied into <br/>
+ * the levels below it. Scheduling, cancelling and each tick of <code>advance</code> therefore <br/>
+ * take a constant time however many timers are waiting, and ticks on which nothing is due cost <br/>
+ * almost nothing. Timers further off than the top level can hold are placed in it and moved <br/>
+ * down again until they are due.<br/><br/>
+ *
+ * A timer is a small number chosen by the owner of the wheel (for example one per character <br/>
+ * and kind of wait); each can be waiting at most once. The wheel allocates nothing once it has <br/>
+ * grown to its largest timer number and the most timers that go off on one tick. It is not <br/>
+ * thread safe.
+ */
+public final class TimerWheel {
+
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+	private static final int LEVELS = 4;
+	/**Marks the end of a slot's list, and a timer that isn't waiting*/
+	private static final int NONE = -1;
+
+	/**First timer in each slot, level by level*/
+	private final int[] heads;
+
+	/**The tick each timer is due on*/
+	private long[] due;
+	/**Next and previous timer in the same slot*/
+	private int[] next;
+	private int[] previous;
+	/**Slot (level * SLOTS + index) each timer is in, or NONE if it isn't waiting*/
+	private int[] slotOf;
+
+	/**The timers that went off in the last <code>advance</code>*/
+	private int[] expired;
+	private int expiredCount;
+
+	/**The last tick advanced to*/
+	private long now;
+	/**Number of timers waiting*/
+	private int size;
+
+	/**
+	 * Creates an empty wheel<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>capacity</code> is positive<br/>
+	 * <strong>Postcondition:</strong> No timer is waiting; the current tick is <code>now</code><br/><br/>
+	 *
+	 * @param now The current tick
+	 * @param capacity The number of timers the wheel has room for before it must grow
+	 */
+	public TimerWheel(long now, int capacity) {
+		this.heads = new int[LEVELS * SLOTS];
+		Arrays.fill(this.heads, NONE);
+		this.due = new long[capacity];
+		this.next = new int[capacity];
+		this.previous = new int[capacity];
+		this.slotOf = new int[capacity];
+		Arrays.fill(this.slotOf, NONE);
+		this.expired = new int[16];
+		this.expiredCount = 0;
+		this.now = now;
+		this.size = 0;
+	}
+
+	/**
+	 * Sets a timer to go off on a tick, replacing any time it was already set for<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>timer</code> is not negative<br/>
+	 * <strong>Postcondition:</strong> The timer goes off on the first <code>advance</code> to <br/>
+	 * <code>tick</code> or later (the next tick if <code>tick</code> has passed)<br/><br/>
+	 *
+	 * @param timer The timer's number
+	 * @param tick The tick it is due on
+	 */
+	public void schedule(int timer, long tick) {
+		if(timer >= this.slotOf.length) {
+			this.grow(Math.max(timer + 1, this.slotOf.length * 2));
+		}
+		this.cancel(timer);
+
+		this.due[timer] = Math.max(tick, this.now + 1);
+		this.insert(timer);
+		this.size++;
+	}
+
+	/**
+	 * Stops a timer, if it is waiting
+	 */
+	public void cancel(int timer) {
+		if(timer < this.slotOf.length && this.slotOf[timer] != NONE) {
+			this.unlink(timer);
+			this.size--;
+		}
+	}
+
+	/**
+	 * Checks whether a timer is waiting to go off
+	 */
+	public boolean isScheduled(int timer) {
+		return timer < this.slotOf.length && this.slotOf[timer] != NONE;
+	}
+
+	/**
+	 * Gets the tick a waiting timer is due on
+	 *
+	 * @param timer A timer that <code>isScheduled</code>
+	 */
+	public long getDue(int timer) {
+		return this.due[timer];
+	}
+
+	/**
+	 * Moves the wheel on to a tick, collecting every timer due by then<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> none<br/>
+	 * <strong>Postcondition:</strong> The timers due on or before <code>tick</code> are no longer <br/>
+	 * waiting, and are <code>getExpired(0)</code> to <code>getExpired(count - 1)</code>, in the order <br/>
+	 * they went off<br/><br/>
+	 *
+	 * @param tick The tick to move on to
+	 * @return The number of timers that went off
+	 */
+	public int advance(long tick) {
+		this.expiredCount = 0;
+
+		while(this.now < tick) {
+			this.now++;
+
+			//at the start of each pass of a level, bring the next slot of the level above down
+			for(int level = 1; level < LEVELS; level++) {
+				int shift = SLOT_BITS * level;
+				if((this.now & ((1L << shift) - 1)) != 0) {
+					break;
+				}
+				this.cascade(level * SLOTS + ((int)(this.now >>> shift) & SLOT_MASK));
+			}
+
+			int slot = (int)this.now & SLOT_MASK;
+			int timer = this.heads[slot];
+			while(timer != NONE) {
+				int following = this.next[timer];
+				this.unlink(timer);
+				if(this.due[timer] <= this.now) {
+					this.expire(timer);
+				}
+				else {
+					this.insert(timer);
+				}
+				timer = following;
+			}
+		}
+
+		return this.expiredCount;
+	}
+
+	/**
+	 * Stops every timer
+	 */
+	public void clear() {
+		for(int slot = 0; slot < this.heads.length; slot++) {
+			int timer = this.heads[slot];
+			while(timer != NONE) {
+				int following = this.next[timer];
+				this.slotOf[timer] = NONE;
+				timer = following;
+			}
+			this.heads[slot] = NONE;
+		}
+		this.size = 0;
+	}
+
+	/**
+	 * Moves every timer in a slot of an upper level down to where it belongs now
+	 */
+	private void cascade(int slot) {
+		int timer = this.heads[slot];
+		while(timer != NONE) {
+			int following = this.next[timer];
+			this.unlink(timer);
+			this.insert(timer);
+			timer = following;
+		}
+	}
+
+	/**
+	 * Puts a timer in the slot for its due tick, at the lowest level that reaches that far
+	 */
+	private void insert(int timer) {
+		long delta = this.due[timer] - this.now;
+		int level = 0;
+		while(level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+			level++;
+		}
+
+		int slot = level * SLOTS + ((int)(this.due[timer] >>> (SLOT_BITS * level)) & SLOT_MASK);
+		int head = this.heads[slot];
+		this.next[timer] = head;
+		this.previous[timer] = NONE;
+		if(head != NONE) {
+			this.previous[head] = timer;
+		}
+		this.heads[slot] = timer;
+		this.slotOf[timer] = slot;
+	}
+
+	/**
+	 * Takes a timer out of its slot
+	 */
+	private void unlink(int timer) {
+		int before = this.previous[timer];
+		int after = this.next[timer];
+		if(before != NONE) {
+			this.next[before] = after;
+		}
+		else {
+			this.heads[this.slotOf[timer]] = after;
+		}
+		if(after != NONE) {
+			this.previous[after] = before;
+		}
+		this.slotOf[timer] = NONE;
+	}
+
+	/**
+	 * Adds a timer that has gone off to the expired list
+	 */
+	private void expire(int timer) {
+		if(this.expiredCount == this.expired.length) {
+			this.expired = Arrays.copyOf(this.expired, this.expired.length * 2);
+		}
+		this.expired[this.expiredCount++] = timer;
+		this.size--;
+	}
+
+	/**
+	 * Resizes the per-timer arrays
+	 */
+	private void grow(int capacity) {
+		int old = this.slotOf.length;
+		this.due = Arrays.copyOf(this.due, capacity);
+		this.next = Arrays.copyOf(this.next, capacity);
+		this.previous = Arrays.copyOf(this.previous, capacity);
+		this.slotOf = Arrays.copyOf(this.slotOf, capacity);
+		Arrays.fill(this.slotOf, old, capacity, NONE);
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Gets a timer that went off in the last <code>advance</code>
+	 *
+	 * @param index A number from 0 to one less than the count <code>advance</code> returned
+	 */
+	public int getExpired(int index) {
+		return expired[index];
+	}
+
+	/**
+	 * Gets the last tick advanced to
+	 */
+	public long getNow() {
+		return now;
+	}
+
+	/**
+	 * Gets the number of timers waiting
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,162 @@
+package environmentlib;
+
+import characterlib.*;
+import java.util.ArrayList;
+import static config.GlobalConfiguration.*;
+
+/**
+ * Chooses which NPCs are worth updating each tick, by how far they are from what the player can <br/>
+ * see (AI level of detail).<br/><br/>
+ *
+ * Units fall into three tiers around the visible part of the map:<br/>
+ * <ul>
+ * <li><strong>Near</strong>: on screen, or within <code>AWARENESS_RANGE</code> (the larger of <br/>
+ * <code>FOV</code> and <code>FOV_PASSIVE</code>) plus a tile of it. These might be seen, or might <br/>
+ * notice the player, so they are updated every tick.</li>
+ * <li><strong>Mid</strong>: within a further half screen. These are updated every <br/>
+ * <code>LOD_MID_INTERVAL</code> ticks, moving that many ticks' distance at once, so they are <br/>
+ * roughly where they should be by the time they come into view. Which tick a unit is updated <br/>
+ * on depends on its index in the world's entity registry, which it keeps for as long as it is <br/>
+ * alive, so each unit is updated exactly once per interval and the work is spread evenly over it.</li>
+ * <li><strong>Far</strong>: everything else. These are left unsimulated: they are never queried <br/>
+ * or updated, and stay where they are until the view comes close enough for them to fall in <br/>
+ * the mid or near tier, which then picks them up.</li>
+ * </ul>
+ * The near and mid units are found with the spatial index, so the cost of a tick depends on <br/>
+ * how many units are around the player rather than on how many exist. Dead enemies have left <br/>
+ * the index, so they are never scheduled. Nor are units that are asleep until a timer wakes <br/>
+ * them (see <code>World</code>), so idle units cost almost nothing in any tier.
+ */
+public class AIScheduler {
+
+	/**Units the scheduler found in the near and mid tiers, in index order*/
+	private final ArrayList<NPC> found;
+
+	/*UNITS TO UPDATE THIS TICK AT FULL RATE*/
+	private final ArrayList<Villager> nearVillagers;
+	private final ArrayList<PassiveEnemy> nearPassiveEnemies;
+	private final ArrayList<Enemy> nearEnemies;
+
+	/*UNITS TO UPDATE THIS TICK AT THE REDUCED RATE*/
+	private final ArrayList<Villager> midVillagers;
+	private final ArrayList<PassiveEnemy> midPassiveEnemies;
+	private final ArrayList<Enemy> midEnemies;
+
+	/**Number of ticks scheduled so far*/
+	private long tick;
+
+	/**
+	 * Creates a scheduler with nothing scheduled
+	 */
+	public AIScheduler() {
+		this.found = new ArrayList<NPC>();
+		this.nearVillagers = new ArrayList<Villager>();
+		this.nearPassiveEnemies = new ArrayList<PassiveEnemy>();
+		this.nearEnemies = new ArrayList<Enemy>();
+		this.midVillagers = new ArrayList<Villager>();
+		this.midPassiveEnemies = new ArrayList<PassiveEnemy>();
+		this.midEnemies = new ArrayList<Enemy>();
+		this.tick = 0;
+	}
+
+	/**
+	 * Sorts the units around the view into this tick's near and mid lists<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>units</code> holds every living NPC at its current position<br/>
+	 * <strong>Postcondition:</strong> The near lists hold every unit in the near tier; the mid lists <br/>
+	 * hold the mid tier units due an update this tick<br/><br/>
+	 *
+	 * @param units Spatial index of the living NPCs
+	 * @param viewX Map x-coordinate of the left of the view
+	 * @param viewY Map y-coordinate of the top of the view
+	 * @param viewWidth Width of the view in pixels
+	 * @param viewHeight Height of the view in pixels
+	 * @param tileWidth Width of a map tile in pixels
+	 */
+	public void schedule(SpatialGrid<NPC> units, float viewX, float viewY, float viewWidth, float viewHeight, float tileWidth) {
+		this.nearVillagers.clear();
+		this.nearPassiveEnemies.clear();
+		this.nearEnemies.clear();
+		this.midVillagers.clear();
+		this.midPassiveEnemies.clear();
+		this.midEnemies.clear();
+
+		float nearLeft = viewX - AWARENESS_RANGE - tileWidth;
+		float nearTop = viewY - AWARENESS_RANGE - tileWidth;
+		float nearRight = viewX + viewWidth + AWARENESS_RANGE + tileWidth;
+		float nearBottom = viewY + viewHeight + AWARENESS_RANGE + tileWidth;
+
+		float midMarginX = viewWidth / 2;
+		float midMarginY = viewHeight / 2;
+
+		this.found.clear();
+		units.queryBox(nearLeft - midMarginX, nearTop - midMarginY, nearRight + midMarginX, nearBottom + midMarginY, this.found);
+
+		for(NPC charac : this.found) {
+			if(charac.getAsleep()) {
+				continue;
+			}
+			
+			float x = charac.getXPosition();
+			float y = charac.getYPosition();
+
+			if(x >= nearLeft && x <= nearRight && y >= nearTop && y <= nearBottom) {
+				this.add(charac, this.nearVillagers, this.nearPassiveEnemies, this.nearEnemies);
+			}
+			else if((EntityRegistry.indexOf(charac.getHandle()) + this.tick) % LOD_MID_INTERVAL == 0) {
+				this.add(charac, this.midVillagers, this.midPassiveEnemies, this.midEnemies);
+			}
+		}
+
+		this.tick++;
+	}
+
+	/**
+	 * Adds a unit to whichever of three lists matches its type
+	 */
+	private void add(NPC charac, ArrayList<Villager> villagers, ArrayList<PassiveEnemy> passiveEnemies, ArrayList<Enemy> enemies) {
+		if(charac instanceof PassiveEnemy) {
+			passiveEnemies.add((PassiveEnemy)charac);
+		}
+		else if(charac instanceof Enemy) {
+			enemies.add((Enemy)charac);
+		}
+		else if(charac instanceof Villager) {
+			villagers.add((Villager)charac);
+		}
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	public ArrayList<Villager> getNearVillagers() {
+		return nearVillagers;
+	}
+
+	public ArrayList<PassiveEnemy> getNearPassiveEnemies() {
+		return nearPassiveEnemies;
+	}
+
+	public ArrayList<Enemy> getNearEnemies() {
+		return nearEnemies;
+	}
+
+	public ArrayList<Villager> getMidVillagers() {
+		return midVillagers;
+	}
+
+	public ArrayList<PassiveEnemy> getMidPassiveEnemies() {
+		return midPassiveEnemies;
+	}
+
+	public ArrayList<Enemy> getMidEnemies() {
+		return midEnemies;
+	}
+
+	/**
+	 * Gets the number of units scheduled for this tick, in both tiers
+	 */
+	public int getScheduledCount() {
+		return nearVillagers.size() + nearPassiveEnemies.size() + nearEnemies.size()
+				+ midVillagers.size() + midPassiveEnemies.size() + midEnemies.size();
+	}
+}
@@ -0,0 +1,189 @@
+package environmentlib;
+
+import characterlib.*;
+import enginelib.AIBatchEvent;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import static config.GlobalConfiguration.*;
+
+/**
+ * Runs the movement and decision making of every NPC for one tick, spread across a fork-join pool.<br/><br/>
+ *
+ * During the stage each unit reads only its own state and state that is frozen for the whole <br/>
+ * stage: the player's published position, the flow field and the collision map. Everything it <br/>
+ * writes is its own (its slot in the entity store and its own random number stream). Anything <br/>
+ * that touches state shared between units (the spatial index, battles with the player, Elvira's <br/>
+ * healing) is left for the world to commit afterwards, one unit at a time in the order the <br/>
+ * scheduler produced them (near tier, then mid). The result of a tick therefore doesn't depend <br/>
+ * on how the units are split between threads, or on how many threads there are.<br/><br/>
+ *
+ * Small populations are updated on the calling thread, since handing them to the pool costs <br/>
+ * more than it saves.
+ */
+public class AIStage {
+
+	/**The pool units are updated on, or null to update them all on the calling thread*/
+	private final ForkJoinPool pool;
+	/**True if <code>pool</code> was created by this stage, and so must be shut down by it*/
+	private final boolean ownsPool;
+	/**Each thread's working space for <code>StateMachine.update</code>*/
+	private final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[StateMachine.scratchSize(AI_BATCH_SIZE)]);
+
+	/*THE TICK BEING RUN (only set during run)*/
+	private List<Villager> villagers;
+	private List<PassiveEnemy> passiveEnemies;
+	private List<Enemy> enemies;
+	private float baseSpeed;
+	private boolean parallel;
+
+	/**
+	 * Creates a stage<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> none<br/>
+	 * <strong>Postcondition:</strong> The stage is ready to run; a pool is created if <code>threads</code> is above 1<br/><br/>
+	 *
+	 * @param threads The number of threads to update units on: 0 to share the JVM's common pool, <br/>
+	 * 1 to update every unit on the calling thread
+	 */
+	public AIStage(int threads) {
+		if(threads == 0) {
+			this.pool = ForkJoinPool.commonPool();
+			this.ownsPool = false;
+		}
+		else if(threads > 1) {
+			this.pool = new ForkJoinPool(threads);
+			this.ownsPool = true;
+		}
+		else {
+			this.pool = null;
+			this.ownsPool = false;
+		}
+	}
+
+	/**
+	 * Moves every unit and decides whether it is attacking the player<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> every unit is alive; nothing else changes the lists, the player's position or the flow field until this returns<br/>
+	 * <strong>Postcondition:</strong> Every unit has moved for this tick; nothing shared between units has changed<br/><br/>
+	 *
+	 * @param villagers The villagers to update
+	 * @param passiveEnemies The passive enemies to update
+	 * @param enemies The enemies to update
+	 * @param baseSpeed The distance a unit moves this tick
+	 */
+	public void run(List<Villager> villagers, List<PassiveEnemy> passiveEnemies, List<Enemy> enemies, float baseSpeed) {
+		this.villagers = villagers;
+		this.passiveEnemies = passiveEnemies;
+		this.enemies = enemies;
+		this.baseSpeed = baseSpeed;
+
+		int total = villagers.size() + passiveEnemies.size() + enemies.size();
+		this.parallel = this.pool != null && total >= PARALLEL_AI_MIN_UNITS;
+
+		if(!this.parallel) {
+			this.update(0, total);
+		}
+		else {
+			this.pool.invoke(new Batch(0, total));
+		}
+
+		this.villagers = null;
+		this.passiveEnemies = null;
+		this.enemies = null;
+	}
+
+	/**
+	 * Stops the stage's own pool, if it has one. The stage must not be run afterwards.
+	 */
+	public void shutdown() {
+		if(this.ownsPool) {
+			this.pool.shutdown();
+		}
+	}
+
+	/**
+	 * Updates a range of units, numbered through the villagers, then the passive enemies, then the <br/>
+	 * enemies, each kind by its own state machine
+	 */
+	private void update(int from, int to) {
+		int villagerCount = this.villagers.size();
+		int passiveCount = this.passiveEnemies.size();
+
+		this.update(StateMachine.VILLAGER, this.villagers, from, to);
+		this.update(StateMachine.PASSIVE_ENEMY, this.passiveEnemies, from - villagerCount, to - villagerCount);
+		this.update(StateMachine.ENEMY, this.enemies, from - villagerCount - passiveCount, to - villagerCount - passiveCount);
+	}
+
+	/**
+	 * Updates the units of one list whose indexes fall in a range, which may run past either end <br/>
+	 * of the list, recording the batch as an <code>AIBatchEvent</code> if one is wanted
+	 */
+	private void update(StateMachine machine, List<? extends NPC> units, int from, int to) {
+		from = Math.max(from, 0);
+		to = Math.min(to, units.size());
+		if(from >= to) {
+			return;
+		}
+
+		int[] scratch = this.scratch.get();
+		if(scratch.length < StateMachine.scratchSize(to - from)) {
+			scratch = new int[StateMachine.scratchSize(to - from)];
+			this.scratch.set(scratch);
+		}
+
+		AIBatchEvent event = null;
+		if(AIBatchEvent.isRecorded()) {
+			event = new AIBatchEvent();
+			event.begin();
+		}
+
+		machine.update(units, from, to, this.baseSpeed, scratch);
+
+		if(event != null) {
+			event.end();
+			if(event.shouldCommit()) {
+				event.kind = machine.getName();
+				event.units = to - from;
+				event.parallel = this.parallel;
+				event.commit();
+			}
+		}
+	}
+
+	/**
+	 * A range of units, split in half until it is small enough to update in one go
+	 */
+	private final class Batch extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+
+		Batch(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(this.to - this.from <= AI_BATCH_SIZE) {
+				update(this.from, this.to);
+			}
+			else {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new Batch(this.from, middle), new Batch(middle, this.to));
+			}
+		}
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Gets the number of threads units are updated on
+	 */
+	public int getParallelism() {
+		return pool == null ? 1 : pool.getParallelism();
+	}
+}
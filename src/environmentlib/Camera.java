@@ -0,0 +1,120 @@
+package environmentlib;
+
+import static config.GlobalConfiguration.*;
+
+/**
+ * The viewport onto the map.<br/><br/>
+ *
+ * Every character and item is stored in map coordinates (pixels from the top left of the map).<br/>
+ * The camera holds the map coordinate of the top left of the screen, and converts map coordinates<br/>
+ * to screen coordinates only at render time. Scrolling is therefore a single assignment, however<br/>
+ * many units exist in the world.<br/><br/>
+ *
+ * The camera position is kept in whole pixels so tiles and sprites are drawn on pixel boundaries.
+ */
+public class Camera {
+
+	/**Map x-coordinate of the left edge of the screen*/
+	private int xPosition;
+	/**Map y-coordinate of the top edge of the screen*/
+	private int yPosition;
+	/**Width of a map tile in pixels*/
+	private final int tileWidth;
+	/**Height of a map tile in pixels*/
+	private final int tileHeight;
+
+	/**
+	 * Creates a camera at the initial map position
+	 *
+	 * @param tileWidth Width of a map tile in pixels
+	 * @param tileHeight Height of a map tile in pixels
+	 */
+	public Camera(int tileWidth, int tileHeight) {
+		this.tileWidth = tileWidth;
+		this.tileHeight = tileHeight;
+		this.reset();
+	}
+
+	/**
+	 * Moves the camera back to where it starts the game
+	 */
+	public void reset() {
+		this.xPosition = ZERO_MAP_POSITION_X;
+		this.yPosition = ZERO_MAP_POSITION_Y;
+	}
+
+	/**
+	 * Moves the camera so that a target at the given map position is drawn at the player's<br/>
+	 * fixed screen position.<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>targetX</code> and <code>targetY</code> are map coordinates<br/>
+	 * <strong>Postcondition:</strong> The camera is centred on the target<br/><br/>
+	 *
+	 * @param targetX Map x-coordinate of the top left of the target sprite
+	 * @param targetY Map y-coordinate of the top left of the target sprite
+	 */
+	public void follow(float targetX, float targetY) {
+		this.xPosition = (int)Math.floor(targetX - PLAYER_START_POS_X);
+		this.yPosition = (int)Math.floor(targetY - PLAYER_START_POS_Y);
+	}
+
+	/**
+	 * Converts a map x-coordinate to a screen x-coordinate
+	 */
+	public float toScreenX(float mapX) {
+		return mapX - this.xPosition;
+	}
+
+	/**
+	 * Converts a map y-coordinate to a screen y-coordinate
+	 */
+	public float toScreenY(float mapY) {
+		return mapY - this.yPosition;
+	}
+
+	/**
+	 * Gets the horizontal grid index of the tile at the left edge of the screen
+	 */
+	public int getTileX() {
+		return Math.floorDiv(this.xPosition, this.tileWidth);
+	}
+
+	/**
+	 * Gets the vertical grid index of the tile at the top edge of the screen
+	 */
+	public int getTileY() {
+		return Math.floorDiv(this.yPosition, this.tileHeight);
+	}
+
+	/**
+	 * Gets the screen x-coordinate to draw the tile at the left edge of the screen at (zero or negative)
+	 */
+	public int getTileOffsetX() {
+		return -Math.floorMod(this.xPosition, this.tileWidth);
+	}
+
+	/**
+	 * Gets the screen y-coordinate to draw the tile at the top edge of the screen at (zero or negative)
+	 */
+	public int getTileOffsetY() {
+		return -Math.floorMod(this.yPosition, this.tileHeight);
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	public int getXPosition() {
+		return xPosition;
+	}
+
+	public void setXPosition(int xPosition) {
+		this.xPosition = xPosition;
+	}
+
+	public int getYPosition() {
+		return yPosition;
+	}
+
+	public void setYPosition(int yPosition) {
+		this.yPosition = yPosition;
+	}
+}
@@ -0,0 +1,155 @@
+/**
+ * SWEN20003 Object Oriented Software Development
+ * RPG Game Engine
+ * Author: Jonathan Gilmour <gilmour>
+ */
+package environmentlib;
+
+import characterlib.*;
+import enginelib.FrameProfiler;
+import java.io.IOException;
+import static config.GlobalConfiguration.*;
+
+/**
+ * Runs the game simulation without Slick, a display or a GPU, and reports how fast it ticks.<br/><br/>
+ *
+ * The world is updated with a fixed tick length and a scripted player who walks in each of the <br/>
+ * eight directions in turn, so runs are comparable between machines and builds. Nothing is <br/>
+ * drawn and no input is read.<br/><br/>
+ *
+ * Usage: <code>java -cp bin environmentlib.HeadlessRunner [ticks] [delta] [warmup] [seed]</code><br/>
+ * where <code>delta</code> is the tick length in milliseconds, <code>warmup</code> is the number <br/>
+ * of ticks to run (and ignore) before timing starts, and <code>seed</code> seeds the world's random <br/>
+ * numbers. Runs with the same arguments end in the same state.<br/><br/>
+ *
+ * Run with <code>-Desmurelda.profile=true</code> to also print the percentiles of each phase of the <br/>
+ * tick (see <code>FrameProfiler</code>).
+ */
+public class HeadlessRunner {
+
+	/**Number of ticks timed when none is given*/
+	private static final int DEFAULT_TICKS = 100000;
+	/**Tick length in milliseconds when none is given*/
+	private static final int DEFAULT_DELTA = SIMULATION_TICK_LENGTH;
+	/**Number of untimed ticks when none is given, to let the JIT compile the hot paths*/
+	private static final int DEFAULT_WARMUP = 10000;
+	/**Number of ticks the scripted player walks in one direction before turning*/
+	private static final int TICKS_PER_DIRECTION = 120;
+	/**Number of ticks between samples of the unit count*/
+	private static final int SAMPLE_INTERVAL = 100;
+
+	/**Horizontal movement of the scripted player for each direction*/
+	private static final int[] WALK_X = {1, 1, 0, -1, -1, -1, 0, 1};
+	/**Vertical movement of the scripted player for each direction*/
+	private static final int[] WALK_Y = {0, 1, 1, 1, 0, -1, -1, -1};
+
+	private World world;
+	private int delta;
+
+	/**
+	 * Creates a runner for a new world
+	 *
+	 * @param delta The tick length passed to each update, in milliseconds
+	 * @param seed The seed for the world's random numbers
+	 * @throws IOException The map fails to load
+	 */
+	public HeadlessRunner(int delta, long seed) throws IOException {
+		this.world = new World(seed);
+		this.delta = delta;
+	}
+
+	/**
+	 * Advances the world by a number of ticks, feeding it the scripted player's movement.<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>ticks</code> is not negative<br/>
+	 * <strong>Postcondition:</strong> The world has been updated <code>ticks</code> times<br/><br/>
+	 *
+	 * @param firstTick The number of ticks already run, which selects the player's direction
+	 * @param ticks The number of ticks to run
+	 * @return The sum of the living unit counts sampled every <code>SAMPLE_INTERVAL</code> ticks
+	 */
+	public long run(int firstTick, int ticks) {
+		long unitSamples = 0;
+
+		for(int tick = firstTick; tick < firstTick + ticks; tick++) {
+			int direction = (tick / TICKS_PER_DIRECTION) % WALK_X.length;
+
+			//mirrors RPG.update, which clears the distance travelled on axes with no key held
+			this.world.resetPlayerDistanceTravelled(WALK_X[direction] == 0, WALK_Y[direction] == 0);
+			this.world.update(WALK_X[direction], WALK_Y[direction], this.delta);
+			FrameProfiler.endFrame();
+
+			if(tick % SAMPLE_INTERVAL == 0) {
+				unitSamples += this.countLivingUnits();
+			}
+		}
+
+		return unitSamples;
+	}
+
+	/**
+	 * Counts the units in the world (dead units leave it at the end of the tick they die)
+	 */
+	public int countLivingUnits() {
+		return this.world.getVillagerList().size() + this.world.getEnemyList().size() + this.world.getPassiveEnemyList().size();
+	}
+
+	/**
+	 * Combines the position and health of every unit into one number, so two runs can be <br/>
+	 * checked to have ended in the same state
+	 */
+	public long checksum() {
+		long sum = this.checksum(0, this.world.getPlayer());
+
+		for(Villager charac : this.world.getVillagerList()) sum = this.checksum(sum, charac);
+		for(PassiveEnemy charac : this.world.getPassiveEnemyList()) sum = this.checksum(sum, charac);
+		for(Enemy charac : this.world.getEnemyList()) sum = this.checksum(sum, charac);
+
+		return sum;
+	}
+
+	private long checksum(long sum, GameCharacter charac) {
+		sum = sum * 31 + Float.floatToIntBits(charac.getXPosition());
+		sum = sum * 31 + Float.floatToIntBits(charac.getYPosition());
+		return sum * 31 + charac.getHealth();
+	}
+
+	/**
+	 * Runs the simulation and prints the tick rate
+	 *
+	 * @param args Optional number of ticks, tick length in milliseconds, number of warmup ticks and random seed
+	 */
+	public static void main(String[] args) throws IOException {
+		int ticks = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TICKS;
+		int delta = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DELTA;
+		int warmup = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_WARMUP;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_RANDOM_SEED;
+
+		HeadlessRunner runner = new HeadlessRunner(delta, seed);
+
+		runner.run(0, warmup);
+		FrameProfiler.reset();
+
+		long start = System.nanoTime();
+		long unitSamples = runner.run(warmup, ticks);
+		long elapsed = System.nanoTime() - start;
+
+		int samples = Math.max(1, (ticks + SAMPLE_INTERVAL - 1) / SAMPLE_INTERVAL);
+		double seconds = elapsed / 1e9;
+
+		System.out.println("Ticks:            " + ticks + " (" + delta + "ms each, " + warmup + " warmup)");
+		System.out.println("Elapsed:          " + String.format("%.3f", seconds) + "s");
+		System.out.println("Ticks/sec:        " + String.format("%.1f", ticks / seconds));
+		System.out.println("Mean tick:        " + String.format("%.3f", elapsed / 1e3 / ticks) + "us");
+		System.out.println("Units per tick:   " + String.format("%.1f", (double)unitSamples / samples));
+		System.out.println("State checksum:   " + Long.toHexString(runner.checksum()) + " (seed " + seed + ")");
+		
+		if(FrameProfiler.isEnabled()) {
+			FrameProfiler.dump();
+			System.out.println("Tick phases since the last profile line (" + PROFILE_FILE + "):");
+			for(String line : FrameProfiler.getSummary()) {
+				System.out.println("  " + line);
+			}
+		}
+	}
+}
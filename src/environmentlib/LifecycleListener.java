@@ -0,0 +1,30 @@
+package environmentlib;
+
+import characterlib.NPC;
+
+/**
+ * Receives notice of NPCs entering, dying in and leaving the world.<br/><br/>
+ *
+ * A unit goes through the same steps every time: it is spawned, it may die, and it is despawned. <br/>
+ * Spawning and despawning change the world's unit lists, so they only take effect between <br/>
+ * ticks; a unit spawned or killed during a tick is spawned or despawned at the end of it. <br/>
+ * <code>unitDied</code> is called exactly once per death, on the tick the unit dies. When the map <br/>
+ * is reset, the starting units are spawned again and any units added since are despawned.
+ */
+public interface LifecycleListener {
+
+	/**
+	 * Called when a unit has entered the world, and can be found and updated
+	 */
+	void unitSpawned(NPC charac);
+
+	/**
+	 * Called once when a unit dies. It is no longer updated, and will be despawned at the end of the tick.
+	 */
+	void unitDied(NPC charac);
+
+	/**
+	 * Called when a unit has left the world
+	 */
+	void unitDespawned(NPC charac);
+}
@@ -6,7 +6,11 @@
 package environmentlib;
 
 import config.GlobalConfiguration;
+import enginelib.FrameProfiler;
+import enginelib.ProfilePhase;
+import enginelib.SimulationClock;
 import java.awt.Font;
+import java.io.IOException;
 import org.newdawn.slick.AppGameContainer;
 import org.newdawn.slick.GameContainer;
 import org.newdawn.slick.BasicGame;
@@ -14,6 +18,7 @@ import org.newdawn.slick.Graphics;
 import org.newdawn.slick.Input;
 import org.newdawn.slick.SlickException;
 import org.newdawn.slick.UnicodeFont;
+import renderlib.WorldRenderer;
 
 /** 
  * Main class for the Role-Playing Game engine.
@@ -22,6 +27,10 @@ import org.newdawn.slick.UnicodeFont;
 public class RPG extends BasicGame {
 	
     private World world;
+    private WorldRenderer renderer;
+    private SimulationClock clock;
+    /**When this frame's work started, for the profiler's whole-frame phase*/
+    private long frameStart;
 
     /**
      * Default constructor, executes parent constructor
@@ -31,13 +40,21 @@ public class RPG extends BasicGame {
         super("Legend of Esmurelda");
     }
 
-    /** Initialise the game state; create a new world; set the target frame rate to 60fps;
+    /** Initialise the game state; create a new world and its renderer; set the target frame rate to 60fps;
      * 
      * @param gc The Slick game container object.
      */
     @Override
     public void init(GameContainer gc) throws SlickException {
-        world = new World();
+        try {
+        	world = new World();
+        }
+        catch(IOException e) {
+        	throw new SlickException("Failed to load the world", e);
+        }
+        renderer = new WorldRenderer();
+        world.setSpriteTracker(renderer.getAssets());
+        clock = new SimulationClock(GlobalConfiguration.SIMULATION_TICK_LENGTH, GlobalConfiguration.MAX_TICKS_PER_FRAME);
         gc.setTargetFrameRate(60);
     }
 
@@ -51,7 +68,10 @@ public class RPG extends BasicGame {
      * <br/>ction variables to suitable values to be passed to the player object. If the key is not 
      * <br/>being pressed, reset the player's distance travelled for that direction (gets rid of re-
      * <br/>sidual movement)<br/>
-     * 4. Send movement data to the world object for processing into actual rendered effects
+     * 4. Add the frame time to the simulation clock, and update the world once for every whole <br/>
+     * tick owed, with the same movement data each time. The world always advances in ticks of <br/>
+     * <code>SIMULATION_TICK_LENGTH</code>, whatever the frame rate<br/>
+     * 5. F3 shows or hides the frame profiler's overlay (see <code>FrameProfiler</code>)
      * </div><br/>
      * 
      * @param gc The Slick game container object.
@@ -60,6 +80,8 @@ public class RPG extends BasicGame {
     @Override
     public void update(GameContainer gc, int delta) throws SlickException {
     	
+    	this.frameStart = FrameProfiler.start();
+    	
         Input input = gc.getInput();
 
         float dir_x = 0;
@@ -91,18 +113,31 @@ public class RPG extends BasicGame {
         
         if(input.isKeyDown(Input.KEY_2))
         	gc.setTargetFrameRate(10);
+        
+        if(input.isKeyPressed(Input.KEY_F3)) {
+        	FrameProfiler.setOverlayShown(!FrameProfiler.isOverlayShown());
+        	this.frameStart = FrameProfiler.start();
+        }
+        
+        FrameProfiler.stop(ProfilePhase.INPUT, this.frameStart);
 
-        world.update(dir_x, dir_y, delta);
+        int ticks = clock.advance(delta);
+        for(int i = 0; i < ticks; i++) {
+        	world.update(dir_x, dir_y, clock.getTickLength());
+        }
     }
 
     
-    /** Render the entire screen by delegating to the World object.
+    /** Render the entire screen by delegating to the world's renderer.
      * 
      * @param gc The Slick game container object.
      * @param g The Slick graphics object, used for drawing.
      */
     public void render(GameContainer gc, Graphics g) throws SlickException {
-        world.render(g);
+        renderer.render(g, world, clock.getAlpha());
+        
+        FrameProfiler.stop(ProfilePhase.FRAME, this.frameStart);
+        FrameProfiler.endFrame();
     }
 
     
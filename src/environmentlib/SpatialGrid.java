@@ -0,0 +1,269 @@
+package environmentlib;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A uniform grid index over the map, used to find the units or items near a point without<br/>
+ * visiting everything in the world.<br/><br/>
+ *
+ * The map is divided into equally sized cells (normally one per tile) and every object is filed<br/>
+ * under the cell containing its position. Objects are added with <code>insert</code> and must be<br/>
+ * re-filed with <code>update</code> whenever they move; an update that stays inside the same cell<br/>
+ * only records the new position. Queries visit just the cells overlapping the query area and then<br/>
+ * test the exact position of each object found there.<br/><br/>
+ *
+ * Positions outside the map are filed under the nearest edge cell, so every object can be found.
+ *
+ * @param <T> The type of object stored in the grid
+ */
+public class SpatialGrid<T> {
+
+	/**
+	 * The grid's record of a single stored object
+	 */
+	private static class Entry<T> {
+		private T item;
+		private float x;
+		private float y;
+		private int cell;
+	}
+
+	/**Number of cells across the grid*/
+	private final int columns;
+	/**Number of cells down the grid*/
+	private final int rows;
+	/**Width of a cell in pixels*/
+	private final float cellWidth;
+	/**Height of a cell in pixels*/
+	private final float cellHeight;
+	/**The objects filed under each cell, indexed by <code>row * columns + column</code>*/
+	private final ArrayList<ArrayList<Entry<T>>> cells;
+	/**Lookup from a stored object to its record*/
+	private final IdentityHashMap<T, Entry<T>> entries;
+	/**Records of removed objects, kept to be reused so that putting an object back allocates nothing*/
+	private final ArrayList<Entry<T>> spareEntries;
+
+	/**
+	 * Creates an empty grid covering a map<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> all arguments are positive<br/>
+	 * <strong>Postcondition:</strong> An empty grid of <code>columns</code> x <code>rows</code> cells is created<br/><br/>
+	 *
+	 * @param columns Number of cells across the grid
+	 * @param rows Number of cells down the grid
+	 * @param cellWidth Width of a cell in pixels
+	 * @param cellHeight Height of a cell in pixels
+	 */
+	public SpatialGrid(int columns, int rows, float cellWidth, float cellHeight) {
+		this.columns = columns;
+		this.rows = rows;
+		this.cellWidth = cellWidth;
+		this.cellHeight = cellHeight;
+		this.cells = new ArrayList<ArrayList<Entry<T>>>(columns * rows);
+		this.entries = new IdentityHashMap<T, Entry<T>>();
+		this.spareEntries = new ArrayList<Entry<T>>();
+
+		for(int i = 0; i < columns * rows; i++) {
+			this.cells.add(new ArrayList<Entry<T>>(2));
+		}
+	}
+
+	/**
+	 * Adds an object to the grid at a map position. Objects already in the grid are moved instead.
+	 *
+	 * @param item The object to add
+	 * @param x The object's map x-coordinate
+	 * @param y The object's map y-coordinate
+	 */
+	public void insert(T item, float x, float y) {
+		if(this.entries.containsKey(item)) {
+			this.update(item, x, y);
+			return;
+		}
+
+		Entry<T> entry = this.spareEntries.isEmpty() ? new Entry<T>() : this.spareEntries.remove(this.spareEntries.size() - 1);
+		entry.item = item;
+		entry.x = x;
+		entry.y = y;
+		entry.cell = this.cellIndex(x, y);
+		this.cells.get(entry.cell).add(entry);
+		this.entries.put(item, entry);
+	}
+
+	/**
+	 * Records a new map position for an object, moving it to another cell only if it has crossed<br/>
+	 * a cell boundary. Objects not in the grid are inserted.
+	 *
+	 * @param item The object that has moved
+	 * @param x The object's new map x-coordinate
+	 * @param y The object's new map y-coordinate
+	 */
+	public void update(T item, float x, float y) {
+		Entry<T> entry = this.entries.get(item);
+
+		if(entry == null) {
+			this.insert(item, x, y);
+			return;
+		}
+
+		entry.x = x;
+		entry.y = y;
+
+		int cell = this.cellIndex(x, y);
+		if(cell != entry.cell) {
+			this.removeFromCell(entry);
+			entry.cell = cell;
+			this.cells.get(cell).add(entry);
+		}
+	}
+
+	/**
+	 * Removes an object from the grid, if present
+	 *
+	 * @param item The object to remove
+	 */
+	public void remove(T item) {
+		Entry<T> entry = this.entries.remove(item);
+
+		if(entry != null) {
+			this.removeFromCell(entry);
+			entry.item = null;
+			this.spareEntries.add(entry);
+		}
+	}
+
+	/**
+	 * Removes every object from the grid
+	 */
+	public void clear() {
+		for(ArrayList<Entry<T>> cell : this.cells) {
+			for(Entry<T> entry : cell) {
+				entry.item = null;
+				this.spareEntries.add(entry);
+			}
+			cell.clear();
+		}
+		this.entries.clear();
+	}
+
+	/**
+	 * Finds every object whose position lies inside a box (edges included)<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>left &lt;= right</code> and <code>top &lt;= bottom</code><br/>
+	 * <strong>Postcondition:</strong> The objects found are appended to <code>out</code><br/><br/>
+	 *
+	 * @param left Map x-coordinate of the left edge of the box
+	 * @param top Map y-coordinate of the top edge of the box
+	 * @param right Map x-coordinate of the right edge of the box
+	 * @param bottom Map y-coordinate of the bottom edge of the box
+	 * @param out The list to append the objects found to
+	 */
+	public void queryBox(float left, float top, float right, float bottom, List<T> out) {
+		int firstColumn = this.clampColumn(left);
+		int lastColumn = this.clampColumn(right);
+		int firstRow = this.clampRow(top);
+		int lastRow = this.clampRow(bottom);
+
+		for(int row = firstRow; row <= lastRow; row++) {
+			for(int column = firstColumn; column <= lastColumn; column++) {
+				ArrayList<Entry<T>> cell = this.cells.get(row * this.columns + column);
+
+				for(int i = 0; i < cell.size(); i++) {
+					Entry<T> entry = cell.get(i);
+					if(entry.x >= left && entry.x <= right && entry.y >= top && entry.y <= bottom) {
+						out.add(entry.item);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds every object whose position lies within a distance of a point (boundary included)<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>radius</code> is not negative<br/>
+	 * <strong>Postcondition:</strong> The objects found are appended to <code>out</code><br/><br/>
+	 *
+	 * @param x Map x-coordinate of the centre of the search
+	 * @param y Map y-coordinate of the centre of the search
+	 * @param radius The search distance in pixels
+	 * @param out The list to append the objects found to
+	 */
+	public void queryRadius(float x, float y, float radius, List<T> out) {
+		int firstColumn = this.clampColumn(x - radius);
+		int lastColumn = this.clampColumn(x + radius);
+		int firstRow = this.clampRow(y - radius);
+		int lastRow = this.clampRow(y + radius);
+		float radiusSquared = radius * radius;
+
+		for(int row = firstRow; row <= lastRow; row++) {
+			for(int column = firstColumn; column <= lastColumn; column++) {
+				ArrayList<Entry<T>> cell = this.cells.get(row * this.columns + column);
+
+				for(int i = 0; i < cell.size(); i++) {
+					Entry<T> entry = cell.get(i);
+					float dx = entry.x - x;
+					float dy = entry.y - y;
+					if(dx * dx + dy * dy <= radiusSquared) {
+						out.add(entry.item);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks whether an object is stored in the grid
+	 */
+	public boolean contains(T item) {
+		return this.entries.containsKey(item);
+	}
+
+	/**
+	 * Gets the number of objects stored in the grid
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Removes an entry from the cell it is filed under, by swapping it with the last entry of the cell
+	 */
+	private void removeFromCell(Entry<T> entry) {
+		ArrayList<Entry<T>> cell = this.cells.get(entry.cell);
+		int last = cell.size() - 1;
+
+		for(int i = 0; i <= last; i++) {
+			if(cell.get(i) == entry) {
+				cell.set(i, cell.get(last));
+				cell.remove(last);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Gets the index of the cell containing a map position
+	 */
+	private int cellIndex(float x, float y) {
+		return this.clampRow(y) * this.columns + this.clampColumn(x);
+	}
+
+	/**
+	 * Gets the column containing a map x-coordinate, clamped to the grid
+	 */
+	private int clampColumn(float x) {
+		int column = (int)Math.floor(x / this.cellWidth);
+		return Math.max(0, Math.min(this.columns - 1, column));
+	}
+
+	/**
+	 * Gets the row containing a map y-coordinate, clamped to the grid
+	 */
+	private int clampRow(float y) {
+		int row = (int)Math.floor(y / this.cellHeight);
+		return Math.max(0, Math.min(this.rows - 1, row));
+	}
+}
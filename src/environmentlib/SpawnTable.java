@@ -0,0 +1,548 @@
+package environmentlib;
+
+import static config.GlobalConfiguration.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import characterlib.UnitArchetype;
+import enginelib.EventLog;
+import enginelib.LogLevel;
+import itemlib.ItemArchetype;
+
+/**
+ * The kinds of unit and item in the world, and where each one is placed when the world is <br/>
+ * created.<br/><br/>
+ *
+ * The table is written as text (see base/scripting/spawns.txt for the format) and compiled the <br/>
+ * first time it is read into a binary cache next to it, which later loads read instead until the <br/>
+ * text changes. Archetypes are kept once each; a spawn is only an archetype number, a position <br/>
+ * and the items that hold it back, held in parallel arrays.
+ */
+public final class SpawnTable {
+
+	/**Value of a spawn's condition when it has none*/
+	public static final int NO_ITEM = -1;
+
+	/**First bytes of a cache file*/
+	private static final int MAGIC = 0x45535054;
+	/**Format of the cache; caches of any other version are rebuilt*/
+	private static final int VERSION = 2;
+	private static final int FLAG_BOSS = 1;
+	private static final int FLAG_ELVIRA = 2;
+	/**Names of the item identification numbers, indexed by number*/
+	private static final String[] ITEM_IDS = new String[4];
+
+	static {
+		ITEM_IDS[SWORD] = "SWORD";
+		ITEM_IDS[ELIXIR] = "ELIXIR";
+		ITEM_IDS[BOOK] = "BOOK";
+		ITEM_IDS[AMULET] = "AMULET";
+	}
+
+	private final UnitArchetype[] units;
+	private final ItemArchetype[] items;
+
+	/**Index into <code>units</code> of each unit spawn*/
+	private final short[] spawnUnit;
+	private final float[] spawnX;
+	private final float[] spawnY;
+	/**Identification number of the item that stops each unit spawning, or NO_ITEM*/
+	private final byte[] spawnUnless;
+	/**Identification number of the item each unit waits for the player to bring Elvira, or NO_ITEM*/
+	private final byte[] spawnAfter;
+
+	/**Index into <code>items</code> of each item placement*/
+	private final short[] placeItem;
+	private final float[] placeX;
+	private final float[] placeY;
+	/**Identification number of the item that stops each item being placed, or NO_ITEM*/
+	private final byte[] placeUnless;
+	/**Identification number of the item each item waits for the player to bring Elvira, or NO_ITEM*/
+	private final byte[] placeAfter;
+
+	private SpawnTable(UnitArchetype[] units, ItemArchetype[] items, int spawns, int places) {
+		this.units = units;
+		this.items = items;
+		this.spawnUnit = new short[spawns];
+		this.spawnX = new float[spawns];
+		this.spawnY = new float[spawns];
+		this.spawnUnless = new byte[spawns];
+		this.spawnAfter = new byte[spawns];
+		this.placeItem = new short[places];
+		this.placeX = new float[places];
+		this.placeY = new float[places];
+		this.placeUnless = new byte[places];
+		this.placeAfter = new byte[places];
+	}
+
+	/**
+	 * Loads a spawn table, from its cache if the cache is newer than the text and otherwise from <br/>
+	 * the text, which is then compiled into the cache<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>path</code> is a readable spawn table, or <code>cachePath</code> a readable cache<br/>
+	 * <strong>Postcondition:</strong> The table is returned; the cache is written if it was out of date <br/>
+	 * (failing to write it is logged, not thrown)<br/><br/>
+	 *
+	 * @param path Path of the text file
+	 * @param cachePath Path of the binary cache
+	 * @return The spawn table
+	 * @throws IOException The text can't be read or has a mistake in it
+	 */
+	public static SpawnTable load(String path, String cachePath) throws IOException {
+		File source = new File(path);
+		File cache = new File(cachePath);
+
+		if(cache.isFile() && (!source.exists() || cache.lastModified() > source.lastModified())) {
+			try {
+				return read(cache);
+			}
+			catch(IOException e) {
+				EventLog.log(LogLevel.WARN, "SpawnTable", "ignoring " + cachePath + ": " + e);
+			}
+		}
+
+		SpawnTable table = parse(source);
+		try {
+			table.write(cache);
+		}
+		catch(IOException e) {
+			EventLog.log(LogLevel.WARN, "SpawnTable", "can't write " + cachePath + ": " + e);
+		}
+		return table;
+	}
+
+	/**
+	 * Reads a spawn table from its text
+	 *
+	 * @throws IOException The file can't be read, or a line of it is wrong
+	 */
+	public static SpawnTable parse(File source) throws IOException {
+		ArrayList<UnitArchetype> units = new ArrayList<UnitArchetype>();
+		ArrayList<ItemArchetype> items = new ArrayList<ItemArchetype>();
+		HashMap<String, Integer> unitIndex = new HashMap<String, Integer>();
+		HashMap<String, Integer> itemIndex = new HashMap<String, Integer>();
+		//each spawn and placement is {archetype, x, y, unless, after}
+		ArrayList<int[]> spawns = new ArrayList<int[]>();
+		ArrayList<int[]> places = new ArrayList<int[]>();
+
+		BufferedReader in = new BufferedReader(new FileReader(source));
+		try {
+			String line;
+			int lineNumber = 0;
+			while((line = in.readLine()) != null) {
+				lineNumber++;
+				int comment = line.indexOf('#');
+				if(comment >= 0) {
+					line = line.substring(0, comment);
+				}
+				line = line.trim();
+				if(line.isEmpty()) {
+					continue;
+				}
+
+				String[] fields = line.split("\\s+");
+				try {
+					if(fields[0].equals("unit")) {
+						UnitArchetype unit = parseUnit(fields);
+						if(unitIndex.put(unit.getName(), units.size()) != null) {
+							throw new IOException("unit " + unit.getName() + " is defined twice");
+						}
+						units.add(unit);
+					}
+					else if(fields[0].equals("item")) {
+						ItemArchetype item = parseItem(fields);
+						if(itemIndex.put(item.getName(), items.size()) != null) {
+							throw new IOException("item " + item.getName() + " is defined twice");
+						}
+						items.add(item);
+					}
+					else if(fields[0].equals("spawn")) {
+						spawns.add(parsePlacement(fields, unitIndex));
+					}
+					else if(fields[0].equals("place")) {
+						places.add(parsePlacement(fields, itemIndex));
+					}
+					else {
+						throw new IOException("unknown entry " + fields[0]);
+					}
+				}
+				catch(IOException e) {
+					throw new IOException(source.getPath() + ":" + lineNumber + ": " + e.getMessage());
+				}
+				catch(NumberFormatException e) {
+					throw new IOException(source.getPath() + ":" + lineNumber + ": bad number " + e.getMessage());
+				}
+			}
+		}
+		finally {
+			in.close();
+		}
+
+		for(UnitArchetype unit : units) {
+			if(unit.getDrop() != null && !itemIndex.containsKey(unit.getDrop())) {
+				throw new IOException(source.getPath() + ": unit " + unit.getName() + " drops unknown item " + unit.getDrop());
+			}
+		}
+
+		SpawnTable table = new SpawnTable(units.toArray(new UnitArchetype[units.size()]),
+				items.toArray(new ItemArchetype[items.size()]), spawns.size(), places.size());
+		for(int i = 0; i < spawns.size(); i++) {
+			int[] spawn = spawns.get(i);
+			table.spawnUnit[i] = (short)spawn[0];
+			table.spawnX[i] = spawn[1];
+			table.spawnY[i] = spawn[2];
+			table.spawnUnless[i] = (byte)spawn[3];
+			table.spawnAfter[i] = (byte)spawn[4];
+		}
+		for(int i = 0; i < places.size(); i++) {
+			int[] place = places.get(i);
+			table.placeItem[i] = (short)place[0];
+			table.placeX[i] = place[1];
+			table.placeY[i] = place[2];
+			table.placeUnless[i] = (byte)place[3];
+			table.placeAfter[i] = (byte)place[4];
+		}
+		return table;
+	}
+
+	/**
+	 * Reads a "unit" line
+	 */
+	private static UnitArchetype parseUnit(String[] fields) throws IOException {
+		if(fields.length < 4) {
+			throw new IOException("unit needs a name, kind and sprite");
+		}
+
+		UnitArchetype.Kind kind;
+		try {
+			kind = UnitArchetype.Kind.valueOf(fields[2].toUpperCase());
+		}
+		catch(IllegalArgumentException e) {
+			throw new IOException("unknown unit kind " + fields[2]);
+		}
+
+		int next = 4;
+		int[] stats = {INITIAL_HEALTH, INITIAL_SPEED, INITIAL_ARMOR, INITIAL_ATTACK};
+		if(kind != UnitArchetype.Kind.VILLAGER) {
+			if(fields.length < 8) {
+				throw new IOException("unit needs a health, speed, armor and attack");
+			}
+			for(int i = 0; i < stats.length; i++) {
+				stats[i] = Integer.parseInt(fields[next++]);
+			}
+		}
+
+		boolean boss = false;
+		boolean elvira = false;
+		String drop = null;
+		while(next < fields.length) {
+			String option = fields[next++];
+			if(option.equals("boss")) {
+				boss = true;
+			}
+			else if(option.equals("elvira")) {
+				elvira = true;
+			}
+			else if(option.equals("drops") && next < fields.length) {
+				drop = fields[next++];
+			}
+			else {
+				throw new IOException("unknown unit option " + option);
+			}
+		}
+
+		return new UnitArchetype(fields[1], kind, fields[3], stats[0], stats[1], stats[2], stats[3], boss, elvira, drop);
+	}
+
+	/**
+	 * Reads an "item" line
+	 */
+	private static ItemArchetype parseItem(String[] fields) throws IOException {
+		if(fields.length < 9) {
+			throw new IOException("item needs a name, id, sprite, health, speed, armor, attack and display name");
+		}
+
+		StringBuilder displayName = new StringBuilder(fields[8]);
+		for(int i = 9; i < fields.length; i++) {
+			displayName.append(' ').append(fields[i]);
+		}
+
+		return new ItemArchetype(fields[1], displayName.toString(), fields[3], parseItemID(fields[2]),
+				Integer.parseInt(fields[4]), Integer.parseInt(fields[5]), Integer.parseInt(fields[6]), Integer.parseInt(fields[7]));
+	}
+
+	/**
+	 * Reads a "spawn" or "place" line
+	 *
+	 * @param names The archetypes defined so far, by name
+	 * @return {archetype, x, y, unless, after}
+	 */
+	private static int[] parsePlacement(String[] fields, HashMap<String, Integer> names) throws IOException {
+		if(fields.length != 4 && !(fields.length == 6 && (fields[4].equals("unless") || fields[4].equals("after")))) {
+			throw new IOException(fields[0] + " needs a name, x and y, and optionally \"unless\" or \"after\" and an item id");
+		}
+
+		Integer archetype = names.get(fields[1]);
+		if(archetype == null) {
+			throw new IOException(fields[1] + " isn't defined above");
+		}
+
+		int unless = NO_ITEM;
+		int after = NO_ITEM;
+		if(fields.length == 6 && fields[4].equals("unless")) {
+			unless = parseItemID(fields[5]);
+		}
+		else if(fields.length == 6) {
+			after = parseItemID(fields[5]);
+		}
+		return new int[] {archetype, Integer.parseInt(fields[2]), Integer.parseInt(fields[3]), unless, after};
+	}
+
+	/**
+	 * Reads an item identification number, given by name or number
+	 */
+	private static int parseItemID(String field) throws IOException {
+		for(int id = 0; id < ITEM_IDS.length; id++) {
+			if(ITEM_IDS[id].equals(field)) {
+				return id;
+			}
+		}
+		try {
+			return Integer.parseInt(field);
+		}
+		catch(NumberFormatException e) {
+			throw new IOException("unknown item id " + field);
+		}
+	}
+
+	/**
+	 * Reads a spawn table from its binary cache
+	 *
+	 * @throws IOException The file can't be read, or isn't a cache of this version
+	 */
+	public static SpawnTable read(File cache) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cache)));
+		try {
+			if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("not a spawn table cache of version " + VERSION);
+			}
+
+			UnitArchetype[] units = new UnitArchetype[in.readShort()];
+			UnitArchetype.Kind[] kinds = UnitArchetype.Kind.values();
+			for(int i = 0; i < units.length; i++) {
+				String name = in.readUTF();
+				UnitArchetype.Kind kind = kinds[in.readByte()];
+				String sprite = in.readUTF();
+				int health = in.readInt();
+				int speed = in.readInt();
+				int armor = in.readInt();
+				int attack = in.readInt();
+				int flags = in.readByte();
+				String drop = in.readUTF();
+				units[i] = new UnitArchetype(name, kind, sprite, health, speed, armor, attack,
+						(flags & FLAG_BOSS) != 0, (flags & FLAG_ELVIRA) != 0, drop.isEmpty() ? null : drop);
+			}
+
+			ItemArchetype[] items = new ItemArchetype[in.readShort()];
+			for(int i = 0; i < items.length; i++) {
+				String name = in.readUTF();
+				String displayName = in.readUTF();
+				String sprite = in.readUTF();
+				int id = in.readInt();
+				items[i] = new ItemArchetype(name, displayName, sprite, id, in.readInt(), in.readInt(), in.readInt(), in.readInt());
+			}
+
+			SpawnTable table = new SpawnTable(units, items, in.readInt(), in.readInt());
+			for(int i = 0; i < table.spawnUnit.length; i++) {
+				table.spawnUnit[i] = in.readShort();
+				table.spawnX[i] = in.readFloat();
+				table.spawnY[i] = in.readFloat();
+				table.spawnUnless[i] = in.readByte();
+				table.spawnAfter[i] = in.readByte();
+			}
+			for(int i = 0; i < table.placeItem.length; i++) {
+				table.placeItem[i] = in.readShort();
+				table.placeX[i] = in.readFloat();
+				table.placeY[i] = in.readFloat();
+				table.placeUnless[i] = in.readByte();
+				table.placeAfter[i] = in.readByte();
+			}
+			return table;
+		}
+		catch(ArrayIndexOutOfBoundsException | NegativeArraySizeException e) {
+			throw new IOException("corrupt spawn table cache");
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Writes the table to a binary cache
+	 *
+	 * @throws IOException The file can't be written
+	 */
+	public void write(File cache) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cache)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+
+			out.writeShort(this.units.length);
+			for(UnitArchetype unit : this.units) {
+				out.writeUTF(unit.getName());
+				out.writeByte(unit.getKind().ordinal());
+				out.writeUTF(unit.getSpriteName());
+				out.writeInt(unit.getHealth());
+				out.writeInt(unit.getSpeed());
+				out.writeInt(unit.getArmor());
+				out.writeInt(unit.getAttack());
+				out.writeByte((unit.isBoss() ? FLAG_BOSS : 0) | (unit.isElvira() ? FLAG_ELVIRA : 0));
+				out.writeUTF(unit.getDrop() == null ? "" : unit.getDrop());
+			}
+
+			out.writeShort(this.items.length);
+			for(ItemArchetype item : this.items) {
+				out.writeUTF(item.getName());
+				out.writeUTF(item.getDisplayName());
+				out.writeUTF(item.getSpriteName());
+				out.writeInt(item.getID());
+				out.writeInt(item.getHealth());
+				out.writeInt(item.getSpeed());
+				out.writeInt(item.getArmor());
+				out.writeInt(item.getAttack());
+			}
+
+			out.writeInt(this.spawnUnit.length);
+			out.writeInt(this.placeItem.length);
+			for(int i = 0; i < this.spawnUnit.length; i++) {
+				out.writeShort(this.spawnUnit[i]);
+				out.writeFloat(this.spawnX[i]);
+				out.writeFloat(this.spawnY[i]);
+				out.writeByte(this.spawnUnless[i]);
+				out.writeByte(this.spawnAfter[i]);
+			}
+			for(int i = 0; i < this.placeItem.length; i++) {
+				out.writeShort(this.placeItem[i]);
+				out.writeFloat(this.placeX[i]);
+				out.writeFloat(this.placeY[i]);
+				out.writeByte(this.placeUnless[i]);
+				out.writeByte(this.placeAfter[i]);
+			}
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Finds a kind of unit by name
+	 *
+	 * @return The archetype, or null if there is none by that name
+	 */
+	public UnitArchetype findUnit(String name) {
+		for(UnitArchetype unit : this.units) {
+			if(unit.getName().equals(name)) {
+				return unit;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finds a kind of item by name
+	 *
+	 * @return The item type, or null if there is none by that name
+	 */
+	public ItemArchetype findItem(String name) {
+		for(ItemArchetype item : this.items) {
+			if(item.getName().equals(name)) {
+				return item;
+			}
+		}
+		return null;
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Gets the number of units placed on the map
+	 */
+	public int getSpawnCount() {
+		return spawnUnit.length;
+	}
+
+	public UnitArchetype getSpawnUnit(int index) {
+		return units[spawnUnit[index]];
+	}
+
+	public float getSpawnX(int index) {
+		return spawnX[index];
+	}
+
+	public float getSpawnY(int index) {
+		return spawnY[index];
+	}
+
+	/**
+	 * Gets the identification number of the item that stops a unit spawning if the player holds <br/>
+	 * it, or NO_ITEM
+	 */
+	public int getSpawnUnless(int index) {
+		return spawnUnless[index];
+	}
+
+	/**
+	 * Gets the identification number of the item the player must bring Elvira before a unit <br/>
+	 * spawns, or NO_ITEM if it spawns when the world is created
+	 */
+	public int getSpawnAfter(int index) {
+		return spawnAfter[index];
+	}
+
+	/**
+	 * Gets the number of items placed on the map
+	 */
+	public int getPlacementCount() {
+		return placeItem.length;
+	}
+
+	public ItemArchetype getPlacementItem(int index) {
+		return items[placeItem[index]];
+	}
+
+	public float getPlacementX(int index) {
+		return placeX[index];
+	}
+
+	public float getPlacementY(int index) {
+		return placeY[index];
+	}
+
+	/**
+	 * Gets the identification number of the item that stops an item being placed if the player <br/>
+	 * holds it, or NO_ITEM
+	 */
+	public int getPlacementUnless(int index) {
+		return placeUnless[index];
+	}
+
+	/**
+	 * Gets the identification number of the item the player must bring Elvira before an item is <br/>
+	 * placed, or NO_ITEM if it is placed when the world is created
+	 */
+	public int getPlacementAfter(int index) {
+		return placeAfter[index];
+	}
+}
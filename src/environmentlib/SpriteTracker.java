@@ -0,0 +1,21 @@
+package environmentlib;
+
+/**
+ * Receives notice of the sprites that units and items in the world start and stop using.<br/><br/>
+ * 
+ * The world itself never loads an image. A renderer that caches images implements this <br/>
+ * interface to count how many units share each sprite, so an image is decoded once however <br/>
+ * many units use it, and can be freed once none do.
+ */
+public interface SpriteTracker {
+	
+	/**
+	 * Called when a unit or item using the sprite at <code>path</code> enters the world
+	 */
+	void acquire(String path);
+	
+	/**
+	 * Called when a unit or item using the sprite at <code>path</code> leaves the world
+	 */
+	void release(String path);
+}
@@ -6,29 +6,65 @@
 package environmentlib;
 
 import characterlib.*;
+import java.io.IOException;
 import java.util.*;
 import itemlib.Item;
-import org.newdawn.slick.Graphics;
-import org.newdawn.slick.Image;
-import org.newdawn.slick.SlickException;
-import org.newdawn.slick.tiled.TiledMap;
-import org.newdawn.slick.Color;
+import itemlib.ItemArchetype;
+import maplib.CollisionMap;
+import maplib.CollisionResolver;
+import maplib.FlowField;
+import maplib.GridPathfinder;
+import maplib.TileMapData;
+import enginelib.EventLog;
+import enginelib.FrameProfiler;
+import enginelib.LogLevel;
+import enginelib.ProfilePhase;
+import enginelib.RandomService;
+import enginelib.RespawnEvent;
+import enginelib.ScrollEvent;
+import enginelib.TickPhaseEvent;
+import enginelib.TimerWheel;
+import wrapperlib.CoordinatePoint;
 import static config.GlobalConfiguration.*;
 
 
 /** 
  * Represents the entire game world.
- * (Designed to be instantiated just once for the whole game).
+ * (Designed to be instantiated just once for the whole game).<br/><br/>
+ * 
+ * The world only holds the simulation: the map data, the units and items, and the rules <br/>
+ * applied to them each frame. It has no dependency on Slick, so it can be ticked without a <br/>
+ * display (see <code>HeadlessRunner</code>). Drawing it is the job of <code>renderlib.WorldRenderer</code>.
  */
 public class World {
+	/*KINDS OF TIMER, one of each per character (timer number = registry index * TIMER_KINDS + kind)*/
+	/**Wakes a sleeping unit*/
+	private static final int TIMER_WAKE = 0;
+	/**Ends a character's attack cooldown*/
+	private static final int TIMER_COOLDOWN = 1;
+	private static final int TIMER_KINDS = 2;
+	
 	
 	/*INSTANCE VARIABLES*/
-	/**Land tilemap for the background*/
-	private TiledMap land;
-	/**Current x-coordinate of the "camera"*/
-	private int cameraXPosition;
-	/**Current y-coordinate of the "camera"*/
-	private int cameraYPosition;
+	/**Tile data of the map the world takes place on*/
+	private TileMapData land;
+	/**Blocking grid for <code>land</code>, built once when the map is loaded*/
+	private CollisionMap collisionMap;
+	/**Resolves player and NPC movement against <code>collisionMap</code>*/
+	private CollisionResolver collider;
+	/**Finds paths across <code>collisionMap</code> for enemies that have no flow field. It isn't thread safe, but every enemy <br/>
+	 * the world adds follows <code>flowField</code>, which is only read while the AI runs*/
+	private GridPathfinder pathfinder;
+	/**Distances to the player's tile, followed by every chasing enemy*/
+	private FlowField flowField;
+	/**Chooses which NPCs are close enough to the view to be updated each tick*/
+	private AIScheduler scheduler;
+	/**Moves the NPCs each tick, spread across threads when there are enough of them*/
+	private AIStage ai;
+	/**Source of every random number stream in the world*/
+	private RandomService randomService;
+	/**The viewport onto the map; everything else is stored in map coordinates*/
+	private Camera camera;
 	/**If true, the player cannot move in the Northern direction*/
 	private Boolean cameraFreezeNorth;
 	/**If true, the player cannot move in the Southern direction*/
@@ -45,7 +81,47 @@ public class World {
 	private ArrayList<Villager> villagerList;
 	/**List of characters that currently exist in the world*/
 	private ArrayList<Item> itemList;
-	private Image panel;
+	/**The items the player has picked up, in the order they were picked up*/
+	private ArrayList<Item> heldItems;
+	/**State of the player and every unit, held in dense arrays that the characters are views onto*/
+	private EntityStore entities;
+	/**State of the world's units that are out of it: those not yet spawned, and dead ones that <br/>
+	 * resetMap may bring back, so that units move between the two stores without allocating*/
+	private EntityStore outside;
+	/**Hands out the handles of the player and every unit in the world*/
+	private EntityRegistry registry;
+	/**The kinds of unit and item, and where they start*/
+	private SpawnTable spawnTable;
+	/**The state of every unit the world started with, put back by <code>resetMap</code>*/
+	private EntitySnapshot spawnState;
+	/**Units spawned since the world was created, which resetMap removes*/
+	private ArrayList<NPC> addedUnits;
+	/**Number of items the world started with; later ones not yet picked up are removed by resetMap*/
+	private int spawnItemCount;
+	/**Units added during the current tick, which enter the world at the end of it*/
+	private ArrayList<NPC> pendingSpawns;
+	/**Units that died during the current tick, which leave the world at the end of it*/
+	private ArrayList<NPC> pendingDespawns;
+	/**True while a tick is being run, so that units added are held back until it ends*/
+	private boolean updating;
+	/**Told about units spawning, dying and despawning*/
+	private ArrayList<LifecycleListener> lifecycleListeners;
+	/**Spatial index of the living NPCs (villagers, enemies and passive enemies)*/
+	private SpatialGrid<NPC> unitGrid;
+	/**Spatial index of the items lying on the map (not held by the player)*/
+	private SpatialGrid<Item> itemGrid;
+	/**NPCs close enough to the player this frame to need the awareness checks*/
+	private ArrayList<NPC> nearbyUnits;
+	/**Items close enough to the player this frame to be picked up*/
+	private ArrayList<Item> nearbyItems;
+	/**Wake-ups of sleeping units and the attack cooldowns of every character, by tick*/
+	private TimerWheel timers;
+	/**Number of ticks run so far*/
+	private long tick;
+	/**Told about the sprites units and items start and stop using, or null when nothing is drawn*/
+	private SpriteTracker spriteTracker;
+	/**The last thing Elvira said to the player, or null if the player has left her since*/
+	private String elviraLine;
 	
 	private Boolean endGame;
 	
@@ -53,12 +129,8 @@ public class World {
 	
 	/**The player object*/
 	private Player player1;
-	/**The value to pad the bounding collision box of the player in by*/
-	private int padding;
-	/**The X tile grid location to start drawing the map (from the top left)*/
-	private int horizontalTileDrawLocation;
-	/**The Y tile grid location to start drawing the map (from the top left)*/
-	private int verticalTileDrawLocation;
+	/**The player's map position as seen by NPCs, updated once the player has moved each frame*/
+	private CoordinatePoint playerPosition;
 	
 	
 	
@@ -66,37 +138,69 @@ public class World {
 	/**
 	 * Default World constructor
 	 * 
-	 * <strong>Precondition:</strong> <code>land</code> and <code>player1</code> are both objects of the <code>TiledMap</code> and <code>Player</code> classes respectively
+	 * <strong>Precondition:</strong> <code>DEFAULT_TILE_MAP</code> is a readable Tiled map
 	 * <strong>Postcondition:</strong> A new default tilemap is assigned; 
 	 * 	camera x and y positions are set to their defaults;
 	 * 	camera freeze variables all set to false;
-	 *  padding is set to zero value;
 	 * 
 	 * 
-	 * @throws SlickException TiledMap fails to initialise
+	 * @throws IOException The tile map fails to load
 	 */
-    public World() throws SlickException {
-        this.land = new TiledMap(DEFAULT_TILE_MAP, DEFAULT_TILESET_FOLDER);
-        this.player1 = new Player("playerR.png", PLAYER_START_POS_X, PLAYER_START_POS_Y);
+    public World() throws IOException {
+    	this(DEFAULT_RANDOM_SEED);
+    }
+    
+    /**
+     * Creates the world with a chosen random seed. Two worlds with the same seed, given the <br/>
+     * same input, play out identically.
+     * 
+     * @param seed The seed every random number stream in the world is derived from
+     * @throws IOException The tile map or spawn table fails to load
+     */
+    public World(long seed) throws IOException {
+    	this.randomService = new RandomService(seed);
+        this.land = TileMapData.load(DEFAULT_TILE_MAP);
+        this.spawnTable = SpawnTable.load(SPAWN_TABLE, SPAWN_TABLE_CACHE);
+        this.collisionMap = CollisionMap.fromTileMap(this.land);
+        this.collider = new CollisionResolver(this.collisionMap);
+        this.pathfinder = new GridPathfinder(this.collisionMap);
+        this.flowField = new FlowField(this.collisionMap, FLOW_FIELD_RANGE);
+        this.scheduler = new AIScheduler();
+        this.ai = new AIStage(AI_THREADS);
+        this.entities = new EntityStore();
+        this.outside = new EntityStore();
+        this.registry = new EntityRegistry();
+        this.player1 = new Player(this.entities, "playerR.png", PLAYER_SPAWN_X, PLAYER_SPAWN_Y);
+        this.player1.setRandom(this.randomService.newStream());
+        this.registry.register(this.player1);
+        this.playerPosition = new CoordinatePoint(PLAYER_SPAWN_X, PLAYER_SPAWN_Y);
+        this.camera = new Camera(this.land.getTileWidth(), this.land.getTileHeight());
         
         this.enemyList = new ArrayList<Enemy>();
         this.passiveEnemyList = new ArrayList<PassiveEnemy>();
         this.villagerList = new ArrayList<Villager>();
         this.itemList = new ArrayList<Item>();
+        this.heldItems = new ArrayList<Item>();
+        this.unitGrid = new SpatialGrid<NPC>(this.collisionMap.getWidth(), this.collisionMap.getHeight(), 
+        		this.collisionMap.getTileWidth(), this.collisionMap.getTileHeight());
+        this.itemGrid = new SpatialGrid<Item>(this.collisionMap.getWidth(), this.collisionMap.getHeight(), 
+        		this.collisionMap.getTileWidth(), this.collisionMap.getTileHeight());
+        this.nearbyUnits = new ArrayList<NPC>();
+        this.nearbyItems = new ArrayList<Item>();
+        this.addedUnits = new ArrayList<NPC>();
+        this.pendingSpawns = new ArrayList<NPC>();
+        this.pendingDespawns = new ArrayList<NPC>();
+        this.lifecycleListeners = new ArrayList<LifecycleListener>();
+        this.updating = false;
+        //room for the timers of the player and every unit in the spawn table, so it needn't grow as they are added
+        this.timers = new TimerWheel(0, (1 + this.spawnTable.getSpawnCount()) * TIMER_KINDS);
+        this.tick = 0;
 
         this.addAllUnits();
-        
-        this.cameraXPosition = CAMERA_START_POS_X;
-        this.cameraYPosition = CAMERA_START_POS_Y;
+        this.saveSpawnState();
         
         this.endGame = false;
-        
-        this.horizontalTileDrawLocation = INITIAL_TILE_X;
-        this.verticalTileDrawLocation = INITIAL_TILE_Y;
-        
-        this.padding = NIL;
-        
-        this.panel = new Image(DATA_FOLDER + "panel.png");
+        this.elviraLine = null;
         
         this.cameraFreezeNorth = 
         	this.cameraFreezeSouth = 
@@ -105,119 +209,114 @@ public class World {
     }
 
     /** 
-     * Update the game state for a frame.
+     * Update the game state for one simulation tick.<br/><br/>
+     * 
+     * The game calls this with a fixed <code>delta</code> of <code>SIMULATION_TICK_LENGTH</code> <br/>
+     * (see <code>SimulationClock</code>), so that units move, collide and fight the same way <br/>
+     * at any frame rate.<br/><br/>
+     * 
+     * Units that die during the tick leave the world, and units added during it enter the world, <br/>
+     * at the end of the tick (see <code>LifecycleListener</code>).
      * 
      * @param dir_x The player's movement in the x axis (-1, 0 or 1).
      * @param dir_y The player's movement in the y axis (-1, 0 or 1).
-     * @param delta Time passed since last frame (milliseconds).
+     * @param delta Length of the tick (milliseconds).
      */
-    public void update(float dir_x, float dir_y, int delta) throws SlickException {
+    public void update(float dir_x, float dir_y, int delta) {
+    	
+    	long tickStart = FrameProfiler.start();
+    	long time = tickStart;
+    	TickPhaseEvent tickEvent = TickPhaseEvent.start();
+    	TickPhaseEvent phaseEvent = TickPhaseEvent.start();
+    	
+    	this.updating = true;
+    	this.tick++;
+    	this.runTimers();
+    	this.savePreviousPositions();
     	
     	float baseSpeed = SPEED_MULTIPLIER * delta;
     	
     	dir_y *= baseSpeed;
     	dir_x *= baseSpeed;
     	
-    	this.setPadding((int)baseSpeed);
-    	
    
     	this.movePlayer(dir_x, dir_y);
+    	time = FrameProfiler.lap(ProfilePhase.PLAYER, time);
+    	phaseEvent = TickPhaseEvent.lap(phaseEvent, ProfilePhase.PLAYER, 1);
 
-    	this.moveWorld((int)baseSpeed);
+    	this.moveWorld();
+    	time = FrameProfiler.lap(ProfilePhase.WORLD, time);
+    	phaseEvent = TickPhaseEvent.lap(phaseEvent, ProfilePhase.WORLD, 1);
     	
-    	for(Villager charac : villagerList) {
-        	charac.moveAtRandom(baseSpeed);
-        }
+    	this.updateFlowField();
+    	time = FrameProfiler.lap(ProfilePhase.FLOW_FIELD, time);
+    	phaseEvent = TickPhaseEvent.lap(phaseEvent, ProfilePhase.FLOW_FIELD, this.enemyList.size());
     	
-    	for(PassiveEnemy charac : passiveEnemyList) {
-    		if(!charac.getIsDead()) {
-    			charac.checkAwareOfPlayer(baseSpeed);
-	        	if(charac.getAttackPlayer()) {
-	        		this.player1.battle(charac);
-	        		this.player1.setSpeed(this.player1.getSpeed() - baseSpeed);
-	        	}
-	        	
-    		}
-        }
+    	this.findUnitsNearPlayer();
     	
-    	for(Enemy charac : enemyList) {
-    		if(!charac.getIsDead()) {
-	        	charac.moveAtRandom(baseSpeed);
-	        	if(charac.getAttackPlayer()) {
-	        		this.player1.battle(charac);
-	        		this.player1.setSpeed(this.player1.getSpeed() - baseSpeed);
-	        		charac.setSpeed(charac.getSpeed() - baseSpeed);
-	        		if(this.player1.getHealth() <= 0) {
-	        			this.resetMap();
-	        		}
-	        	}
-    		}
-        }
+    	//the units around the view move and decide what to do, possibly in parallel...
+    	this.scheduler.schedule(this.unitGrid, this.camera.getXPosition(), this.camera.getYPosition(), 
+    			this.findNumberOfTilesVisibleX() * this.land.getTileWidth(), 
+    			this.findNumberOfTilesVisibleY() * this.land.getTileHeight(), 
+    			this.land.getTileWidth());
+    	time = FrameProfiler.lap(ProfilePhase.SCHEDULE, time);
+    	phaseEvent = TickPhaseEvent.lap(phaseEvent, ProfilePhase.SCHEDULE, this.scheduler.getScheduledCount());
+    	this.ai.run(this.scheduler.getNearVillagers(), this.scheduler.getNearPassiveEnemies(), this.scheduler.getNearEnemies(), baseSpeed);
+    	this.ai.run(this.scheduler.getMidVillagers(), this.scheduler.getMidPassiveEnemies(), this.scheduler.getMidEnemies(), baseSpeed * LOD_MID_INTERVAL);
+    	time = FrameProfiler.lap(ProfilePhase.AI, time);
+    	phaseEvent = TickPhaseEvent.lap(phaseEvent, ProfilePhase.AI, this.scheduler.getScheduledCount());
     	
-    	for(Item item : itemList) {
-    		if(item.getXPosition() >= PLAYER_START_POS_X - this.land.getTileWidth() && 
-    				item.getXPosition() <= PLAYER_START_POS_X + this.land.getTileWidth() &&
-    				item.getYPosition() >= PLAYER_START_POS_Y - this.land.getTileHeight() && 
-    				item.getYPosition() <= PLAYER_START_POS_Y + this.land.getTileHeight()) {
-    			item.equip(this.player1);
-    		}
-        	
+    	//...then the results that affect other units or the player are applied in order
+    	this.commitVillagers(this.scheduler.getNearVillagers());
+    	this.commitVillagers(this.scheduler.getMidVillagers());
+    	this.commitPassiveEnemies(this.scheduler.getNearPassiveEnemies());
+    	this.commitPassiveEnemies(this.scheduler.getMidPassiveEnemies());
+    	if(this.commitEnemies(this.scheduler.getNearEnemies())) {
+    		this.commitEnemies(this.scheduler.getMidEnemies());
+    	}
+    	time = FrameProfiler.lap(ProfilePhase.COMBAT, time);
+    	phaseEvent = TickPhaseEvent.lap(phaseEvent, ProfilePhase.COMBAT, this.scheduler.getScheduledCount());
+    	
+    	this.nearbyItems.clear();
+    	this.itemGrid.queryBox(
+    			this.player1.getXPosition() - this.land.getTileWidth(), 
+    			this.player1.getYPosition() - this.land.getTileHeight(), 
+    			this.player1.getXPosition() + this.land.getTileWidth(), 
+    			this.player1.getYPosition() + this.land.getTileHeight(), 
+    			this.nearbyItems);
+    	
+    	for(Item item : nearbyItems) {
+    		item.equip(this.player1);
+    		this.itemGrid.remove(item);
+    		this.heldItems.add(item);
         }
     	
     	if(this.getEndGame() && !this.player1.getElixirNotHeld()) {
-    		this.addVillager(500, 300, "prince.png");
+    		this.addDeliveryUnits(ELIXIR);
     		this.player1.setElixirNotHeld(true);
     	}
+    	
+    	//units that died or were added this tick leave or enter the world, now nothing is looking at the lists
+    	this.updating = false;
+    	this.applyPendingChanges();
+    	FrameProfiler.stop(ProfilePhase.ITEMS, time);
+    	FrameProfiler.stop(ProfilePhase.TICK, tickStart);
+    	TickPhaseEvent.stop(phaseEvent, ProfilePhase.ITEMS, this.nearbyItems.size());
+    	TickPhaseEvent.stop(tickEvent, ProfilePhase.TICK, this.entities.size());
     	//System.out.println(this.player1.getMaxSpeed() + "    " + itemList.get(0).getSpeedLevel());
     	
     	
     }
 
-    /** 
-     * Render the entire screen, so it reflects the current game state.<br/><br/>
-     * 
-     * <strong>Precondition:</strong> <code>g</code> is a valid Graphics instance<br/>
-     * <strong>Postcondition:</strong> The state of the <code>land</code> object is updated;
-     * Every character in the list <code>characterList</code> is updated;
-     * <br/><br/>
-     * @param g The Slick graphics object, used for drawing.
+    /**
+     * Applies the results of the AI stage for villagers: updates their place in the spatial index, <br/>
+     * and lets Elvira heal the player or end the game. Elvira only speaks when what she has to say <br/>
+     * changes, rather than every tick the player stands near her.
      */
-    public void render(Graphics g) throws SlickException {
-        land.render(
-        		this.getCameraX(), 
-        		this.getCameraY(), 
-        			this.horizontalTileDrawLocation, 
-        			this.verticalTileDrawLocation, 
-        				this.findNumberOfTilesVisibleX(), 
-        				this.findNumberOfTilesVisibleY());
-        
-        this.player1.render(g, PLAYER_START_POS_X, PLAYER_START_POS_Y);
-        
-        
-        
-        for(Enemy charac : enemyList) {
-        	if(!charac.getIsDead()) {
-        		charac.render(g, charac.getXPosition(), charac.getYPosition());
-        	}
-        	else {
-        		if(charac.getIsBoss() && this.player1.getElixirNotHeld()) {
-        			this.addItem(charac.getXPosition(), charac.getYPosition(), "Elixir of Life", "elixir.png", 0, 0, 0, 0, ELIXIR);
-        		}
-        	}
-        }
-        
-        for(PassiveEnemy charac : passiveEnemyList) {
-        	if(!charac.getIsDead()) {
-        		charac.render(g, charac.getXPosition(), charac.getYPosition());
-        	}
-        }
-        
-        for(Item item : itemList) {
-        	item.render();
-        }
-        
-        for(Villager charac : villagerList) {
-        	charac.render(g, charac.getXPosition(), charac.getYPosition());
+    private void commitVillagers(List<Villager> villagers) {
+    	for(Villager charac : villagers) {
+        	this.unitGrid.update(charac, charac.getXPosition(), charac.getYPosition());
+        	this.putToSleep(charac);
         	
         	if(!player1.getElixirNotHeld() && charac.getIsElvira() && charac.getAwareOfPlayer() && !this.getEndGame()) {
         		
@@ -225,57 +324,412 @@ public class World {
         		
         	}
         	else if(charac.getIsElvira() && charac.getAwareOfPlayer() && this.player1.getHealth() == this.player1.getMaxHealth() && !this.getEndGame()) {
-        		System.out.println("Come see me if you are hurt!");
+        		this.elviraSays("Come see me if you are hurt!");
         	}
         	else if(charac.getIsElvira() && charac.getAwareOfPlayer() && !this.getEndGame()) {
-        		System.out.println("All healed up!");
+        		this.elviraSays("All healed up!");
         		this.player1.setHealth(this.player1.getMaxHealth());
         	}
         	else if(charac.getIsElvira() && charac.getAwareOfPlayer()) {
-        		System.out.println("Thank you! The prince is saved!!");
+        		this.elviraSays("Thank you! The prince is saved!!");
+        	}
+        	else if(charac.getIsElvira()) {
+        		this.elviraLine = null;
         	}
         }
-        
-        
-        //render inventory panel
-        this.renderPanel(g); 
-        
-        
     }
     
-
+    /**
+     * Logs a line of Elvira's, unless it is the last thing she said
+     */
+    private void elviraSays(String line) {
+    	if(!line.equals(this.elviraLine)) {
+    		EventLog.log(LogLevel.INFO, "Elvira", line);
+    		this.elviraLine = line;
+    	}
+    }
+    
+    /**
+     * Applies the results of the AI stage for passive enemies: updates their place in the spatial <br/>
+     * index, and lets the player attack those within range. Only living units are scheduled, so <br/>
+     * every unit here is alive until its battle.
+     */
+    private void commitPassiveEnemies(List<PassiveEnemy> passiveEnemies) {
+    	for(PassiveEnemy charac : passiveEnemies) {
+			this.unitGrid.update(charac, charac.getXPosition(), charac.getYPosition());
+			this.putToSleep(charac);
+        	if(charac.getAttackPlayer()) {
+        		this.player1.battle(charac);
+        		this.startCooldown(this.player1);
+        		if(charac.getIsDead()) {
+        			this.kill(charac);
+        		}
+        	}
+        }
+    }
+    
+    /**
+     * Applies the results of the AI stage for enemies: updates their place in the spatial index, <br/>
+     * and fights out the battles of those attacking the player. An enemy whose archetype drops an <br/>
+     * item leaves it behind when it dies (unless the player already has one), and the map is <br/>
+     * reset if the player dies.
+     * 
+     * @return false if the map was reset, so the remaining enemies of this tick no longer exist
+     */
+    private boolean commitEnemies(List<Enemy> enemies) {
+    	for(Enemy charac : enemies) {
+        	this.unitGrid.update(charac, charac.getXPosition(), charac.getYPosition());
+        	this.putToSleep(charac);
+        	if(charac.getAttackPlayer()) {
+        		this.player1.battle(charac);
+        		this.startCooldown(this.player1);
+        		this.startCooldown(charac);
+        		if(charac.getIsDead()) {
+        			this.kill(charac);
+        			this.dropItem(charac);
+        		}
+        		if(this.player1.getHealth() <= 0) {
+        			this.resetMap();
+        			return false;
+        		}
+        	}
+        }
+    	return true;
+    }
     
+    /**
+     * Records where every character is before the tick moves them, so the renderer can <br/>
+     * interpolate between the last two ticks
+     */
+    private void savePreviousPositions() {
+    	this.entities.savePreviousPositions();
+    }
     
+    /**
+     * Points the shared flow field at the tile under the centre of the player's hitbox. The field <br/>
+     * is only rebuilt when the player has crossed into another tile.
+     */
+    private void updateFlowField() {
+    	int tileX = this.collisionMap.toTileX(this.playerPosition.getX() + this.collider.getCentreOffsetX());
+    	int tileY = this.collisionMap.toTileY(this.playerPosition.getY() + this.collider.getCentreOffsetY());
+    	
+    	this.flowField.update(tileX, tileY);
+    }
     
-    /*SHORTCUT METHODS*/
     /**
-     * <div>A shortcut method to move the camera by some amount (pixels) left/right</div>
-     * <br/>
-     * <div>
-     * <strong>Precondition:</strong> <code>in</code> must be an integer<br/>
-     * <strong>Postcondition:</strong> The x position of the camera (<code>cameraXPosition</code>) is changed by the amount <code>in</code>
-     * </div><br/>
-     * @param in The number of pixels to move the camera by
+     * Finds the NPCs within awareness range of the player using <code>unitGrid</code>, and flags <br/>
+     * them so that they run their awareness checks this frame. NPCs flagged last frame are <br/>
+     * unflagged first, so the cost depends on how many units are near the player rather than <br/>
+     * on how many exist in the world.<br/><br/>
+     * 
+     * The search is padded by a tile to cover units that step into range during the frame.
      */
-    public void moveCameraX(int in) {
-    	this.setCameraX(this.getCameraX() + in);
+    private void findUnitsNearPlayer() {
+    	for(NPC charac : nearbyUnits) {
+    		charac.setPlayerInRange(false);
+    	}
+    	this.nearbyUnits.clear();
     	
+    	float range = AWARENESS_RANGE + this.land.getTileWidth();
+    	this.unitGrid.queryBox(
+    			this.playerPosition.getX() - range, 
+    			this.playerPosition.getY() - range, 
+    			this.playerPosition.getX() + range, 
+    			this.playerPosition.getY() + range, 
+    			this.nearbyUnits);
     	
+    	for(NPC charac : nearbyUnits) {
+    		charac.setPlayerInRange(true);
+    		
+    		//a unit near the player must keep watching for it, so it is woken with the rest of its sleep still to come
+    		if(charac.getAsleep()) {
+    			int timer = timerOf(charac, TIMER_WAKE);
+    			charac.setSleepTicks((int)(this.timers.getDue(timer) - this.tick));
+    			charac.setAsleep(false);
+    			this.timers.cancel(timer);
+    		}
+    	}
     }
     
     /**
-     * <div>A shortcut method to move the camera by some amount (pixels) up/down</div>
-     * <br/>
-     * <div>
-     * <strong>Precondition:</strong> <code>in</code> must be an integer<br/>
-     * <strong>Postcondition:</strong> The y position of the camera (<code>cameraYPosition</code>) is changed by the amount <code>in</code>
-     * </div><br/>
-     * @param in The number of pixels to move the camera by
+     * Moves the timers on to this tick, waking the units whose sleep is over and ending the <br/>
+     * cooldowns that have run out
      */
-    public void moveCameraY(int in) {
-    	this.setCameraY(this.getCameraY() + in);
+    private void runTimers() {
+    	int expired = this.timers.advance(this.tick);
     	
+    	for(int i = 0; i < expired; i++) {
+    		int timer = this.timers.getExpired(i);
+    		GameCharacter charac = this.registry.getAt(timer / TIMER_KINDS);
+    		
+    		if(timer % TIMER_KINDS == TIMER_WAKE) {
+    			NPC unit = (NPC)charac;
+    			unit.setAsleep(false);
+    			unit.setSleepTicks(NPC.WAKE_NOW);
+    		}
+    		else {
+    			charac.setSpeed(NIL);
+    		}
+    	}
+    }
+    
+    /**
+     * Puts a unit that has asked to sleep to sleep, until its wake-up timer goes off. The scheduler <br/>
+     * passes over sleeping units, so they cost nothing until then.
+     */
+    private void putToSleep(NPC charac) {
+    	int sleep = charac.getSleepTicks();
+    	if(sleep > 0) {
+    		this.timers.schedule(timerOf(charac, TIMER_WAKE), this.tick + sleep);
+    		charac.setSleepTicks(0);
+    		charac.setAsleep(true);
+    	}
+    }
+    
+    /**
+     * Starts the timer that ends a character's attack cooldown, if it has just attacked. A character <br/>
+     * can attack while its speed is 0 or less; attacking sets its speed to its maximum, and the timer <br/>
+     * sets it back to 0 once that has counted down at <code>TICK_COUNTDOWN</code> a tick.
+     */
+    private void startCooldown(GameCharacter charac) {
+    	int timer = timerOf(charac, TIMER_COOLDOWN);
+    	if(charac.getSpeed() > 0 && !this.timers.isScheduled(timer)) {
+    		this.timers.schedule(timer, this.tick + GameCharacter.ticksToCountDown(charac.getSpeed()));
+    	}
+    }
+    
+    /**
+     * Gets the number of one of a character's timers
+     */
+    private static int timerOf(GameCharacter charac, int kind) {
+    	return EntityRegistry.indexOf(charac.getHandle()) * TIMER_KINDS + kind;
+    }
+    
+    /**
+     * Finds the living NPCs whose positions lie within a rectangle of the map, using the spatial index
+     * 
+     * @param out The list to add the units to; it is not cleared first
+     */
+    public void findUnitsInBox(float left, float top, float right, float bottom, List<NPC> out) {
+    	this.unitGrid.queryBox(left, top, right, bottom, out);
+    }
+    
+    /**
+     * Finds the items lying on the map (not held) whose positions lie within a rectangle of the map, using the spatial index
+     * 
+     * @param out The list to add the items to; it is not cleared first
+     */
+    public void findItemsInBox(float left, float top, float right, float bottom, List<Item> out) {
+    	this.itemGrid.queryBox(left, top, right, bottom, out);
+    }
+    
+    /**
+     * Tells the sprite tracker (if any) that a unit or item using a sprite has entered the world
+     */
+    private void acquireSprite(String path) {
+    	if(this.spriteTracker != null) this.spriteTracker.acquire(path);
+    }
+    
+    /**
+     * Tells the sprite tracker (if any) that a unit or item using a sprite has left the world
+     */
+    private void releaseSprite(String path) {
+    	if(this.spriteTracker != null) this.spriteTracker.release(path);
+    }
+    
+    /**
+     * Brings a new unit into the world: straight away between ticks, or at the end of the tick <br/>
+     * if one is running
+     */
+    private void spawn(NPC charac) {
+    	if(this.updating) {
+    		this.pendingSpawns.add(charac);
+    		return;
+    	}
+    	
+    	this.enter(charac);
+    	if(this.spawnState != null) {
+    		this.addedUnits.add(charac);
+    	}
+    }
+    
+    /**
+     * Puts a unit in its list, the entity store and the spatial index, and gives it a handle. A <br/>
+     * unit already in the entity store is in the world already, so it only goes back in its list <br/>
+     * and the index.
+     */
+    private void enter(NPC charac) {
+    	if(charac instanceof PassiveEnemy) {
+    		this.passiveEnemyList.add((PassiveEnemy)charac);
+    	}
+    	else if(charac instanceof Enemy) {
+    		this.enemyList.add((Enemy)charac);
+    	}
+    	else if(charac instanceof Villager) {
+    		this.villagerList.add((Villager)charac);
+    	}
+    	
+    	this.addToUnitGrid(charac);
+    	
+    	if(charac.getStore() != this.entities) {
+    		this.entities.attach(charac);
+    		this.registry.register(charac);
+    		this.acquireSprite(charac.getSprite());
+    		for(LifecycleListener listener : this.lifecycleListeners) listener.unitSpawned(charac);
+    	}
+    }
+    
+    /**
+     * Moves a unit out of the entity store into the store of units outside the world, releasing <br/>
+     * its sprite and its handle (so any handle to it kept elsewhere is seen to be stale). It must <br/>
+     * already be out of its list and the spatial index.
+     */
+    private void leave(NPC charac) {
+    	this.outside.attach(charac);
+    	this.timers.cancel(timerOf(charac, TIMER_WAKE));
+    	this.timers.cancel(timerOf(charac, TIMER_COOLDOWN));
+    	this.registry.release(charac);
+    	this.releaseSprite(charac.getSprite());
+    	for(LifecycleListener listener : this.lifecycleListeners) listener.unitDespawned(charac);
+    }
+    
+    /**
+     * Handles a unit's death, exactly once: takes it out of the spatial index, so nothing finds or <br/>
+     * updates it again, and marks it to leave the world at the end of the tick
+     */
+    private void kill(Enemy charac) {
+    	this.unitGrid.remove(charac);
+    	this.pendingDespawns.add(charac);
+    	
+    	EventLog.log(LogLevel.DEBUG, "World", "Unit died", charac.getHandle());
+    	for(LifecycleListener listener : this.lifecycleListeners) listener.unitDied(charac);
+    }
+    
+    /**
+     * Applies the changes to the unit lists held back during the tick: units that died leave the <br/>
+     * world, and units added enter it<br/><br/>
+     * 
+     * <strong>Precondition:</strong> no tick is running<br/>
+     * <strong>Postcondition:</strong> The unit lists and the entity store hold only living units, in <br/>
+     * the order they were added; nothing is pending
+     */
+    private void applyPendingChanges() {
+    	if(!this.pendingDespawns.isEmpty()) {
+    		for(NPC charac : this.pendingDespawns) {
+    			this.leave(charac);
+    		}
+    		this.pendingDespawns.clear();
+    		
+    		//units added since the world was created don't come back, so they need no slot here
+    		for(NPC charac : this.addedUnits) {
+    			if(charac instanceof Enemy && ((Enemy)charac).getIsDead()) {
+    				this.outside.detach(charac);
+    			}
+    		}
+    		
+    		removeDead(this.enemyList);
+    		removeDead(this.passiveEnemyList);
+    		removeDead(this.addedUnits);
+    	}
+    	
+    	if(!this.pendingSpawns.isEmpty()) {
+    		for(NPC charac : this.pendingSpawns) {
+    			this.spawn(charac);
+    		}
+    		this.pendingSpawns.clear();
+    	}
+    }
+    
+    /**
+     * Removes the dead enemies from a list in one pass, keeping the order of the others
+     */
+    private static <T extends NPC> void removeDead(ArrayList<T> units) {
+    	int kept = 0;
     	
+    	for(int i = 0; i < units.size(); i++) {
+    		T charac = units.get(i);
+    		if(!(charac instanceof Enemy && ((Enemy)charac).getIsDead())) {
+    			units.set(kept++, charac);
+    		}
+    	}
+    	
+    	while(units.size() > kept) {
+    		units.remove(units.size() - 1);
+    	}
+    }
+    
+    /**
+     * Adds an NPC to the spatial index, initially out of range of the player
+     */
+    private void addToUnitGrid(NPC charac) {
+    	charac.setPlayerInRange(false);
+    	this.unitGrid.insert(charac, charac.getXPosition(), charac.getYPosition());
+    }
+
+    /**
+     * Leaves the item a dead unit's archetype drops where it died, unless the player already <br/>
+     * holds one
+     */
+    private void dropItem(NPC charac) {
+    	UnitArchetype type = charac.getArchetype();
+    	if(type == null || type.getDrop() == null) {
+    		return;
+    	}
+    	
+    	ItemArchetype drop = this.spawnTable.findItem(type.getDrop());
+    	if(!this.player1.holds(drop.getID())) {
+    		this.addItem(drop, charac.getXPosition(), charac.getYPosition());
+    	}
+    }
+
+    /*SHORTCUT METHODS*/
+    /**
+     * Adds a unit of a given kind to the game. The unit shares the archetype (and its sprite path) <br/>
+     * with the other units of its kind.
+     */
+    public void addUnit(UnitArchetype type, float xPos, float yPos) {
+    	try {
+    		NPC ref;
+    		switch(type.getKind()) {
+    		case VILLAGER:
+    			ref = new Villager(this.outside, xPos, yPos, type.getSpriteName(), collider, type.isElvira());
+    			break;
+    		case PASSIVE:
+    			ref = new PassiveEnemy(this.outside, xPos, yPos, type.getSpriteName(), collider, 
+    					type.getHealth(), type.getSpeed(), type.getArmor(), type.getAttack());
+    			break;
+    		default:
+    			Enemy enemy = new Enemy(this.outside, xPos, yPos, type.getSpriteName(), collider, 
+    					type.getHealth(), type.getSpeed(), type.getArmor(), type.getAttack(), type.isBoss());
+    			enemy.setPathfinder(this.pathfinder);
+    			enemy.setFlowField(this.flowField);
+    			ref = enemy;
+    			break;
+    		}
+    		ref.setArchetype(type);
+    		ref.setSprite(type.getSprite());
+    		ref.setTarget(this.playerPosition);
+    		ref.setRandom(this.randomService.newStream());
+    		this.spawn(ref);
+    	}
+    	catch (Exception e) {
+    		EventLog.log(LogLevel.ERROR, "World", "World.addUnit failed: " + e);
+    	}
+    }
+    
+    /**
+     * Adds an item of a given kind to the game
+     */
+    public void addItem(ItemArchetype type, float xPos, float yPos) {
+    	try {
+    		Item ref = type.create(xPos, yPos);
+    		this.itemList.add(ref);
+    		this.acquireSprite(ref.getSprite());
+    		this.itemGrid.insert(ref, ref.getXPosition(), ref.getYPosition());
+    	}
+    	catch (Exception e) {
+    		EventLog.log(LogLevel.ERROR, "World", "World.addItem failed: " + e);
+    	}
     }
     
     /**
@@ -283,12 +737,13 @@ public class World {
      */
     public void addVillager(float xPos, float yPos, String sprite) {
     	try {
-    		Villager ref = new Villager(xPos, yPos, sprite, land);
-    		villagerList.add(ref);
+    		Villager ref = new Villager(this.outside, xPos, yPos, sprite, collider, false);
+    		ref.setTarget(this.playerPosition);
+    		ref.setRandom(this.randomService.newStream());
+    		this.spawn(ref);
     	}
     	catch (Exception e) {
-    		System.out.println("ERROR in method World.addVillager: ");
-    		System.out.println(e);
+    		EventLog.log(LogLevel.ERROR, "World", "World.addVillager failed: " + e);
     	}
     }
     
@@ -297,12 +752,13 @@ public class World {
      */
     public void addVillager(float xPos, float yPos, String sprite, Boolean elvira) {
     	try {
-    		Villager ref = new Villager(xPos, yPos, sprite, land, elvira);
-    		villagerList.add(ref);
+    		Villager ref = new Villager(this.outside, xPos, yPos, sprite, collider, elvira);
+    		ref.setTarget(this.playerPosition);
+    		ref.setRandom(this.randomService.newStream());
+    		this.spawn(ref);
     	}
     	catch (Exception e) {
-    		System.out.println("ERROR adding Elvira: ");
-    		System.out.println(e);
+    		EventLog.log(LogLevel.ERROR, "World", "World.addVillager failed to add Elvira: " + e);
     	}
     }
     
@@ -311,12 +767,15 @@ public class World {
      */
     public void addEnemy(float xPos, float yPos, String spriteName, int hp, int sp, int ar, int at) {
     	try {
-    		Enemy ref = new Enemy(xPos, yPos, spriteName, land, hp, sp, ar, at);
-    		enemyList.add(ref);
+    		Enemy ref = new Enemy(this.outside, xPos, yPos, spriteName, collider, hp, sp, ar, at, false);
+    		ref.setTarget(this.playerPosition);
+    		ref.setPathfinder(this.pathfinder);
+    		ref.setFlowField(this.flowField);
+    		ref.setRandom(this.randomService.newStream());
+    		this.spawn(ref);
     	}
     	catch (Exception e) {
-    		System.out.println("ERROR in method World.addEnemy: ");
-    		System.out.println(e);
+    		EventLog.log(LogLevel.ERROR, "World", "World.addEnemy failed: " + e);
     	}
     }
     
@@ -325,12 +784,13 @@ public class World {
      */
     public void addPassiveEnemy(float xPos, float yPos, String spriteName, int hp, int sp, int ar, int at) {
     	try {
-    		PassiveEnemy ref = new PassiveEnemy(xPos, yPos, spriteName, land, hp, sp, ar, at);
-    		passiveEnemyList.add(ref);
+    		PassiveEnemy ref = new PassiveEnemy(this.outside, xPos, yPos, spriteName, collider, hp, sp, ar, at);
+    		ref.setTarget(this.playerPosition);
+    		ref.setRandom(this.randomService.newStream());
+    		this.spawn(ref);
     	}
     	catch (Exception e) {
-    		System.out.println("ERROR in method World.addPassiveEnemy: ");
-    		System.out.println(e);
+    		EventLog.log(LogLevel.ERROR, "World", "World.addPassiveEnemy failed: " + e);
     	}
     }
     
@@ -339,12 +799,15 @@ public class World {
      */
     public void addEnemy(float xPos, float yPos, String spriteName, int hp, int sp, int ar, int at, Boolean boss) {
     	try {
-    		Enemy ref = new Enemy(xPos, yPos, spriteName, land, hp, sp, ar, at, boss);
-    		enemyList.add(ref);
+    		Enemy ref = new Enemy(this.outside, xPos, yPos, spriteName, collider, hp, sp, ar, at, boss);
+    		ref.setTarget(this.playerPosition);
+    		ref.setPathfinder(this.pathfinder);
+    		ref.setFlowField(this.flowField);
+    		ref.setRandom(this.randomService.newStream());
+    		this.spawn(ref);
     	}
     	catch (Exception e) {
-    		System.out.println("ERROR in method World.addEnemy: ");
-    		System.out.println(e);
+    		EventLog.log(LogLevel.ERROR, "World", "World.addEnemy failed: " + e);
     	}
     }
     
@@ -355,10 +818,11 @@ public class World {
     	try {
     		Item ref = new Item(xPos, yPos, itemName, spriteName, at, sp, ar, hp, id);
     		this.itemList.add(ref);
+    		this.acquireSprite(ref.getSprite());
+    		this.itemGrid.insert(ref, ref.getXPosition(), ref.getYPosition());
     	}
     	catch (Exception e) {
-    		System.out.println("ERROR in method World.addItem: ");
-    		System.out.println(e);
+    		EventLog.log(LogLevel.ERROR, "World", "World.addItem failed: " + e);
     	}
     }
     
@@ -372,81 +836,131 @@ public class World {
     	if(Y) this.player1.setDistanceTraveledY(0);
     }
      /**
-      * Adds all units to the world
+      * Adds the units and items of the spawn table to the world, in the order they are listed, <br/>
+      * apart from those the table holds back while the player has a certain item and those that <br/>
+      * wait for an item to be brought to Elvira
       */
     private void addAllUnits() {
-    	this.addVillager(400, 300, "peasant.png");
-    	this.addVillager(300, 100, "shaman.png", true);
+    	for(int i = 0; i < this.spawnTable.getSpawnCount(); i++) {
+    		int unless = this.spawnTable.getSpawnUnless(i);
+    		if(this.spawnTable.getSpawnAfter(i) == SpawnTable.NO_ITEM && (unless == SpawnTable.NO_ITEM || !this.player1.holds(unless))) {
+    			this.addUnit(this.spawnTable.getSpawnUnit(i), this.spawnTable.getSpawnX(i), this.spawnTable.getSpawnY(i));
+    		}
+    	}
     	
-    	this.addPassiveEnemy(700, 900, "dreadbat.png", 100, 0, 0, 0);
-    	this.addPassiveEnemy(400, 850, "dreadbat.png", 100, 0, 0, 0);
-    	this.addPassiveEnemy(200, 800, "dreadbat.png", 100, 0, 0, 0);
-    	this.addPassiveEnemy(900, 400, "dreadbat.png", 100, 0, 0, 0);
-        
-    	if(this.player1.getElixirNotHeld()) {
-    		this.addEnemy(1600, 100, "necromancer.png", 140, 400, 0, 30, true);
+    	for(int i = 0; i < this.spawnTable.getPlacementCount(); i++) {
+    		int unless = this.spawnTable.getPlacementUnless(i);
+    		if(this.spawnTable.getPlacementAfter(i) == SpawnTable.NO_ITEM && (unless == SpawnTable.NO_ITEM || !this.player1.holds(unless))) {
+    			this.addItem(this.spawnTable.getPlacementItem(i), this.spawnTable.getPlacementX(i), this.spawnTable.getPlacementY(i));
+    		}
+    	}
+    }
+    
+    /**
+     * Adds the units and items of the spawn table that wait for a given item to be brought to <br/>
+     * Elvira, in the order they are listed
+     * 
+     * @param id Identification number of the item brought
+     */
+    private void addDeliveryUnits(int id) {
+    	for(int i = 0; i < this.spawnTable.getSpawnCount(); i++) {
+    		if(this.spawnTable.getSpawnAfter(i) == id) {
+    			this.addUnit(this.spawnTable.getSpawnUnit(i), this.spawnTable.getSpawnX(i), this.spawnTable.getSpawnY(i));
+    		}
     	}
     	
-        this.addEnemy(1650, 550, "skeleton.png", 100, 500, 0, 16);
-        this.addEnemy(1900, 250, "skeleton.png", 100, 500, 0, 16);
-        this.addEnemy(1600, 500, "skeleton.png", 100, 500, 0, 16);
-        this.addEnemy(2100, 350, "skeleton.png", 100, 500, 0, 16);
-        
-        this.addEnemy(72, 2000, "bandit.png", 40, 200, 0, 8);
-        this.addEnemy(250, 2300, "bandit.png", 40, 200, 0, 8);
-        this.addEnemy(425, 1800, "bandit.png", 40, 200, 0, 8);
-        this.addEnemy(450, 2350, "bandit.png", 40, 200, 0, 8);
-        this.addEnemy(800, 1400, "bandit.png", 40, 200, 0, 8);
-        this.addEnemy(800, 1600, "bandit.png", 40, 200, 0, 8);
-        
-        this.addEnemy(850, 1850, "zombie.png", 60, 800, 0, 10);
-        this.addEnemy(950, 1900, "zombie.png", 60, 800, 0, 10);
-        this.addEnemy(2500, 700, "zombie.png", 60, 800, 0, 10);
-        this.addEnemy(2350, 700, "zombie.png", 60, 800, 0, 10);
-        this.addEnemy(1700, 900, "zombie.png", 60, 800, 0, 10);
-        this.addEnemy(2150, 1050, "zombie.png", 60, 800, 0, 10);
-        this.addEnemy(1650, 950, "zombie.png", 60, 800, 0, 10);
-        this.addEnemy(1600, 1050, "zombie.png", 60, 800, 0, 10);
-        
-        if(this.player1.getBookNotHeld()) {
-        	this.addItem(1500, 1000, "Tome of Agility", "book.png", 0, 150, 0, 0, BOOK);
-        }
-        if(this.player1.getAmuletNotHeld()) {
-        	this.addItem(300, 2350, "Amulet of Vitality", "amulet.png", 50, 0, 0, 0, AMULET);
-        }
-        if(this.player1.getSwordNotHeld()) {
-        	this.addItem(1500, 575, "Sword of Strength", "sword.png", 0, 0, 0, 10, SWORD);
-        }
-        
-        
+    	for(int i = 0; i < this.spawnTable.getPlacementCount(); i++) {
+    		if(this.spawnTable.getPlacementAfter(i) == id) {
+    			this.addItem(this.spawnTable.getPlacementItem(i), this.spawnTable.getPlacementX(i), this.spawnTable.getPlacementY(i));
+    		}
+    	}
+    }
+    
+    /**
+     * Saves the state of every unit placed by <code>addAllUnits</code>, and how many items there <br/>
+     * are, for <code>resetMap</code> to put back
+     */
+    private void saveSpawnState() {
+    	this.spawnState = new EntitySnapshot(this.entities.size());
+    	for(Villager charac : villagerList) this.spawnState.save(charac);
+    	for(PassiveEnemy charac : passiveEnemyList) this.spawnState.save(charac);
+    	for(Enemy charac : enemyList) this.spawnState.save(charac);
+    	
+    	this.spawnItemCount = this.itemList.size();
     }
     
     /**
-     * Resets mapo position on player death
+     * Resets the map on player death<br/><br/>
+     * 
+     * Units aren't rebuilt: the units the world started with are put back in place from the <br/>
+     * snapshot taken when it was created, and those that died are spawned again. Units added since <br/>
+     * (the prince) are despawned, as are items added since that the player hasn't picked up (an <br/>
+     * elixir dropped but not collected). Items the player holds are kept, and once the elixir is <br/>
+     * held the boss stays dead. Anything pending from the current tick is dropped.<br/><br/>
+     * 
+     * <strong>Precondition:</strong> none<br/>
+     * <strong>Postcondition:</strong> Every starting unit is alive at its starting position and <br/>
+     * in the spatial index; the player is back at the spawn point with full health
      */
     public void resetMap() {
+    	
+    	RespawnEvent event = new RespawnEvent();
+    	event.begin();
+    	
+    	//units added since the world was created leave it; those that died have left already
+    	for(NPC charac : this.addedUnits) {
+    		if(charac.getStore() == this.entities) {
+    			this.unitGrid.remove(charac);
+    			this.leave(charac);
+    		}
+    		this.outside.detach(charac);
+    	}
+    	for(NPC charac : this.pendingSpawns) {
+    		this.outside.detach(charac);
+    	}
+    	this.addedUnits.clear();
+    	this.pendingSpawns.clear();
+    	this.pendingDespawns.clear();
+    	
+    	for(int i = this.itemList.size() - 1; i >= this.spawnItemCount; i--) {
+    		Item item = this.itemList.get(i);
+    		if(!item.getHeld()) {
+    			this.itemList.remove(i);
+    			this.itemGrid.remove(item);
+    			this.releaseSprite(item.getSprite());
+    		}
+    	}
+    	
+    	this.spawnState.restore();
+    	this.timers.clear();
+    	
+    	//the starting units go back in the lists in the order they were first added (those still 
+    	//alive are in the spatial index already, and are just moved)
+    	this.villagerList.clear();
+    	this.passiveEnemyList.clear();
+    	this.enemyList.clear();
+    	this.nearbyUnits.clear();
+    	
+    	for(int i = 0; i < this.spawnState.size(); i++) {
+    		NPC charac = (NPC)this.spawnState.getCharacter(i);
+    		
+    		if(charac instanceof Enemy && ((Enemy)charac).getIsBoss() && !this.player1.getElixirNotHeld()) {
+    			((Enemy)charac).setIsDead(true);
+    			if(charac.getStore() == this.entities) {
+    				this.unitGrid.remove(charac);
+    				this.leave(charac);
+    			}
+    		}
+    		else {
+    			this.enter(charac);
+    		}
+    	}
         
-        this.enemyList = new ArrayList<Enemy>();
-        this.villagerList = new ArrayList<Villager>();
-        
-        this.addAllUnits();
-        
-        this.cameraXPosition = CAMERA_START_POS_X;
-        this.cameraYPosition = CAMERA_START_POS_Y;
-        
-        this.horizontalTileDrawLocation = INITIAL_TILE_X;
-        this.verticalTileDrawLocation = INITIAL_TILE_Y;
-        
-        
-        
-        this.padding = NIL;
+        this.player1.die();
+        this.camera.reset();
+        this.playerPosition.setX(this.player1.getXPosition());
+        this.playerPosition.setY(this.player1.getYPosition());
         
-        try {
-        	this.panel = new Image(DATA_FOLDER + "panel.png");
-        }
-        catch(SlickException e) {
-        	System.out.println("AGH!");
-        }
         this.cameraFreezeNorth = 
         	this.cameraFreezeSouth = 
         		this.cameraFreezeEast = 
@@ -454,6 +968,15 @@ public class World {
         
         this.player1.setHealth(this.player1.getMaxHealth());
         this.player1.setSpeed(NIL);
+        
+        event.end();
+        if(event.shouldCommit()) {
+        	event.enemies = this.enemyList.size();
+        	event.passiveEnemies = this.passiveEnemyList.size();
+        	event.villagers = this.villagerList.size();
+        	event.items = this.itemList.size();
+        	event.commit();
+        }
     }
     
     
@@ -464,24 +987,27 @@ public class World {
      * era is "frozen" for that direction
      */
     public void checkBoundaries() {
-    	if(this.getCameraX() >= 0) {
+    	int maxCameraX = land.getWidth() * land.getTileWidth() - SCREEN_RESOLUTION_X;
+    	int maxCameraY = land.getHeight() * land.getTileHeight() - SCREEN_RESOLUTION_Y;
+    	
+    	if(this.getCameraX() <= 0) {
     		this.setCameraFreezeWest(true);
     		this.setCameraX(0);
     	}
     	
-    	if(this.getCameraX() <= (-land.getWidth() * land.getTileWidth()) + SCREEN_RESOLUTION_X) {
+    	if(this.getCameraX() >= maxCameraX) {
     		this.setCameraFreezeEast(true);
-    		this.setCameraX((-land.getWidth() * land.getTileWidth()) + SCREEN_RESOLUTION_X);
+    		this.setCameraX(maxCameraX);
     	}
     	
-    	if(this.getCameraY() >= 0) { 
+    	if(this.getCameraY() <= 0) { 
     		this.setCameraFreezeNorth(true);
     		this.setCameraY(0);
     	}
     	
-    	if(this.getCameraY() <= (-land.getHeight() * land.getTileHeight()) + SCREEN_RESOLUTION_Y) {
+    	if(this.getCameraY() >= maxCameraY) {
     		this.setCameraFreezeSouth(true);
-    		this.setCameraY((-land.getHeight() * land.getTileHeight()) + SCREEN_RESOLUTION_Y);
+    		this.setCameraY(maxCameraY);
     	}
     }
     
@@ -496,322 +1022,75 @@ public class World {
     }
     
     /**
-     * Moves the world by some pixel value underneath the player to simulate movement.Wo-<br/>
-     * rks by figuring out if the player has travelled at least one pixel in a certain d-<br/>
-     * irection (by the <code>distanceTraveled</code> field) and tells the land texture to "catch up"<br/> 
-     * by moving the land x pixels in the specified direction (where x is the number of <br/>
-     * pixels the player has crossed).<br/><br/>
-     * 
-     * DEPRECATED::: First, the method checks if the player can move by invoking the <code>checkBoundaries()</code> 
-     * and <code>canMove</code>, methods (resetting them to false initially). :::<br/><br/> 
-     * 
-     * The method then checks the distance the player has travelled (in pixels). If th-<br/>
-     * is value exceeds a single pixel, then the land needs to be updated to reflect this <br/>
-     * movement. If the X distance is positive, the player has moved East, and vice versa<br/>
-     * for negative distances. The same applies to the Y distance, where positive moveme-<br/>
-     * nt is in the Southern direction, and negative in the Northern direction.<br/><br/>
+     * Moves the world underneath the player to simulate movement, by pointing the camera <br/>
+     * at the player's new position on the map.<br/><br/>
      * 
-     * If the distance is found to exceed or match one pixel, the value to move the land<br/>
-     * by (speed) is checked. The land will always move by at least one pixel to make up <br/>
-     * for the player's movement into the next pixel (because the function only does som-<br/>
-     * ething if the player has moved at least one pixel), so for rapid frame refreshing, <br/>
-     * a speed of <1.0 is checked. Otherwise the map is moved by the number of pixels th-<br/>
-     * e player has moved across (for example, if from one frame to the next the player <br/>
-     * has moved 6 pixels (common in low FPS situations), then the land must move 6 pixe-<br/>
-     * ls). <br/><br/>
+     * Characters and items are stored in map coordinates and only converted to screen <br/>
+     * coordinates when they are rendered, so scrolling does not touch any of them and costs <br/>
+     * the same however many units are in the world. The player's position is also published <br/>
+     * to <code>playerPosition</code> here, for the NPCs to react to.<br/><br/>
      * 
-     * Finally, the distance that the map has moved must be deducted from the distance t-<br/>
-     * he player travelled (before the catch-up), because the map has now caught up thos-<br/>
-     * e pixels. This is done by reducing the distance travelled by the distance the cam-<br/>
-     * era has moved, but if the distance travelled is now below 0 (physically impossibl-<br/>
-     * e, you can't move negative distances) the distance must then be set to 0. Also, i-<br/>
-     * f we reduce the distance and it is still over or equal to 1 pixel, then it is red-<br/>
-     * uced below 1 such that the game does not automatically try to "catch up" to the p-<br/>
-     * layer after the player has stopped moving.<br/><br/>
+     * Blocking is handled when the player is moved (see <code>movePlayer</code>), so the <br/>
+     * world only has to follow.<br/><br/>
      * 
-     * <strong>Precondition:</strong> <code>speed</code> is a valid number
-     * <strong>Postcondition:</strong> The land is moved by a certain amount
-     * 
-     * @param speed How many pixels the player has moved between frames
+     * <strong>Precondition:</strong> the player has been moved for this frame
+     * <strong>Postcondition:</strong> The camera is centred on the player
      */
-    public void moveWorld(int speed) {
+    public void moveWorld() {
+    	ScrollEvent event = null;
+    	if(ScrollEvent.isRecorded()) {
+    		event = new ScrollEvent();
+    		event.begin();
+    	}
+    	
+    	int cameraX = this.camera.getXPosition();
+    	int cameraY = this.camera.getYPosition();
+    	int cameraTileX = this.camera.getTileX();
+    	int cameraTileY = this.camera.getTileY();
+    	
     	this.resetFreeze();
     	//this.checkBoundaries();
-    	this.canMove(speed);
-    	
-    	if(!this.getCameraFreezeEast() && player1.getDistanceTraveledX() >= ONE_PIXEL) {
-    		
-    		if(speed == 0) {
-    			this.moveCameraX(-1);
-    			player1.increaseDistanceTraveled(-1,0);
-    			
-    			for(PassiveEnemy charac : passiveEnemyList) {
-    	        	charac.setXPosition(charac.getXPosition() - 1);
-    	        }
-    			for(Enemy charac : enemyList) {
-    	        	charac.setXPosition(charac.getXPosition() - 1);
-    	        }
-    			for(Villager charac : villagerList) {
-    	        	charac.setXPosition(charac.getXPosition() - 1);
-    	        }
-    			
-    			for(Item item : itemList) {
-    	        	item.setXPosition(item.getXPosition() - 1);
-    	        }
-    		}
-    		else {
-    			this.moveCameraX(-speed);
-    			player1.increaseDistanceTraveled(-speed,0);
-    			if(player1.getDistanceTraveledX() <= 0) {
-    				player1.setDistanceTraveledX(0);
-    			}
-    			if(player1.getDistanceTraveledX() >= 1) {
-    				player1.increaseDistanceTraveled(-1, 0);
-    			}
-    			
-    			for(PassiveEnemy charac : passiveEnemyList) {
-    	        	charac.setXPosition(charac.getXPosition() - speed);
-    	        }
-    			for(Enemy charac : enemyList) {
-    	        	charac.setXPosition(charac.getXPosition() - speed);
-    	        }
-    			for(Villager charac : villagerList) {
-    	        	charac.setXPosition(charac.getXPosition() - speed);
-    	        }
-    			
-    			for(Item item : itemList) {
-    	        	item.setXPosition(item.getXPosition() - speed);
-    	        }
-    		}
-    	}
     	
-    	if(!this.getCameraFreezeWest() && player1.getDistanceTraveledX() <= -ONE_PIXEL) {
-    		
-    		if(speed == 0) {
-    			this.moveCameraX(1);
-    			player1.increaseDistanceTraveled(1,0);
-    			
-    			for(PassiveEnemy charac : passiveEnemyList) {
-    	        	charac.setXPosition(charac.getXPosition() + 1);
-    	        }
-    			for(Enemy charac : enemyList) {
-    	        	charac.setXPosition(charac.getXPosition() + 1);
-    	        }
-    			for(Villager charac : villagerList) {
-    	        	charac.setXPosition(charac.getXPosition() + 1);
-    	        }
-    			for(Item item : itemList) {
-    	        	item.setXPosition(item.getXPosition() + 1);
-    	        }
-    		}
-    		else {
-    			this.moveCameraX(speed);
-    			player1.increaseDistanceTraveled(speed,0);
-    			if(player1.getDistanceTraveledX() >= 0) {
-    				player1.setDistanceTraveledX(0);
-    			}
-    			if(player1.getDistanceTraveledX() <= -1) {
-    				player1.increaseDistanceTraveled(1, 0);
-    			}
-    			
-    			for(PassiveEnemy charac : passiveEnemyList) {
-    	        	charac.setXPosition(charac.getXPosition() + speed);
-    	        }
-    			for(Enemy charac : enemyList) {
-    	        	charac.setXPosition(charac.getXPosition() + speed);
-    	        }
-    			for(Villager charac : villagerList) {
-    	        	charac.setXPosition(charac.getXPosition() + speed);
-    	        }
-    			for(Item item : itemList) {
-    	        	item.setXPosition(item.getXPosition() + speed);
-    	        }
-    		}
-    	}
+    	this.camera.follow(this.player1.getXPosition(), this.player1.getYPosition());
     	
-    	if(!this.getCameraFreezeSouth() && player1.getDistanceTraveledY() >= ONE_PIXEL) {
-    		
-    		if(speed == 0) {
-    			this.moveCameraY(-1);
-    			player1.increaseDistanceTraveled(0,-1);
-    			
-    			for(PassiveEnemy charac : passiveEnemyList) {
-    	        	charac.setYPosition(charac.getYPosition() - 1);
-    	        }
-    			for(Enemy charac : enemyList) {
-    	        	charac.setYPosition(charac.getYPosition() - 1);
-    	        }
-    			for(Villager charac : villagerList) {
-    	        	charac.setYPosition(charac.getYPosition() - 1);
-    	        }
-    			for(Item item : itemList) {
-    	        	item.setYPosition(item.getYPosition() - 1);
-    	        }
-    		}
-    		else {
-    			this.moveCameraY(-speed);
-    			player1.increaseDistanceTraveled(0,-speed);
-    			if(player1.getDistanceTraveledY() <= 0) {
-    				player1.setDistanceTraveledY(0);
-    			}
-    			if(player1.getDistanceTraveledY() >= 1) {
-    				player1.increaseDistanceTraveled(0, -1);
-    			}
-    			
-    			for(PassiveEnemy charac : passiveEnemyList) {
-    	        	charac.setYPosition(charac.getYPosition() - speed);
-    	        }
-    			for(Enemy charac : enemyList) {
-    	        	charac.setYPosition(charac.getYPosition() - speed);
-    	        }
-    			for(Villager charac : villagerList) {
-    	        	charac.setYPosition(charac.getYPosition() - speed);
-    	        }
-    			for(Item item : itemList) {
-    	        	item.setYPosition(item.getYPosition() - speed);
-    	        }
-    		}
-    	}
+    	this.playerPosition.setX(this.player1.getXPosition());
+    	this.playerPosition.setY(this.player1.getYPosition());
     	
-    	else if(!this.getCameraFreezeNorth() && player1.getDistanceTraveledY() <= -ONE_PIXEL) {
-    		
-    		if(speed == 0) {
-    			this.moveCameraY(1);
-    			player1.increaseDistanceTraveled(0,1);
-    			
-    			for(PassiveEnemy charac : passiveEnemyList) {
-    	        	charac.setYPosition(charac.getYPosition() + 1);
-    	        }
-    			for(Enemy charac : enemyList) {
-    	        	charac.setYPosition(charac.getYPosition() + 1);
-    	        }
-    			for(Villager charac : villagerList) {
-    	        	charac.setYPosition(charac.getYPosition() + 1);
-    	        }
-    			for(Item item : itemList) {
-    	        	item.setYPosition(item.getYPosition() + 1);
-    	        }
-    		}
-    		else {
-    			this.moveCameraY(speed);
-    			player1.increaseDistanceTraveled(0,speed);
-    			if(player1.getDistanceTraveledY() >= 0) {
-    				player1.setDistanceTraveledY(0);
-    			}
-    			if(player1.getDistanceTraveledY() <= -1) {
-    				player1.increaseDistanceTraveled(0, 1);
-    			}
-    			
-    			for(PassiveEnemy charac : passiveEnemyList) {
-    	        	charac.setYPosition(charac.getYPosition() + speed);
-    	        }
-    			for(Enemy charac : enemyList) {
-    	        	charac.setYPosition(charac.getYPosition() + speed);
-    	        }
-    			for(Villager charac : villagerList) {
-    	        	charac.setYPosition(charac.getYPosition() + speed);
-    	        }
-    			for(Item item : itemList) {
-    	        	item.setYPosition(item.getYPosition() + speed);
-    	        }
+    	if(event != null) {
+    		event.end();
+    		if(event.shouldCommit() && (this.camera.getXPosition() != cameraX || this.camera.getYPosition() != cameraY)) {
+    			event.distanceX = this.camera.getXPosition() - cameraX;
+    			event.distanceY = this.camera.getYPosition() - cameraY;
+    			event.tileChanged = this.camera.getTileX() != cameraTileX || this.camera.getTileY() != cameraTileY;
+    			event.commit();
     		}
     	}
-    	
-    	/*
-    	 * This section checks if the map has moved a whole tile up/down/left/right and then
-    	 * redraws the section of the tilemap that is visible
-    	 */
-    	if(this.getCameraX() <= -72) {
-        	this.moveCameraX(72);
-        	this.horizontalTileDrawLocation++;
-        }
-        
-        if(this.getCameraY() <= -72) {
-        	this.moveCameraY(72);
-        	this.verticalTileDrawLocation++;
-        }
-        
-        if(this.getCameraX() > 0) {
-        	this.moveCameraX(-72);
-        	this.horizontalTileDrawLocation--;
-        }
-        
-        if(this.getCameraY() > 0) {
-        	this.moveCameraY(-72);
-        	this.verticalTileDrawLocation--;
-        }
-        
     }
     
     /**
-     * Moves the player if and only if the movement direction isn't blocked<br/><br/>
+     * Moves the player as far as possible towards the requested position. Each axis is <br/>
+     * swept against the collision grid by the shared <code>CollisionResolver</code>, so the <br/>
+     * player stops flush against blocking terrain however far it moves in one frame.<br/><br/>
      * 
      * <strong>Precondition:</strong> xAmount and yAmount are floating point numbers<br/>
-     * <strong>Postcondition:</strong> The player is moved by these amounts, or isn't moved at all<br/><br/>
+     * <strong>Postcondition:</strong> The player is moved by these amounts, or as far as it can go<br/><br/>
      * 
      * @param xAmount The amount to move the player along the X axis (in pixels)
      * @param yAmount The amount to move the player along the Y axis (in pixels)
      */
     public void movePlayer(float xAmount, float yAmount) {
     	
-    	
-    	
-    	if(xAmount < 0) {
-    		if(!this.getCameraFreezeWest()) this.player1.moveX(xAmount);
-    	}
-    	if(xAmount > 0) {
-    		if(!this.getCameraFreezeEast()) this.player1.moveX(xAmount);
-    	}
-    	
-    	if(yAmount < 0) {
-    		if(!this.getCameraFreezeNorth()) this.player1.moveY(yAmount);
-    	}
-    	if(yAmount > 0) {
-    		if(!this.getCameraFreezeSouth()) this.player1.moveY(yAmount);
-    	}
-    }
-    
-    /**
-     * Checks left/right/above/below the player and freezes the camera in those directio-<br/>
-     * ns if the player is blocked by certain terrain<br/><br/>
-     * 
-     * <strong>Precondition:</strong> <code>speed</code> is a valid integer<br/>
-     * <strong>Postcondition:</strong> The player is frozen in zero or more directions<br/><br/>
-     */
-    public void canMove(int speed) {
-    	
-    	//freeze north
-    	if(land.getTileProperty(this.getTileAboveLeft(), "block", "0").equals("1") ||
-    		land.getTileProperty(this.getTileAboveRight(), "block", "0").equals("1")) 
-    	{
-    		this.setCameraFreezeNorth(true);
-    	}
-    	
-    	//freeze south
-    	if(land.getTileProperty(this.getTileBelowRight(), "block", "0").equals("1") ||
-    		land.getTileProperty(this.getTileBelowLeft(), "block", "0").equals("1")	) 
-    	{
-    		this.setCameraFreezeSouth(true);
-    		
+    	if((xAmount < 0 && !this.getCameraFreezeWest()) || (xAmount > 0 && !this.getCameraFreezeEast())) {
+    		float allowed = this.collider.resolveX(this.player1.getXPosition(), this.player1.getYPosition(), xAmount);
+    		if(allowed != 0) this.player1.moveX(allowed);
     	}
     	
-    	//freeze west
-    	if(land.getTileProperty(this.getTileLeftTop(), "block", "0").equals("1") ||
-    		land.getTileProperty(this.getTileLeftBottom(), "block", "0").equals("1")) 
-    	{
-    		this.setCameraFreezeWest(true);
+    	if((yAmount < 0 && !this.getCameraFreezeNorth()) || (yAmount > 0 && !this.getCameraFreezeSouth())) {
+    		float allowed = this.collider.resolveY(this.player1.getXPosition(), this.player1.getYPosition(), yAmount);
+    		if(allowed != 0) this.player1.moveY(allowed);
     	}
-    	
-    	//freeze east
-    	if(land.getTileProperty(this.getTileRightTop(), "block", "0").equals("1") ||
-    		land.getTileProperty(this.getTileRightBottom(), "block", "0").equals("1")) 
-    	{
-    		this.setCameraFreezeEast(true);
-    	}
-    	
     }
     
-    
     /*TILE METHODS*/
     /**
      * Gets the grid index of the tile in the (0 + offset) X position of the camera<br/
@@ -826,7 +1105,7 @@ public class World {
      */
     public int findTileXLocation(int offset) {
     	
-    	return ( ( ( -this.getCameraX() + offset ) / land.getTileWidth() ) + this.getHorizontalTileDrawLocation());
+    	return Math.floorDiv(this.getCameraX() + offset, land.getTileWidth());
     }
     
     /**
@@ -842,153 +1121,7 @@ public class World {
      */
     public int findTileYLocation(int offset) {
     	
-    	return ( ( (-this.getCameraY() + offset) / land.getTileHeight() ) + this.getVerticalTileDrawLocation());
-    }
-    
-    /**
-     * The following methods provide the basis for collision detection. The player sprite box 
-     * is shaped as:
-     * 
-     * 		|  +   +  |
-     *		+         +
-     * 		|         |
-     * 		+         +
-     * 		|  +   +  |
-     * 
-     * Where the '+' are detection points. For example, the "aboveLeft" detection point is the 
-     * left '+' on the top side of the square, and the "leftTop" point is the upper '+' on the 
-     * left side of the square.
-     * The higher the constant MOVEMENT_THRESHOLD is, the closer inward each point is.
-     * The padding variable is a changing value that varies as the delta varies, to ensure that 
-     * changes in FPS don't break the blocking system
-     */
-    
-    /**
-     * Gets the tile ID at the aboveLeft detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> land is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-    public int getTileAboveLeft() {
-    	
-    	return land.getTileId( 
-				this.findTileXLocation( (SCREEN_RESOLUTION_X/2) - land.getTileWidth()/2 + MOVEMENT_THRESHOLD + this.padding), 
-				this.findTileYLocation( (SCREEN_RESOLUTION_Y/2) - land.getTileHeight()/2 + MOVEMENT_THRESHOLD), 
-				0);
-    }
-    
-    /**
-     * Gets the tile ID at the aboveRight detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> land is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-    public int getTileAboveRight() {
-    	
-    	return land.getTileId( 
-				this.findTileXLocation( (SCREEN_RESOLUTION_X/2) + land.getTileWidth()/2 - MOVEMENT_THRESHOLD - this.padding), 
-				this.findTileYLocation( (SCREEN_RESOLUTION_Y/2) - land.getTileHeight()/2 + MOVEMENT_THRESHOLD), 
-				0);
-    }
-    
-    /**
-     * Gets the tile ID at the leftTop detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> land is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-    public int getTileLeftTop() {
-    	
-    	return land.getTileId( 
-				this.findTileXLocation( (SCREEN_RESOLUTION_X/2) - land.getTileWidth()/2+ MOVEMENT_THRESHOLD), 
-				this.findTileYLocation(SCREEN_RESOLUTION_Y/2 - land.getTileHeight()/2 + MOVEMENT_THRESHOLD + this.padding), 
-				0);
-    }
-    
-    /**
-     * Gets the tile ID at the leftBottom detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> land is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-    public int getTileLeftBottom() {
-    	
-    	return land.getTileId( 
-				this.findTileXLocation( (SCREEN_RESOLUTION_X/2) - land.getTileWidth()/2 + MOVEMENT_THRESHOLD), 
-				this.findTileYLocation(SCREEN_RESOLUTION_Y/2 + land.getTileHeight()/2 - MOVEMENT_THRESHOLD - this.padding), 
-				0);
-    }
-    
-    /**
-     * Gets the tile ID at the rightTop detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> land is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-    public int getTileRightTop() {
-    	
-    	return land.getTileId( 
-				this.findTileXLocation( (SCREEN_RESOLUTION_X/2) + land.getTileWidth()/2 - MOVEMENT_THRESHOLD), 
-				this.findTileYLocation(SCREEN_RESOLUTION_Y/2 - land.getTileHeight()/2 + MOVEMENT_THRESHOLD + this.padding), 
-				0);
-    }
-    
-    /**
-     * Gets the tile ID at the rightBottom detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> land is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-    public int getTileRightBottom() {
-    	
-    	return land.getTileId( 
-				this.findTileXLocation( (SCREEN_RESOLUTION_X/2) + land.getTileWidth()/2 - MOVEMENT_THRESHOLD), 
-				this.findTileYLocation(SCREEN_RESOLUTION_Y/2 + land.getTileHeight()/2 - MOVEMENT_THRESHOLD - this.padding), 
-				0);
-    }
-    
-    /**
-     * Gets the tile ID at the belowRight detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> land is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-    public int getTileBelowRight() {
-    	
-    	return land.getTileId( 
-				this.findTileXLocation( (SCREEN_RESOLUTION_X/2) + land.getTileWidth()/2 - MOVEMENT_THRESHOLD - this.padding), 
-				this.findTileYLocation( (SCREEN_RESOLUTION_Y/2) + land.getTileHeight()/2 - MOVEMENT_THRESHOLD/2), 
-				0);
-    }
-    
-    /**
-     * Gets the tile ID at the belowLeft detection point<br/><br/>
-     * 
-     * <strong>Precondition:</strong> land is a valid World object<br/>
-     * <strong>Postcondition:</strong> The tile id is returned<br/><br/>
-     * 
-     * @return The tileID of the tile
-     */
-    public int getTileBelowLeft() {
-    	
-    	return land.getTileId( 
-				this.findTileXLocation( (SCREEN_RESOLUTION_X/2) - land.getTileWidth()/2 + MOVEMENT_THRESHOLD + this.padding), 
-				this.findTileYLocation( (SCREEN_RESOLUTION_Y/2) + land.getTileHeight()/2 - MOVEMENT_THRESHOLD/2), 
-				0);
+    	return Math.floorDiv(this.getCameraY() + offset, land.getTileHeight());
     }
     
     /**
@@ -1019,11 +1152,11 @@ public class World {
     
     /*GETTERS*/
     public int getCameraX() {
-    	return this.cameraXPosition;
+    	return this.camera.getXPosition();
     }
   
     public int getCameraY() {
-    	return this.cameraYPosition;
+    	return this.camera.getYPosition();
     }
     
 	public Boolean getCameraFreezeNorth() {
@@ -1043,26 +1176,117 @@ public class World {
 	}
 	
 	public int getHorizontalTileDrawLocation() {
-		return this.horizontalTileDrawLocation;
+		return this.camera.getTileX();
 	}
 	
 	public int getVerticalTileDrawLocation() {
-		return this.verticalTileDrawLocation;
+		return this.camera.getTileY();
+	}
+	
+	public Camera getCamera() {
+		return this.camera;
 	}
 	
-	public int getPadding() {
-		return this.padding;
+	public TileMapData getLand() {
+		return this.land;
+	}
+	
+	public CollisionMap getCollisionMap() {
+		return this.collisionMap;
+	}
+	
+	public RandomService getRandomService() {
+		return this.randomService;
+	}
+	
+	public CollisionResolver getCollider() {
+		return this.collider;
+	}
+	
+	/**
+	 * Chooses how many threads the NPCs are updated on. Any number gives the same game.
+	 * 
+	 * @param threads 0 to share the JVM's common pool, 1 to update them on the calling thread
+	 */
+	public void setAIThreads(int threads) {
+		this.ai.shutdown();
+		this.ai = new AIStage(threads);
+	}
+	
+	public AIScheduler getScheduler() {
+		return this.scheduler;
+	}
+	
+	public AIStage getAI() {
+		return this.ai;
+	}
+	
+	public EntityStore getEntities() {
+		return this.entities;
+	}
+	
+	public GridPathfinder getPathfinder() {
+		return this.pathfinder;
+	}
+	
+	public FlowField getFlowField() {
+		return this.flowField;
+	}
+	
+	public Player getPlayer() {
+		return this.player1;
+	}
+	
+	public List<Enemy> getEnemyList() {
+		return this.enemyList;
+	}
+	
+	public List<PassiveEnemy> getPassiveEnemyList() {
+		return this.passiveEnemyList;
+	}
+	
+	public List<Villager> getVillagerList() {
+		return this.villagerList;
+	}
+	
+	public List<Item> getItemList() {
+		return this.itemList;
+	}
+	
+	/**
+	 * Finds the player or a unit by its handle
+	 * 
+	 * @param handle A handle from <code>GameCharacter.getHandle</code>
+	 * @return The character, or null if it has left the world since the handle was taken
+	 */
+	public GameCharacter findCharacter(long handle) {
+		return this.registry.get(handle);
+	}
+	
+	/**
+	 * Adds a listener to be told about units spawning, dying and despawning
+	 */
+	public void addLifecycleListener(LifecycleListener listener) {
+		this.lifecycleListeners.add(listener);
+	}
+	
+	public EntityRegistry getRegistry() {
+		return this.registry;
+	}
+	
+	public List<Item> getHeldItems() {
+		return this.heldItems;
 	}
 	
 	
 	
 	/*SETTERS*/
 	public void setCameraX(int in) {
-    	this.cameraXPosition = in;
+    	this.camera.setXPosition(in);
     }
     
     public void setCameraY(int in) {
-    	this.cameraYPosition = in;
+    	this.camera.setYPosition(in);
     }
     
     public void setCameraFreezeNorth(Boolean in) {
@@ -1081,100 +1305,25 @@ public class World {
 		this.cameraFreezeWest = in;
 	}
 	
-	public void setHorizontalTileDrawLocation(int in) {
-		this.horizontalTileDrawLocation = in;
+	/**
+	 * Sets the tracker to tell about the sprites in use. Every unit and item already in the <br/>
+	 * world is reported to the new tracker straight away.
+	 * 
+	 * @param spriteTracker The tracker, or null to stop tracking
+	 */
+	public void setSpriteTracker(SpriteTracker spriteTracker) {
+		this.spriteTracker = spriteTracker;
+		
+		this.acquireSprite(this.player1.getSprite());
+		for(Enemy charac : enemyList) this.acquireSprite(charac.getSprite());
+		for(PassiveEnemy charac : passiveEnemyList) this.acquireSprite(charac.getSprite());
+		for(Villager charac : villagerList) this.acquireSprite(charac.getSprite());
+		for(Item item : itemList) this.acquireSprite(item.getSprite());
 	}
 	
-	public void setVerticalTileDrawLocation(int in) {
-		this.verticalTileDrawLocation = in;
-	}
- 
-	public void setPadding(int in) {
-		this.padding = in;
+	public SpriteTracker getSpriteTracker() {
+		return this.spriteTracker;
 	}
-	
-	/** Renders the player's status panel.
-     * @param g The current Slick graphics context.
-     */
-    public void renderPanel(Graphics g)
-    {
-        // Panel colours
-        Color LABEL = new Color(0.9f, 0.9f, 0.4f);          // Gold
-        Color VALUE = new Color(1.0f, 1.0f, 1.0f);          // White
-        Color BAR_BG = new Color(0.0f, 0.0f, 0.0f, 0.8f);   // Black, transp
-        Color BAR = new Color(0.8f, 0.0f, 0.0f, 0.8f);      // Red, transp
-
-        // Variables for layout
-        String text;                // Text to display
-        int text_x, text_y;         // Coordinates to draw text
-        int bar_x, bar_y;           // Coordinates to draw rectangles
-        int bar_width, bar_height;  // Size of rectangle to draw
-        int hp_bar_width;           // Size of red (HP) rectangle
-        int inv_x, inv_y;           // Coordinates to draw inventory item
-
-        float health_percent;       // Player's health, as a percentage
-
-        // Panel background image
-        panel.draw(0, SCREEN_RESOLUTION_Y - PANEL_HEIGHT);
-
-        // Display the player's health
-        text_x = 15;
-        text_y = SCREEN_RESOLUTION_Y - PANEL_HEIGHT + 25;
-        g.setColor(LABEL);
-        g.drawString("Health:", text_x, text_y);
-        text = this.player1.getHealth() + "/" + this.player1.getMaxHealth();                                
-
-        bar_x = 90;
-        bar_y = SCREEN_RESOLUTION_Y - PANEL_HEIGHT + 20;
-        bar_width = 90;
-        bar_height = 30;
-        health_percent = (float)this.player1.getHealth()/(float)this.player1.getMaxHealth();                         // TODO: HP / Max-HP
-        hp_bar_width = (int) (bar_width * health_percent);
-        text_x = bar_x + (bar_width - g.getFont().getWidth(text)) / 2;
-        g.setColor(BAR_BG);
-        g.fillRect(bar_x, bar_y, bar_width, bar_height);
-        g.setColor(BAR);
-        g.fillRect(bar_x, bar_y, hp_bar_width, bar_height);
-        g.setColor(VALUE);
-        g.drawString(text, text_x, text_y);
-        
-        // Display the player's damage and cooldown
-        text_x = 200;
-        g.setColor(LABEL);
-        g.drawString("Damage:", text_x, text_y);
-        text_x += 80;
-        text = Integer.toString(this.player1.getAttack());                                    // TODO: Damage
-        g.setColor(VALUE);
-        g.drawString(text, text_x, text_y);
-        text_x += 40;
-        g.setColor(LABEL);
-        g.drawString("Rate:", text_x, text_y);
-        text_x += 55;
-        text = Integer.toString(this.player1.getMaxSpeed());                                    // TODO: Cooldown
-        g.setColor(VALUE);
-        g.drawString(text, text_x, text_y);
-
-        // Display the player's inventory
-        g.setColor(LABEL);
-        g.drawString("Items:", 420, text_y);
-        bar_x = 490;
-        bar_y = SCREEN_RESOLUTION_Y - PANEL_HEIGHT + 10;
-        bar_width = 288;
-        bar_height += 20;
-        g.setColor(BAR_BG);
-        g.fillRect(bar_x, bar_y, bar_width, bar_height);
-
-        inv_x = 490;
-        inv_y = SCREEN_RESOLUTION_Y - PANEL_HEIGHT
-            + ((PANEL_HEIGHT - 72) / 2);
-        for(Item item : itemList) {
-    		if(item.getHeld()) {
-    			item.equip(this.player1);
-    			item.getSprite().draw(inv_x, inv_y);
-    			inv_x += 72;
-    		}
-        }
-    }
 
 	public void setEndGame(Boolean endGame) {
 		this.endGame = endGame;
@@ -1,8 +1,8 @@
 package itemlib;
 
-import org.newdawn.slick.*;
-
 import characterlib.Player;
+import enginelib.EventLog;
+import enginelib.LogLevel;
 
 import static config.GlobalConfiguration.*;
 
@@ -16,7 +16,8 @@ public class Item {
 	
 	private int ID;
 	private String name;
-	private Image sprite;
+	/**Path of the item's sprite image. The image itself is loaded and drawn by the renderer*/
+	private String sprite;
 	
 	private int attackLevel;
 	private int armorLevel;
@@ -39,19 +40,11 @@ public class Item {
 					this.healthLevel =
 						this.numberOfTimesUsed = 0;
 		
-		try {
-			this.setSprite(new Image("base/items/default.png"));
-		} 
-		
-		catch (SlickException e) {
-			System.out.println("Error in Item constructor for item with ID" 
-					+ this.ID + ": Invalid sprite file path");
-			e.printStackTrace();
-		}
+		this.setSprite(DEFAULT_ITEM_SPRITE);
 	}
 	
 	public Item(float xpos, float ypos, String nm, String spriteImage, int at, int sp, int ar, int hp, int id) {
-		System.out.println("THIS: "+sp);
+		EventLog.log(LogLevel.DEBUG, "Item", "Created item with speed level", sp);
 		this.attackLevel = at;
 		this.armorLevel = ar;
 		this.speedLevel = sp;
@@ -64,22 +57,7 @@ public class Item {
 		this.xPosition = xpos;
 		this.yPosition = ypos;
 		
-		try {
-			this.sprite = new Image(ITEM_FOLDER + spriteImage);
-		} 
-		
-		catch (SlickException e) {
-			System.out.println("Error in Item constructor for item with ID" 
-					+ this.ID + ": Invalid sprite file path");
-			e.printStackTrace();
-		}
-	}
-	
-	/**
-	 * Renders the item at the current location
-	 */
-	public void render() {
-		if(!this.getHeld()) this.getSprite().draw(this.getXPosition(), this.getYPosition());
+		this.sprite = ITEM_FOLDER + spriteImage;
 	}
 	
 	/**
@@ -111,11 +89,11 @@ public class Item {
 	
 	//////////////////////////////////////////////////
 
-	public void setSprite(Image sprite) {
+	public void setSprite(String sprite) {
 		this.sprite = sprite;
 	}
 
-	public Image getSprite() {
+	public String getSprite() {
 		return sprite;
 	}
 
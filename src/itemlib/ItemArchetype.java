@@ -0,0 +1,89 @@
+package itemlib;
+
+/**
+ * The fixed description of a kind of item: its name, sprite, identification number and the <br/>
+ * bonuses it gives. Read from the spawn table (see <code>environmentlib.SpawnTable</code>) and <br/>
+ * never changed once made.
+ */
+public final class ItemArchetype {
+
+	/**Name the spawn table refers to the item type by*/
+	private final String name;
+	/**Name shown to the player*/
+	private final String displayName;
+	/**File name of the sprite in the items folder*/
+	private final String spriteName;
+	/**Identification number (SWORD, ELIXIR, BOOK or AMULET)*/
+	private final int id;
+	private final int health;
+	private final int speed;
+	private final int armor;
+	private final int attack;
+
+	/**
+	 * Creates an item type<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>name</code>, <code>displayName</code> and <code>spriteName</code> are not null<br/>
+	 * <strong>Postcondition:</strong> The item type is created<br/><br/>
+	 *
+	 * @param name Name the spawn table refers to the item type by
+	 * @param displayName Name shown to the player
+	 * @param spriteName File name of the sprite in the items folder
+	 * @param id Identification number
+	 * @param health Health bonus
+	 * @param speed Speed bonus
+	 * @param armor Armor bonus
+	 * @param attack Attack bonus
+	 */
+	public ItemArchetype(String name, String displayName, String spriteName, int id, int health, int speed, int armor, int attack) {
+		this.name = name;
+		this.displayName = displayName;
+		this.spriteName = spriteName;
+		this.id = id;
+		this.health = health;
+		this.speed = speed;
+		this.armor = armor;
+		this.attack = attack;
+	}
+
+	/**
+	 * Creates an item of this type lying on the map
+	 */
+	public Item create(float xPos, float yPos) {
+		return new Item(xPos, yPos, this.displayName, this.spriteName, this.attack, this.speed, this.armor, this.health, this.id);
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	public String getName() {
+		return name;
+	}
+
+	public String getDisplayName() {
+		return displayName;
+	}
+
+	public String getSpriteName() {
+		return spriteName;
+	}
+
+	public int getID() {
+		return id;
+	}
+
+	public int getHealth() {
+		return health;
+	}
+
+	public int getSpeed() {
+		return speed;
+	}
+
+	public int getArmor() {
+		return armor;
+	}
+
+	public int getAttack() {
+		return attack;
+	}
+}
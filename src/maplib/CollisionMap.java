@@ -0,0 +1,149 @@
+package maplib;
+
+/**
+ * A precomputed grid of blocking tiles.<br/><br/>
+ *
+ * The "block" property of every tile on the map is read once when the map is loaded and<br/>
+ * packed into a bitset, one bit per tile in row-major order. Collision checks made during<br/>
+ * a frame are then plain array lookups rather than tile property string comparisons.<br/><br/>
+ *
+ * Tiles outside the bounds of the map are treated as blocked.
+ */
+public class CollisionMap {
+
+	/**Number of bits held by each word of the bitset*/
+	private static final int WORD_SIZE = 64;
+
+	/**Width of the map in tiles*/
+	private final int width;
+	/**Height of the map in tiles*/
+	private final int height;
+	/**Width of a single tile in pixels*/
+	private final int tileWidth;
+	/**Height of a single tile in pixels*/
+	private final int tileHeight;
+	/**Packed blocking bits, indexed by <code>tileY * width + tileX</code>*/
+	private final long[] blocked;
+
+	/**
+	 * Creates an empty (fully walkable) collision map<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> all arguments are positive integers<br/>
+	 * <strong>Postcondition:</strong> A map of the given size with no blocking tiles is created<br/><br/>
+	 *
+	 * @param width Width of the map in tiles
+	 * @param height Height of the map in tiles
+	 * @param tileWidth Width of a tile in pixels
+	 * @param tileHeight Height of a tile in pixels
+	 */
+	public CollisionMap(int width, int height, int tileWidth, int tileHeight) {
+		this.width = width;
+		this.height = height;
+		this.tileWidth = tileWidth;
+		this.tileHeight = tileHeight;
+		this.blocked = new long[(width * height + WORD_SIZE - 1) / WORD_SIZE];
+	}
+
+	/**
+	 * Builds a collision map from the base layer of a loaded tile map. The tile property is<br/>
+	 * resolved once per distinct tile id when the map is read, and looked up once per tile here.<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>map</code> is a loaded map<br/>
+	 * <strong>Postcondition:</strong> A collision map matching the map's "block" properties is returned<br/><br/>
+	 *
+	 * @param map The tile map to read blocking data from
+	 * @return The collision map for <code>map</code>
+	 */
+	public static CollisionMap fromTileMap(TileMapData map) {
+		CollisionMap collision = new CollisionMap(map.getWidth(), map.getHeight(),
+				map.getTileWidth(), map.getTileHeight());
+
+		for(int y = 0; y < map.getHeight(); y++) {
+			for(int x = 0; x < map.getWidth(); x++) {
+				collision.setBlocked(x, y, map.isBlockingTile(map.getTileId(x, y)));
+			}
+		}
+
+		return collision;
+	}
+
+	/**
+	 * Checks whether the tile at a grid location blocks movement
+	 *
+	 * @param tileX The horizontal grid index of the tile
+	 * @param tileY The vertical grid index of the tile
+	 * @return true if the tile is blocking or lies outside the map
+	 */
+	public boolean isBlocked(int tileX, int tileY) {
+		if(tileX < 0 || tileY < 0 || tileX >= this.width || tileY >= this.height) {
+			return true;
+		}
+
+		int index = tileY * this.width + tileX;
+		return (this.blocked[index / WORD_SIZE] & (1L << (index % WORD_SIZE))) != 0;
+	}
+
+	/**
+	 * Checks whether the tile underneath a map pixel blocks movement
+	 *
+	 * @param x The x-coordinate on the map, in pixels
+	 * @param y The y-coordinate on the map, in pixels
+	 * @return true if the tile under the pixel is blocking or lies outside the map
+	 */
+	public boolean isBlockedAt(float x, float y) {
+		return this.isBlocked(this.toTileX(x), this.toTileY(y));
+	}
+
+	/**
+	 * Sets whether the tile at a grid location blocks movement. Locations outside the map are ignored.
+	 *
+	 * @param tileX The horizontal grid index of the tile
+	 * @param tileY The vertical grid index of the tile
+	 * @param isBlocking true to block the tile, false to clear it
+	 */
+	public void setBlocked(int tileX, int tileY, boolean isBlocking) {
+		if(tileX < 0 || tileY < 0 || tileX >= this.width || tileY >= this.height) {
+			return;
+		}
+
+		int index = tileY * this.width + tileX;
+		if(isBlocking) {
+			this.blocked[index / WORD_SIZE] |= (1L << (index % WORD_SIZE));
+		}
+		else {
+			this.blocked[index / WORD_SIZE] &= ~(1L << (index % WORD_SIZE));
+		}
+	}
+
+	/**
+	 * Converts a map x-coordinate in pixels to a horizontal grid index
+	 */
+	public int toTileX(float x) {
+		return (int)Math.floor(x / this.tileWidth);
+	}
+
+	/**
+	 * Converts a map y-coordinate in pixels to a vertical grid index
+	 */
+	public int toTileY(float y) {
+		return (int)Math.floor(y / this.tileHeight);
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getTileWidth() {
+		return tileWidth;
+	}
+
+	public int getTileHeight() {
+		return tileHeight;
+	}
+}
@@ -0,0 +1,208 @@
+package maplib;
+
+import static config.GlobalConfiguration.*;
+
+/**
+ * Resolves character movement against the blocking tiles of a <code>CollisionMap</code>.<br/><br/>
+ *
+ * Each character is treated as an axis-aligned bounding box (its hitbox) which is inset from<br/>
+ * the top-left corner of its sprite. A move along one axis is swept across every tile column<br/>
+ * (or row) the leading edge of the box would pass through, and is cut short at the first blocking<br/>
+ * tile. Because the whole swept range is scanned, a character cannot tunnel through a wall no<br/>
+ * matter how large the frame delta is.<br/><br/>
+ *
+ * Moves are resolved one axis at a time, so a diagonal move into a wall slides along it.<br/>
+ * If a character already overlaps a blocking tile it is allowed to move out of it.
+ */
+public class CollisionResolver {
+
+	/**Distance to pull the exclusive edges of the hitbox in, so a box touching a tile edge doesn't overlap the tile*/
+	private static final float EDGE_EPSILON = 0.01f;
+
+	/**The grid that movement is resolved against*/
+	private final CollisionMap map;
+	/**Offset of the hitbox from the left of the sprite*/
+	private final float insetLeft;
+	/**Offset of the hitbox from the top of the sprite*/
+	private final float insetTop;
+	/**Width of the hitbox*/
+	private final float hitboxWidth;
+	/**Height of the hitbox*/
+	private final float hitboxHeight;
+
+	/**
+	 * Creates a resolver using the default character hitbox
+	 *
+	 * @param map The grid to resolve movement against
+	 */
+	public CollisionResolver(CollisionMap map) {
+		this(map, HITBOX_INSET_X, HITBOX_INSET_TOP,
+				map.getTileWidth() - 2 * HITBOX_INSET_X,
+				map.getTileHeight() - HITBOX_INSET_TOP - HITBOX_INSET_BOTTOM);
+	}
+
+	/**
+	 * Creates a resolver with a custom hitbox
+	 *
+	 * @param map The grid to resolve movement against
+	 * @param insetLeft Offset of the hitbox from the left of the sprite
+	 * @param insetTop Offset of the hitbox from the top of the sprite
+	 * @param hitboxWidth Width of the hitbox
+	 * @param hitboxHeight Height of the hitbox
+	 */
+	public CollisionResolver(CollisionMap map, float insetLeft, float insetTop, float hitboxWidth, float hitboxHeight) {
+		this.map = map;
+		this.insetLeft = insetLeft;
+		this.insetTop = insetTop;
+		this.hitboxWidth = hitboxWidth;
+		this.hitboxHeight = hitboxHeight;
+	}
+
+	/**
+	 * Sweeps the hitbox of a character horizontally and returns how far it can travel<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>x</code> and <code>y</code> are the map coordinates of the top left of the sprite<br/>
+	 * <strong>Postcondition:</strong> The permitted movement is returned; no state is changed<br/><br/>
+	 *
+	 * @param x The map x-coordinate of the sprite
+	 * @param y The map y-coordinate of the sprite
+	 * @param dx The requested horizontal movement in pixels
+	 * @return The movement that can be made before hitting a blocking tile, in the direction of <code>dx</code>
+	 */
+	public float resolveX(float x, float y, float dx) {
+		if(dx == 0) {
+			return 0;
+		}
+
+		float left = x + this.insetLeft;
+		float right = left + this.hitboxWidth;
+		int firstRow = this.map.toTileY(y + this.insetTop);
+		int lastRow = this.map.toTileY(y + this.insetTop + this.hitboxHeight - EDGE_EPSILON);
+
+		if(dx > 0) {
+			int startColumn = this.map.toTileX(right - EDGE_EPSILON) + 1;
+			int endColumn = this.map.toTileX(right + dx - EDGE_EPSILON);
+
+			for(int column = startColumn; column <= endColumn; column++) {
+				if(this.isColumnBlocked(column, firstRow, lastRow)) {
+					return Math.max(0, column * this.map.getTileWidth() - right);
+				}
+			}
+		}
+		else {
+			int startColumn = this.map.toTileX(left) - 1;
+			int endColumn = this.map.toTileX(left + dx);
+
+			for(int column = startColumn; column >= endColumn; column--) {
+				if(this.isColumnBlocked(column, firstRow, lastRow)) {
+					return Math.min(0, (column + 1) * this.map.getTileWidth() - left);
+				}
+			}
+		}
+
+		return dx;
+	}
+
+	/**
+	 * Sweeps the hitbox of a character vertically and returns how far it can travel<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>x</code> and <code>y</code> are the map coordinates of the top left of the sprite<br/>
+	 * <strong>Postcondition:</strong> The permitted movement is returned; no state is changed<br/><br/>
+	 *
+	 * @param x The map x-coordinate of the sprite
+	 * @param y The map y-coordinate of the sprite
+	 * @param dy The requested vertical movement in pixels
+	 * @return The movement that can be made before hitting a blocking tile, in the direction of <code>dy</code>
+	 */
+	public float resolveY(float x, float y, float dy) {
+		if(dy == 0) {
+			return 0;
+		}
+
+		float top = y + this.insetTop;
+		float bottom = top + this.hitboxHeight;
+		int firstColumn = this.map.toTileX(x + this.insetLeft);
+		int lastColumn = this.map.toTileX(x + this.insetLeft + this.hitboxWidth - EDGE_EPSILON);
+
+		if(dy > 0) {
+			int startRow = this.map.toTileY(bottom - EDGE_EPSILON) + 1;
+			int endRow = this.map.toTileY(bottom + dy - EDGE_EPSILON);
+
+			for(int row = startRow; row <= endRow; row++) {
+				if(this.isRowBlocked(row, firstColumn, lastColumn)) {
+					return Math.max(0, row * this.map.getTileHeight() - bottom);
+				}
+			}
+		}
+		else {
+			int startRow = this.map.toTileY(top) - 1;
+			int endRow = this.map.toTileY(top + dy);
+
+			for(int row = startRow; row >= endRow; row--) {
+				if(this.isRowBlocked(row, firstColumn, lastColumn)) {
+					return Math.min(0, (row + 1) * this.map.getTileHeight() - top);
+				}
+			}
+		}
+
+		return dy;
+	}
+
+	/**
+	 * Checks whether a character would be stopped short by moving <code>dx</code> pixels horizontally
+	 */
+	public boolean isBlockedX(float x, float y, float dx) {
+		return this.resolveX(x, y, dx) != dx;
+	}
+
+	/**
+	 * Checks whether a character would be stopped short by moving <code>dy</code> pixels vertically
+	 */
+	public boolean isBlockedY(float x, float y, float dy) {
+		return this.resolveY(x, y, dy) != dy;
+	}
+
+	/**
+	 * Scans a single tile column between two rows (inclusive) for blocking tiles
+	 */
+	private boolean isColumnBlocked(int column, int firstRow, int lastRow) {
+		for(int row = firstRow; row <= lastRow; row++) {
+			if(this.map.isBlocked(column, row)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Scans a single tile row between two columns (inclusive) for blocking tiles
+	 */
+	private boolean isRowBlocked(int row, int firstColumn, int lastColumn) {
+		for(int column = firstColumn; column <= lastColumn; column++) {
+			if(this.map.isBlocked(column, row)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the distance from the left of a sprite to the centre of its hitbox
+	 */
+	public float getCentreOffsetX() {
+		return this.insetLeft + this.hitboxWidth / 2;
+	}
+
+	/**
+	 * Gets the distance from the top of a sprite to the centre of its hitbox
+	 */
+	public float getCentreOffsetY() {
+		return this.insetTop + this.hitboxHeight / 2;
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	public CollisionMap getMap() {
+		return map;
+	}
+}
@@ -0,0 +1,276 @@
+package maplib;
+
+/**
+ * A field of distances to one goal tile across the walkable tiles of a <code>CollisionMap</code>, <br/>
+ * shared by every unit heading for that goal.<br/><br/>
+ *
+ * The field is built by a single Dijkstra search outward from the goal, with the same moves and <br/>
+ * costs as <code>GridPathfinder</code> (8 directions, straight steps 10, diagonal steps 14, no <br/>
+ * cutting the corners of walls). Each walkable tile then records the neighbour that is one step <br/>
+ * closer to the goal, so a unit finds its next step with one array lookup however many units <br/>
+ * are following the field.<br/><br/>
+ *
+ * The field is only rebuilt when the goal moves to another tile, and only out to a set range <br/>
+ * around the goal, since units only chase a goal they are close to; tiles further away read as <br/>
+ * unreachable. Tiles are stamped with the number of the rebuild that reached them rather than <br/>
+ * being cleared, and all storage is allocated when the field is created, so a rebuild costs <br/>
+ * only the tiles within range and allocates nothing. A field must not be read while it is <br/>
+ * being rebuilt.
+ */
+public class FlowField {
+
+	/**Cost of a horizontal or vertical step*/
+	private static final int STRAIGHT_COST = 10;
+	/**Cost of a diagonal step*/
+	private static final int DIAGONAL_COST = 14;
+	/**Distance of a tile the goal can't be reached from within range*/
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	/**Horizontal offsets of the 8 neighbours of a tile*/
+	private static final int[] STEP_X = {1, 0, -1, 0, 1, -1, -1, 1};
+	/**Vertical offsets of the 8 neighbours of a tile*/
+	private static final int[] STEP_Y = {0, 1, 0, -1, 1, 1, -1, -1};
+
+	/**The grid the field covers*/
+	private final CollisionMap map;
+	/**Width of the map in tiles*/
+	private final int width;
+	/**Height of the map in tiles*/
+	private final int height;
+	/**Highest path cost the field is built out to*/
+	private final int maxCost;
+
+	/**Cost of the shortest path from each tile to the goal*/
+	private final int[] distance;
+	/**The neighbouring tile one step closer to the goal, or -1 at the goal*/
+	private final int[] next;
+	/**The rebuild in which each tile was last reached; entries from other rebuilds are out of date*/
+	private final int[] stamp;
+	/**Open list of the search: a binary min-heap of (distance &lt;&lt; 32 | tile), allowing duplicate entries*/
+	private final long[] heap;
+	/**Number of entries in <code>heap</code>*/
+	private int heapSize;
+
+	/**Tile the field leads to, or -1 before the first update*/
+	private int goalTile;
+	/**Number of times the field has been rebuilt, used to stamp the tiles reached*/
+	private int version;
+
+	/**
+	 * Creates an empty field over a collision map<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>map</code> is a valid collision map; <code>range</code> is positive<br/>
+	 * <strong>Postcondition:</strong> Every tile is unreachable until the first <code>update</code><br/><br/>
+	 *
+	 * @param map The grid the field covers
+	 * @param range The longest path, in straight steps, that the field is built out to
+	 */
+	public FlowField(CollisionMap map, int range) {
+		this.map = map;
+		this.width = map.getWidth();
+		this.height = map.getHeight();
+		this.maxCost = range * STRAIGHT_COST;
+
+		int size = this.width * this.height;
+		this.distance = new int[size];
+		this.next = new int[size];
+		this.stamp = new int[size];
+		//each tile is pushed at most once per neighbour that improves it
+		this.heap = new long[size * STEP_X.length + 1];
+		this.goalTile = -1;
+		this.version = 1;
+	}
+
+	/**
+	 * Points the field at a goal tile, rebuilding it only if the goal has changed<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> the arguments are grid indices<br/>
+	 * <strong>Postcondition:</strong> The field leads to the goal from every tile that can reach it<br/><br/>
+	 *
+	 * @param goalX Horizontal grid index of the goal tile
+	 * @param goalY Vertical grid index of the goal tile
+	 * @return true if the field was rebuilt
+	 */
+	public boolean update(int goalX, int goalY) {
+		int goal = this.map.isBlocked(goalX, goalY) ? -1 : goalY * this.width + goalX;
+
+		if(goal == this.goalTile) {
+			return false;
+		}
+
+		this.goalTile = goal;
+		this.rebuild();
+		return true;
+	}
+
+	/**
+	 * Forgets the goal, so the next <code>update</code> rebuilds the field
+	 */
+	public void clear() {
+		this.goalTile = -1;
+		this.nextVersion();
+	}
+
+	/**
+	 * Gets the cost of the shortest path from a tile to the goal (10 per straight step, 14 per diagonal)
+	 *
+	 * @return The cost, or <code>UNREACHABLE</code>
+	 */
+	public int getDistance(int x, int y) {
+		if(x < 0 || y < 0 || x >= this.width || y >= this.height) {
+			return UNREACHABLE;
+		}
+		int tile = y * this.width + x;
+		return this.stamp[tile] == this.version ? this.distance[tile] : UNREACHABLE;
+	}
+
+	/**
+	 * Gets the tile a unit standing on a tile should step to next to reach the goal
+	 *
+	 * @return The index (y * width + x) of the neighbouring tile, or -1 if the tile is the goal, <br/>
+	 * can't reach it within range, or is off the map
+	 */
+	public int getNextTile(int x, int y) {
+		if(x < 0 || y < 0 || x >= this.width || y >= this.height) {
+			return -1;
+		}
+		int tile = y * this.width + x;
+		return this.stamp[tile] == this.version ? this.next[tile] : -1;
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm outward from the goal, as far as <code>maxCost</code>. Steps cost <br/>
+	 * the same in both directions, so the tile a tile was reached from is its next step to the goal.
+	 */
+	private void rebuild() {
+		this.nextVersion();
+
+		if(this.goalTile < 0) {
+			return;
+		}
+
+		this.heapSize = 0;
+		this.reach(this.goalTile, 0, -1);
+
+		while(this.heapSize > 0) {
+			long entry = this.pop();
+			int cost = (int)(entry >>> 32);
+			int tile = (int)entry;
+
+			//a stale duplicate, left behind when the tile was improved
+			if(cost > this.distance[tile]) {
+				continue;
+			}
+
+			int x = tile % this.width;
+			int y = tile / this.width;
+
+			for(int i = 0; i < STEP_X.length; i++) {
+				if(!this.canStep(x, y, STEP_X[i], STEP_Y[i])) {
+					continue;
+				}
+
+				int neighbour = (y + STEP_Y[i]) * this.width + x + STEP_X[i];
+				int newCost = cost + (i < 4 ? STRAIGHT_COST : DIAGONAL_COST);
+
+				if(newCost <= this.maxCost && (this.stamp[neighbour] != this.version || newCost < this.distance[neighbour])) {
+					this.reach(neighbour, newCost, tile);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records a new best path to a tile, and puts it on the open list
+	 */
+	private void reach(int tile, int cost, int from) {
+		this.stamp[tile] = this.version;
+		this.distance[tile] = cost;
+		this.next[tile] = from;
+		this.push(cost, tile);
+	}
+
+	/**
+	 * Starts a new version of the field, so that every tile stamped by an earlier one is out of date
+	 */
+	private void nextVersion() {
+		this.version++;
+
+		//after 2^31 rebuilds the stamps wrap around, so the old stamps must really be cleared
+		if(this.version == Integer.MAX_VALUE) {
+			java.util.Arrays.fill(this.stamp, 0);
+			this.version = 1;
+		}
+	}
+
+	/**
+	 * Checks whether a unit can step from a tile to one of its 8 neighbours without cutting a corner
+	 */
+	private boolean canStep(int x, int y, int dx, int dy) {
+		if(this.map.isBlocked(x + dx, y + dy)) {
+			return false;
+		}
+		return dx == 0 || dy == 0 || (!this.map.isBlocked(x + dx, y) && !this.map.isBlocked(x, y + dy));
+	}
+
+	/*OPEN LIST*/
+	private void push(int cost, int tile) {
+		long entry = ((long)cost << 32) | tile;
+		int i = this.heapSize++;
+
+		while(i > 0) {
+			int up = (i - 1) / 2;
+			if(this.heap[up] <= entry) {
+				break;
+			}
+			this.heap[i] = this.heap[up];
+			i = up;
+		}
+
+		this.heap[i] = entry;
+	}
+
+	private long pop() {
+		long lowest = this.heap[0];
+		long entry = this.heap[--this.heapSize];
+		int i = 0;
+
+		while(true) {
+			int child = 2 * i + 1;
+			if(child >= this.heapSize) {
+				break;
+			}
+			if(child + 1 < this.heapSize && this.heap[child + 1] < this.heap[child]) {
+				child++;
+			}
+			if(entry <= this.heap[child]) {
+				break;
+			}
+			this.heap[i] = this.heap[child];
+			i = child;
+		}
+
+		this.heap[i] = entry;
+		return lowest;
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	public CollisionMap getMap() {
+		return map;
+	}
+
+	/**
+	 * Gets the tile the field leads to, as y * width + x, or -1 if it has no goal
+	 */
+	public int getGoalTile() {
+		return goalTile;
+	}
+
+	/**
+	 * Gets the number of times the field has been rebuilt or cleared
+	 */
+	public int getVersion() {
+		return version;
+	}
+}
@@ -0,0 +1,431 @@
+package maplib;
+
+/**
+ * Finds paths across the walkable tiles of a <code>CollisionMap</code> using jump point search.<br/><br/>
+ *
+ * Movement is 8-directional at uniform cost (diagonal steps cost 14, straight steps 10), and a <br/>
+ * diagonal step is only allowed when both tiles beside it are walkable, so a path never cuts <br/>
+ * across the corner of a wall. Jump point search is A* that skips over the long runs of open <br/>
+ * tiles a uniform grid is made of, only stopping at tiles where the path may have to turn. The <br/>
+ * path found is the list of those turning points, each reachable from the last by a straight <br/>
+ * or diagonal line.<br/><br/>
+ *
+ * All working storage (the open list heap, scores, parents, and the open and closed marks) is <br/>
+ * held in primitive arrays sized to the map when the pathfinder is created. Marks are stamped <br/>
+ * with a search number instead of being cleared, so a search allocates nothing and costs only <br/>
+ * what it visits. A pathfinder is therefore not thread safe; use one per thread.
+ */
+public class GridPathfinder {
+
+	/**Cost of a horizontal or vertical step*/
+	private static final int STRAIGHT_COST = 10;
+	/**Cost of a diagonal step*/
+	private static final int DIAGONAL_COST = 14;
+
+	/**The grid paths are found across*/
+	private final CollisionMap map;
+	/**Width of the map in tiles*/
+	private final int width;
+	/**Height of the map in tiles*/
+	private final int height;
+
+	/**Best known cost from the start to each tile*/
+	private final int[] gScore;
+	/**Estimated total cost through each tile, used to order the open list*/
+	private final int[] fScore;
+	/**The tile each tile was reached from (-1 for the start)*/
+	private final int[] parent;
+	/**The search in which each tile was last put on the open list*/
+	private final int[] openStamp;
+	/**The search in which each tile was last closed*/
+	private final int[] closedStamp;
+	/**Binary min-heap of open tiles, ordered by <code>fScore</code>*/
+	private final int[] heap;
+	/**Position of each tile in <code>heap</code>, valid while it is open*/
+	private final int[] heapIndex;
+	/**Number of tiles in <code>heap</code>*/
+	private int heapSize;
+	/**Number of the current search; marks from other searches are ignored*/
+	private int searchStamp;
+
+	/**Successors of the tile being expanded, as tile indices*/
+	private final int[] successors;
+	/**The last path found, from the first turning point after the start to the goal*/
+	private final int[] path;
+	/**Number of tiles in <code>path</code>*/
+	private int pathLength;
+
+	/**Goal of the current search*/
+	private int goalX;
+	private int goalY;
+
+	/**
+	 * Creates a pathfinder over a collision map<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>map</code> is a valid collision map<br/>
+	 * <strong>Postcondition:</strong> All the storage searches need is allocated<br/><br/>
+	 *
+	 * @param map The grid to find paths across
+	 */
+	public GridPathfinder(CollisionMap map) {
+		this.map = map;
+		this.width = map.getWidth();
+		this.height = map.getHeight();
+
+		int size = this.width * this.height;
+		this.gScore = new int[size];
+		this.fScore = new int[size];
+		this.parent = new int[size];
+		this.openStamp = new int[size];
+		this.closedStamp = new int[size];
+		this.heap = new int[size];
+		this.heapIndex = new int[size];
+		this.successors = new int[8];
+		this.path = new int[size];
+		this.searchStamp = 0;
+	}
+
+	/**
+	 * Searches for the shortest path between two tiles<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> the arguments are grid indices<br/>
+	 * <strong>Postcondition:</strong> If a path exists, its turning points are available from <br/>
+	 * <code>getPathLength</code>, <code>getPathTileX</code> and <code>getPathTileY</code><br/><br/>
+	 *
+	 * @param startX Horizontal grid index of the start tile
+	 * @param startY Vertical grid index of the start tile
+	 * @param goalX Horizontal grid index of the goal tile
+	 * @param goalY Vertical grid index of the goal tile
+	 * @return true if the goal can be reached from the start
+	 */
+	public boolean findPath(int startX, int startY, int goalX, int goalY) {
+		this.pathLength = 0;
+
+		if(!this.isWalkable(startX, startY) || !this.isWalkable(goalX, goalY)) {
+			return false;
+		}
+		if(startX == goalX && startY == goalY) {
+			return true;
+		}
+
+		this.nextSearch();
+		this.goalX = goalX;
+		this.goalY = goalY;
+		this.heapSize = 0;
+
+		int start = startY * this.width + startX;
+		int goal = goalY * this.width + goalX;
+		this.gScore[start] = 0;
+		this.parent[start] = -1;
+		this.open(start, this.heuristic(startX, startY));
+
+		while(this.heapSize > 0) {
+			int node = this.popLowest();
+
+			if(node == goal) {
+				this.buildPath(start, goal);
+				return true;
+			}
+
+			this.closedStamp[node] = this.searchStamp;
+			this.expand(node);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Gets the number of turning points in the last path found (0 if none was found, or the <br/>
+	 * start was the goal)
+	 */
+	public int getPathLength() {
+		return this.pathLength;
+	}
+
+	/**
+	 * Gets the horizontal grid index of a turning point on the last path found
+	 *
+	 * @param i The turning point, from 0 (the first after the start) to <code>getPathLength() - 1</code> (the goal)
+	 */
+	public int getPathTileX(int i) {
+		return this.path[i] % this.width;
+	}
+
+	/**
+	 * Gets the vertical grid index of a turning point on the last path found
+	 *
+	 * @param i The turning point, from 0 (the first after the start) to <code>getPathLength() - 1</code> (the goal)
+	 */
+	public int getPathTileY(int i) {
+		return this.path[i] / this.width;
+	}
+
+	/**
+	 * Jumps from a tile in the direction of each of its pruned neighbours, and opens (or <br/>
+	 * improves) every jump point found
+	 */
+	private void expand(int node) {
+		int x = node % this.width;
+		int y = node / this.width;
+		int count = this.findNeighbours(node, x, y);
+
+		for(int i = 0; i < count; i++) {
+			int neighbour = this.successors[i];
+			int jumpPoint = this.jump(neighbour % this.width, neighbour / this.width, x, y);
+
+			if(jumpPoint < 0 || this.closedStamp[jumpPoint] == this.searchStamp) {
+				continue;
+			}
+
+			int jumpX = jumpPoint % this.width;
+			int jumpY = jumpPoint / this.width;
+			int cost = this.gScore[node] + this.distance(jumpX - x, jumpY - y);
+
+			if(this.openStamp[jumpPoint] != this.searchStamp) {
+				this.gScore[jumpPoint] = cost;
+				this.parent[jumpPoint] = node;
+				this.open(jumpPoint, cost + this.heuristic(jumpX, jumpY));
+			}
+			else if(cost < this.gScore[jumpPoint]) {
+				this.gScore[jumpPoint] = cost;
+				this.parent[jumpPoint] = node;
+				this.fScore[jumpPoint] = cost + this.heuristic(jumpX, jumpY);
+				this.siftUp(this.heapIndex[jumpPoint]);
+			}
+		}
+	}
+
+	/**
+	 * Fills <code>successors</code> with the neighbours of a tile worth jumping towards, given <br/>
+	 * the direction it was reached from. The start tile has every walkable neighbour.
+	 *
+	 * @return The number of neighbours found
+	 */
+	private int findNeighbours(int node, int x, int y) {
+		int count = 0;
+		int from = this.parent[node];
+
+		if(from < 0) {
+			for(int dy = -1; dy <= 1; dy++) {
+				for(int dx = -1; dx <= 1; dx++) {
+					if((dx != 0 || dy != 0) && this.canStep(x, y, dx, dy)) {
+						this.successors[count++] = (y + dy) * this.width + x + dx;
+					}
+				}
+			}
+			return count;
+		}
+
+		int dx = Integer.signum(x - from % this.width);
+		int dy = Integer.signum(y - from / this.width);
+
+		if(dx != 0 && dy != 0) {
+			boolean vertical = this.isWalkable(x, y + dy);
+			boolean horizontal = this.isWalkable(x + dx, y);
+
+			if(vertical) this.successors[count++] = (y + dy) * this.width + x;
+			if(horizontal) this.successors[count++] = y * this.width + x + dx;
+			if(vertical && horizontal) this.successors[count++] = (y + dy) * this.width + x + dx;
+		}
+		else if(dx != 0) {
+			boolean ahead = this.isWalkable(x + dx, y);
+			boolean below = this.isWalkable(x, y + 1);
+			boolean above = this.isWalkable(x, y - 1);
+
+			if(ahead) {
+				this.successors[count++] = y * this.width + x + dx;
+				if(below) this.successors[count++] = (y + 1) * this.width + x + dx;
+				if(above) this.successors[count++] = (y - 1) * this.width + x + dx;
+			}
+			if(below) this.successors[count++] = (y + 1) * this.width + x;
+			if(above) this.successors[count++] = (y - 1) * this.width + x;
+		}
+		else {
+			boolean ahead = this.isWalkable(x, y + dy);
+			boolean right = this.isWalkable(x + 1, y);
+			boolean left = this.isWalkable(x - 1, y);
+
+			if(ahead) {
+				this.successors[count++] = (y + dy) * this.width + x;
+				if(right) this.successors[count++] = (y + dy) * this.width + x + 1;
+				if(left) this.successors[count++] = (y + dy) * this.width + x - 1;
+			}
+			if(right) this.successors[count++] = y * this.width + x + 1;
+			if(left) this.successors[count++] = y * this.width + x - 1;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Travels from (px, py) through (x, y) in a straight or diagonal line until it reaches the <br/>
+	 * goal, a wall, or a tile where the path may need to turn (a jump point)
+	 *
+	 * @return The index of the jump point, or -1 if the line ends at a wall
+	 */
+	private int jump(int x, int y, int px, int py) {
+		int dx = x - px;
+		int dy = y - py;
+
+		while(true) {
+			if(!this.isWalkable(x, y)) {
+				return -1;
+			}
+			if(x == this.goalX && y == this.goalY) {
+				return y * this.width + x;
+			}
+
+			if(dx != 0 && dy != 0) {
+				//a diagonal move stops wherever one of its straight components finds a jump point
+				if(this.jump(x + dx, y, x, y) >= 0 || this.jump(x, y + dy, x, y) >= 0) {
+					return y * this.width + x;
+				}
+				if(!this.isWalkable(x + dx, y) || !this.isWalkable(x, y + dy)) {
+					return -1;
+				}
+			}
+			else if(dx != 0) {
+				if((this.isWalkable(x, y - 1) && !this.isWalkable(x - dx, y - 1))
+						|| (this.isWalkable(x, y + 1) && !this.isWalkable(x - dx, y + 1))) {
+					return y * this.width + x;
+				}
+			}
+			else {
+				if((this.isWalkable(x - 1, y) && !this.isWalkable(x - 1, y - dy))
+						|| (this.isWalkable(x + 1, y) && !this.isWalkable(x + 1, y - dy))) {
+					return y * this.width + x;
+				}
+			}
+
+			x += dx;
+			y += dy;
+		}
+	}
+
+	/**
+	 * Copies the turning points from the goal back to the start into <code>path</code>, in order from the start
+	 */
+	private void buildPath(int start, int goal) {
+		int length = 0;
+		for(int node = goal; node != start; node = this.parent[node]) {
+			length++;
+		}
+
+		this.pathLength = length;
+		for(int node = goal; node != start; node = this.parent[node]) {
+			this.path[--length] = node;
+		}
+	}
+
+	/**
+	 * Checks whether a unit can step from a tile to one of its 8 neighbours without cutting a corner
+	 */
+	private boolean canStep(int x, int y, int dx, int dy) {
+		if(!this.isWalkable(x + dx, y + dy)) {
+			return false;
+		}
+		return dx == 0 || dy == 0 || (this.isWalkable(x + dx, y) && this.isWalkable(x, y + dy));
+	}
+
+	private boolean isWalkable(int x, int y) {
+		return !this.map.isBlocked(x, y);
+	}
+
+	/**
+	 * Cost of moving in a straight or diagonal line by (dx, dy) tiles
+	 */
+	private int distance(int dx, int dy) {
+		dx = Math.abs(dx);
+		dy = Math.abs(dy);
+		return DIAGONAL_COST * Math.min(dx, dy) + STRAIGHT_COST * Math.abs(dx - dy);
+	}
+
+	/**
+	 * Octile distance from a tile to the goal, which never overestimates the true cost
+	 */
+	private int heuristic(int x, int y) {
+		return this.distance(this.goalX - x, this.goalY - y);
+	}
+
+	/**
+	 * Starts a new search, so that every mark left by earlier searches is ignored
+	 */
+	private void nextSearch() {
+		this.searchStamp++;
+
+		//after 2^31 searches the stamps wrap around, so the old marks must really be cleared
+		if(this.searchStamp == Integer.MAX_VALUE) {
+			java.util.Arrays.fill(this.openStamp, 0);
+			java.util.Arrays.fill(this.closedStamp, 0);
+			this.searchStamp = 1;
+		}
+	}
+
+	/*OPEN LIST*/
+	private void open(int node, int f) {
+		this.openStamp[node] = this.searchStamp;
+		this.fScore[node] = f;
+		this.heap[this.heapSize] = node;
+		this.heapIndex[node] = this.heapSize;
+		this.siftUp(this.heapSize++);
+	}
+
+	private int popLowest() {
+		int lowest = this.heap[0];
+		this.heapSize--;
+
+		if(this.heapSize > 0) {
+			this.heap[0] = this.heap[this.heapSize];
+			this.heapIndex[this.heap[0]] = 0;
+			this.siftDown(0);
+		}
+
+		return lowest;
+	}
+
+	private void siftUp(int i) {
+		int node = this.heap[i];
+
+		while(i > 0) {
+			int up = (i - 1) / 2;
+			if(this.fScore[this.heap[up]] <= this.fScore[node]) {
+				break;
+			}
+			this.heap[i] = this.heap[up];
+			this.heapIndex[this.heap[i]] = i;
+			i = up;
+		}
+
+		this.heap[i] = node;
+		this.heapIndex[node] = i;
+	}
+
+	private void siftDown(int i) {
+		int node = this.heap[i];
+
+		while(true) {
+			int child = 2 * i + 1;
+			if(child >= this.heapSize) {
+				break;
+			}
+			if(child + 1 < this.heapSize && this.fScore[this.heap[child + 1]] < this.fScore[this.heap[child]]) {
+				child++;
+			}
+			if(this.fScore[node] <= this.fScore[this.heap[child]]) {
+				break;
+			}
+			this.heap[i] = this.heap[child];
+			this.heapIndex[this.heap[i]] = i;
+			i = child;
+		}
+
+		this.heap[i] = node;
+		this.heapIndex[node] = i;
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	public CollisionMap getMap() {
+		return map;
+	}
+}
@@ -0,0 +1,253 @@
+package maplib;
+
+import static config.GlobalConfiguration.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * The tile data of a Tiled (.tmx) map, read without any rendering library.<br/><br/>
+ *
+ * Only what the simulation needs is kept: the size of the map and its tiles, the global tile<br/>
+ * id of every tile on the base layer, and which tile ids carry the "block" property. Tilesets<br/>
+ * may be embedded in the map or referenced as external .tsx files, and layer data may be<br/>
+ * base64 (plain, gzip or zlib compressed) or CSV encoded.<br/><br/>
+ *
+ * Drawing the map is left to the renderer, which loads the images itself.
+ */
+public class TileMapData {
+
+	/**Width of the map in tiles*/
+	private final int width;
+	/**Height of the map in tiles*/
+	private final int height;
+	/**Width of a single tile in pixels*/
+	private final int tileWidth;
+	/**Height of a single tile in pixels*/
+	private final int tileHeight;
+	/**Global tile ids of the base layer, indexed by <code>tileY * width + tileX</code> (0 is an empty tile)*/
+	private final int[] tiles;
+	/**Global ids of the tiles that block movement*/
+	private final HashSet<Integer> blockingTiles;
+
+	/**
+	 * Creates map data from already decoded tiles<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>tiles</code> holds <code>width * height</code> global tile ids<br/>
+	 * <strong>Postcondition:</strong> The map data is created; the arrays are not copied<br/><br/>
+	 *
+	 * @param width Width of the map in tiles
+	 * @param height Height of the map in tiles
+	 * @param tileWidth Width of a tile in pixels
+	 * @param tileHeight Height of a tile in pixels
+	 * @param tiles Global tile ids of the base layer, in row-major order
+	 * @param blockingTiles Global ids of the tiles that block movement
+	 */
+	public TileMapData(int width, int height, int tileWidth, int tileHeight, int[] tiles, HashSet<Integer> blockingTiles) {
+		this.width = width;
+		this.height = height;
+		this.tileWidth = tileWidth;
+		this.tileHeight = tileHeight;
+		this.tiles = tiles;
+		this.blockingTiles = blockingTiles;
+	}
+
+	/**
+	 * Reads a map from a .tmx file. External tilesets are resolved relative to the map's folder.<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>path</code> names a readable orthogonal Tiled map<br/>
+	 * <strong>Postcondition:</strong> The base layer and blocking tiles of the map are returned<br/><br/>
+	 *
+	 * @param path Path of the .tmx file
+	 * @return The map data
+	 * @throws IOException The map or one of its tilesets can't be read or parsed
+	 */
+	public static TileMapData load(String path) throws IOException {
+		File mapFile = new File(path);
+		Element map = parse(mapFile);
+
+		HashSet<Integer> blockingTiles = new HashSet<Integer>();
+		NodeList tilesets = map.getElementsByTagName("tileset");
+
+		for(int i = 0; i < tilesets.getLength(); i++) {
+			Element tileset = (Element)tilesets.item(i);
+			int firstGid = Integer.parseInt(tileset.getAttribute("firstgid"));
+
+			if(tileset.hasAttribute("source")) {
+				tileset = parse(new File(mapFile.getParentFile(), tileset.getAttribute("source")));
+			}
+
+			readBlockingTiles(tileset, firstGid, blockingTiles);
+		}
+
+		int width = Integer.parseInt(map.getAttribute("width"));
+		int height = Integer.parseInt(map.getAttribute("height"));
+
+		Element layer = (Element)map.getElementsByTagName("layer").item(0);
+		if(layer == null) {
+			throw new IOException("Map " + path + " has no tile layer");
+		}
+
+		int[] tiles = readLayer((Element)layer.getElementsByTagName("data").item(0), width * height);
+
+		return new TileMapData(width, height,
+				Integer.parseInt(map.getAttribute("tilewidth")),
+				Integer.parseInt(map.getAttribute("tileheight")),
+				tiles, blockingTiles);
+	}
+
+	/**
+	 * Gets the global id of the tile at a grid location on the base layer
+	 *
+	 * @param tileX The horizontal grid index of the tile
+	 * @param tileY The vertical grid index of the tile
+	 * @return The global tile id, or 0 if the location is outside the map
+	 */
+	public int getTileId(int tileX, int tileY) {
+		if(tileX < 0 || tileY < 0 || tileX >= this.width || tileY >= this.height) {
+			return 0;
+		}
+		return this.tiles[tileY * this.width + tileX];
+	}
+
+	/**
+	 * Checks whether a tile id has the "block" property set
+	 */
+	public boolean isBlockingTile(int tileId) {
+		return this.blockingTiles.contains(tileId);
+	}
+
+	/**
+	 * Parses an XML file and returns its root element
+	 */
+	private static Element parse(File file) throws IOException {
+		try {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			//the map's DOCTYPE points at a remote DTD which must not be fetched
+			factory.setValidating(false);
+			factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+
+			DocumentBuilder builder = factory.newDocumentBuilder();
+			Document document = builder.parse(file);
+			return document.getDocumentElement();
+		}
+		catch(ParserConfigurationException e) {
+			throw new IOException("Can't create an XML parser for " + file, e);
+		}
+		catch(SAXException e) {
+			throw new IOException("Malformed XML in " + file, e);
+		}
+	}
+
+	/**
+	 * Adds the global ids of the tiles in a tileset whose "block" property is "1"
+	 */
+	private static void readBlockingTiles(Element tileset, int firstGid, HashSet<Integer> blockingTiles) {
+		NodeList tiles = tileset.getElementsByTagName("tile");
+
+		for(int i = 0; i < tiles.getLength(); i++) {
+			Element tile = (Element)tiles.item(i);
+			NodeList properties = tile.getElementsByTagName("property");
+
+			for(int j = 0; j < properties.getLength(); j++) {
+				Element property = (Element)properties.item(j);
+				if(property.getAttribute("name").equals(BLOCK_PROPERTY) && property.getAttribute("value").equals("1")) {
+					blockingTiles.add(firstGid + Integer.parseInt(tile.getAttribute("id")));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decodes the tile ids held by a layer's data element
+	 */
+	private static int[] readLayer(Element data, int size) throws IOException {
+		String encoding = data.getAttribute("encoding");
+		String compression = data.getAttribute("compression");
+		String text = data.getTextContent().trim();
+		int[] tiles = new int[size];
+
+		if(encoding.equals("csv")) {
+			String[] values = text.split("\\s*,\\s*");
+			if(values.length != size) {
+				throw new IOException("Expected " + size + " tiles in layer but found " + values.length);
+			}
+			for(int i = 0; i < size; i++) {
+				tiles[i] = (int)Long.parseLong(values[i].trim());
+			}
+			return tiles;
+		}
+
+		if(!encoding.equals("base64")) {
+			throw new IOException("Unsupported layer encoding \"" + encoding + "\"");
+		}
+
+		byte[] bytes = Base64.getMimeDecoder().decode(text);
+		InputStream in = new ByteArrayInputStream(bytes);
+
+		if(compression.equals("gzip")) {
+			in = new GZIPInputStream(in);
+		}
+		else if(compression.equals("zlib")) {
+			in = new InflaterInputStream(in);
+		}
+		else if(!compression.isEmpty()) {
+			throw new IOException("Unsupported layer compression \"" + compression + "\"");
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(size * 4);
+		byte[] buffer = new byte[4096];
+		int read;
+		while((read = in.read(buffer)) > 0) {
+			out.write(buffer, 0, read);
+		}
+		in.close();
+		bytes = out.toByteArray();
+
+		if(bytes.length < size * 4) {
+			throw new IOException("Expected " + size + " tiles in layer but found " + bytes.length / 4);
+		}
+
+		//each id is a little-endian unsigned int
+		for(int i = 0; i < size; i++) {
+			tiles[i] = (bytes[i * 4] & 0xFF)
+					| (bytes[i * 4 + 1] & 0xFF) << 8
+					| (bytes[i * 4 + 2] & 0xFF) << 16
+					| (bytes[i * 4 + 3] & 0xFF) << 24;
+		}
+
+		return tiles;
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getTileWidth() {
+		return tileWidth;
+	}
+
+	public int getTileHeight() {
+		return tileHeight;
+	}
+}
@@ -0,0 +1,187 @@
+package renderlib;
+
+import enginelib.AssetLoadEvent;
+import environmentlib.SpriteTracker;
+import java.util.HashMap;
+import java.util.Iterator;
+import org.newdawn.slick.Image;
+import org.newdawn.slick.SlickException;
+
+/**
+ * Decodes each sprite image once and shares it between every unit and item that uses it.<br/><br/>
+ * 
+ * The world reports the sprites its units and items use through <code>SpriteTracker</code>, <br/>
+ * and the manager counts the references to each one. Images are loaded the first time they <br/>
+ * are drawn. An image whose count falls to zero is not freed straight away but on the next <br/>
+ * call to <code>evictUnused</code>, so a map reset (which releases every unit and then adds <br/>
+ * them again) doesn't reload anything.<br/><br/>
+ * 
+ * Units facing left are drawn with a horizontally flipped copy of their sprite. The copy is <br/>
+ * made once per image and kept with it, rather than once per unit per turn.
+ */
+public class AssetManager implements SpriteTracker {
+	
+	/**
+	 * A cached image, its flipped copy and its reference count
+	 */
+	private static class Asset {
+		private Image image;
+		private Image flippedImage;
+		private int references;
+	}
+	
+	/**Every tracked or loaded asset, keyed by file path*/
+	private final HashMap<String, Asset> assets;
+	/**Set when a reference count has fallen to zero since the last eviction*/
+	private boolean evictionPending;
+	
+	/**
+	 * Creates an empty asset manager
+	 */
+	public AssetManager() {
+		this.assets = new HashMap<String, Asset>();
+		this.evictionPending = false;
+	}
+	
+	/**
+	 * Adds a reference to the image at a path. The image isn't loaded until it is first drawn.
+	 */
+	@Override
+	public void acquire(String path) {
+		Asset asset = this.assets.get(path);
+		
+		if(asset == null) {
+			asset = new Asset();
+			this.assets.put(path, asset);
+		}
+		
+		asset.references++;
+	}
+	
+	/**
+	 * Removes a reference to the image at a path. Once no references remain the image can be <br/>
+	 * freed by <code>evictUnused</code>.
+	 */
+	@Override
+	public void release(String path) {
+		Asset asset = this.assets.get(path);
+		
+		if(asset != null && asset.references > 0) {
+			asset.references--;
+			if(asset.references == 0) {
+				this.evictionPending = true;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the image at a path, loading it if this is the first request for it<br/><br/>
+	 * 
+	 * <strong>Precondition:</strong> <code>path</code> names an image file<br/>
+	 * <strong>Postcondition:</strong> The image is loaded and cached; reference counts are unchanged<br/><br/>
+	 * 
+	 * @param path Path of the image file
+	 * @return The shared image
+	 * @throws SlickException The image can't be loaded
+	 */
+	public Image get(String path) throws SlickException {
+		Asset asset = this.assets.get(path);
+		
+		if(asset == null) {
+			asset = new Asset();
+			this.assets.put(path, asset);
+		}
+		
+		if(asset.image == null) {
+			AssetLoadEvent event = new AssetLoadEvent();
+			event.begin();
+			
+			asset.image = new Image(path);
+			
+			event.end();
+			if(event.shouldCommit()) {
+				event.path = path;
+				event.width = asset.image.getWidth();
+				event.height = asset.image.getHeight();
+				event.bytes = 4L * event.width * event.height;
+				event.commit();
+			}
+		}
+		
+		return asset.image;
+	}
+	
+	/**
+	 * Gets the image at a path, optionally flipped horizontally
+	 * 
+	 * @param path Path of the image file
+	 * @param flipped true to get the image mirrored left to right
+	 * @return The shared image
+	 * @throws SlickException The image can't be loaded
+	 */
+	public Image get(String path, boolean flipped) throws SlickException {
+		Image image = this.get(path);
+		
+		if(!flipped) {
+			return image;
+		}
+		
+		Asset asset = this.assets.get(path);
+		if(asset.flippedImage == null) {
+			asset.flippedImage = image.getFlippedCopy(true, false);
+		}
+		
+		return asset.flippedImage;
+	}
+	
+	/**
+	 * Frees every image that no unit or item refers to any more. Does nothing unless a <br/>
+	 * reference count has fallen to zero since the last call, so it is cheap to call every frame.
+	 * 
+	 * @return The number of images freed
+	 * @throws SlickException An image fails to be freed
+	 */
+	public int evictUnused() throws SlickException {
+		if(!this.evictionPending) {
+			return 0;
+		}
+		
+		int evicted = 0;
+		Iterator<Asset> it = this.assets.values().iterator();
+		
+		while(it.hasNext()) {
+			Asset asset = it.next();
+			
+			if(asset.references == 0) {
+				if(asset.image != null) {
+					//the flipped copy shares the original's texture
+					asset.image.destroy();
+					evicted++;
+				}
+				it.remove();
+			}
+		}
+		
+		this.evictionPending = false;
+		return evicted;
+	}
+	
+	/**
+	 * Gets the number of units and items currently using the image at a path
+	 */
+	public int getReferenceCount(String path) {
+		Asset asset = this.assets.get(path);
+		return asset == null ? 0 : asset.references;
+	}
+	
+	/**
+	 * Gets the number of images currently decoded
+	 */
+	public int getLoadedCount() {
+		int count = 0;
+		for(Asset asset : this.assets.values()) {
+			if(asset.image != null) count++;
+		}
+		return count;
+	}
+}
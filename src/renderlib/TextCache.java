@@ -0,0 +1,53 @@
+package renderlib;
+
+/**
+ * Remembers the "value/maximum" labels drawn on health bars, so that drawing one doesn't build a <br/>
+ * new string every frame.<br/><br/>
+ *
+ * Labels are kept in a fixed-size table indexed by a hash of the two numbers. A label that isn't <br/>
+ * in the table (the first time it is drawn, or after another label took its place) is built and <br/>
+ * stored; every other lookup allocates nothing. Health only changes in battle, so nearly every <br/>
+ * lookup finds its label.
+ */
+public class TextCache {
+
+	/**Number of labels the cache holds (a power of two)*/
+	private static final int DEFAULT_CAPACITY = 256;
+
+	/**The numbers each entry was built from, packed as (value &lt;&lt; 32 | maximum)*/
+	private final long[] keys;
+	/**The label of each entry, or null if the entry is empty*/
+	private final String[] labels;
+	/**Mask turning a hash into an entry index*/
+	private final int mask;
+
+	/**
+	 * Creates an empty cache
+	 */
+	public TextCache() {
+		this.keys = new long[DEFAULT_CAPACITY];
+		this.labels = new String[DEFAULT_CAPACITY];
+		this.mask = DEFAULT_CAPACITY - 1;
+	}
+
+	/**
+	 * Gets the label "value/maximum"
+	 *
+	 * @param value The current amount, e.g. health
+	 * @param maximum The largest amount, e.g. maximum health
+	 * @return The label, built only if it isn't already cached
+	 */
+	public String getRatio(int value, int maximum) {
+		long key = ((long)value << 32) | (maximum & 0xFFFFFFFFL);
+		int index = (int)((key ^ (key >>> 29)) * 0x9E3779B1L >>> 16) & this.mask;
+
+		String label = this.labels[index];
+		if(label == null || this.keys[index] != key) {
+			label = value + "/" + maximum;
+			this.labels[index] = label;
+			this.keys[index] = key;
+		}
+
+		return label;
+	}
+}
@@ -0,0 +1,328 @@
+package renderlib;
+
+import characterlib.*;
+import enginelib.FrameProfiler;
+import enginelib.ProfilePhase;
+import environmentlib.Camera;
+import environmentlib.World;
+import itemlib.Item;
+import java.util.ArrayList;
+import java.util.List;
+import org.newdawn.slick.Color;
+import org.newdawn.slick.Graphics;
+import org.newdawn.slick.Image;
+import org.newdawn.slick.SlickException;
+import org.newdawn.slick.tiled.TiledMap;
+import static config.GlobalConfiguration.*;
+
+/**
+ * Draws a <code>World</code> with Slick.<br/><br/>
+ *
+ * The renderer owns everything that needs a display: the tile map images, the sprites and the <br/>
+ * status panel. It only reads the world's state, so the same world can be ticked headless or <br/>
+ * drawn every frame.<br/><br/>
+ *
+ * Units are drawn between their positions at the last two simulation ticks, using the <br/>
+ * interpolation fraction of the <code>SimulationClock</code>, and the renderer keeps its own <br/>
+ * camera following the interpolated player. Frames can then be drawn at any rate without <br/>
+ * units visibly stepping from tick to tick.<br/><br/>
+ *
+ * Only the units and items on the visible tiles (found through the world's spatial index) are <br/>
+ * drawn, so the cost of a frame follows what is on screen rather than how many units exist.<br/><br/>
+ *
+ * Attach it with <code>World.setSpriteTracker(renderer.getAssets())</code> so <br/>
+ * that sprites are shared and freed as units come and go.
+ */
+public class WorldRenderer {
+
+	// Panel colours
+	private static final Color LABEL = new Color(0.9f, 0.9f, 0.4f);          // Gold
+	private static final Color VALUE = new Color(1.0f, 1.0f, 1.0f);          // White
+	private static final Color BAR_BG = new Color(0.0f, 0.0f, 0.0f, 0.8f);   // Black, transp
+	private static final Color BAR = new Color(0.8f, 0.0f, 0.0f, 0.8f);      // Red, transp
+
+	// Enemy health bar colours
+	private static final Color HEALTH_BAR_BACKGROUND = new Color(0, 0, 0);  // Black
+	private static final Color HEALTH_BAR = new Color(255, 0, 0);           // Red
+
+	/**Land tilemap for the background*/
+	private TiledMap land;
+	/**Shared sprites of the units and items, loaded as they are first drawn*/
+	private AssetManager assets;
+	/**Background image of the status panel*/
+	private Image panel;
+	/**The camera used for drawing, which follows the interpolated player position*/
+	private Camera view;
+	/**The units found on the visible tiles this frame*/
+	private ArrayList<NPC> visibleUnits;
+	/**The items found on the visible tiles this frame*/
+	private ArrayList<Item> visibleItems;
+	/**Health labels of the player and enemies, built once and reused while the health stays the same*/
+	private TextCache labels;
+
+	/*PANEL TEXT, rebuilt only when the player's stats change (see updatePanelText)*/
+	private int panelHealth;
+	private int panelMaxHealth;
+	private int panelAttack;
+	private int panelMaxSpeed;
+	private String healthText;
+	private int healthTextWidth;
+	private String attackText;
+	private String maxSpeedText;
+
+	/**
+	 * Loads the map and panel images<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> A Slick display has been created<br/>
+	 * <strong>Postcondition:</strong> The renderer is ready to draw<br/><br/>
+	 *
+	 * @throws SlickException The map or panel images fail to load
+	 */
+	public WorldRenderer() throws SlickException {
+		this.land = new TiledMap(DEFAULT_TILE_MAP, DEFAULT_TILESET_FOLDER);
+		this.assets = new AssetManager();
+		this.panel = new Image(DATA_FOLDER + "panel.png");
+		this.view = new Camera(this.land.getTileWidth(), this.land.getTileHeight());
+		this.visibleUnits = new ArrayList<NPC>();
+		this.visibleItems = new ArrayList<Item>();
+		this.labels = new TextCache();
+		
+		//impossible values, so the panel text is built on the first frame
+		this.panelHealth = this.panelMaxHealth = this.panelAttack = this.panelMaxSpeed = Integer.MIN_VALUE;
+	}
+
+	/**
+	 * Render the entire screen, so it reflects the current game state.<br/><br/>
+	 *
+	 * <strong>Precondition:</strong> <code>g</code> is a valid Graphics instance<br/>
+	 * <strong>Postcondition:</strong> The visible part of the map, the living units and items lying <br/>
+	 * on the map that are on screen, and the status panel are drawn<br/><br/>
+	 *
+	 * @param g The Slick graphics object, used for drawing.
+	 * @param world The world to draw
+	 * @param alpha How far between the previous tick (0) and the latest tick (1) to draw the units
+	 */
+	public void render(Graphics g, World world, float alpha) throws SlickException {
+		long renderStart = FrameProfiler.start();
+		long time = renderStart;
+		
+		Camera camera = this.view;
+		Player player = world.getPlayer();
+
+		camera.follow(player.getInterpolatedXPosition(alpha), player.getInterpolatedYPosition(alpha));
+
+		this.land.render(
+				camera.getTileOffsetX(),
+				camera.getTileOffsetY(),
+					camera.getTileX(),
+					camera.getTileY(),
+						world.findNumberOfTilesVisibleX(),
+						world.findNumberOfTilesVisibleY());
+		time = FrameProfiler.lap(ProfilePhase.TILES, time);
+
+		this.renderCharacter(player, camera.toScreenX(player.getInterpolatedXPosition(alpha)), camera.toScreenY(player.getInterpolatedYPosition(alpha)));
+
+		this.findVisible(world);
+		
+		//draw in layers: enemies, then passive enemies, items and villagers on top
+		for(NPC unit : this.visibleUnits) {
+			if(unit instanceof Enemy && !(unit instanceof PassiveEnemy)) {
+				Enemy charac = (Enemy)unit;
+				float x = camera.toScreenX(charac.getInterpolatedXPosition(alpha));
+				float y = camera.toScreenY(charac.getInterpolatedYPosition(alpha));
+				this.renderCharacter(charac, x, y);
+				this.renderHealthBar(g, charac, x, y);
+			}
+		}
+		
+		for(NPC charac : this.visibleUnits) {
+			if(charac instanceof PassiveEnemy) {
+				this.renderCharacter(charac, camera.toScreenX(charac.getInterpolatedXPosition(alpha)), camera.toScreenY(charac.getInterpolatedYPosition(alpha)));
+			}
+		}
+		
+		for(Item item : this.visibleItems) {
+			this.assets.get(item.getSprite()).draw(camera.toScreenX(item.getXPosition()), camera.toScreenY(item.getYPosition()));
+		}
+		
+		for(NPC charac : this.visibleUnits) {
+			if(charac instanceof Villager) {
+				this.renderCharacter(charac, camera.toScreenX(charac.getInterpolatedXPosition(alpha)), camera.toScreenY(charac.getInterpolatedYPosition(alpha)));
+			}
+		}
+		
+		time = FrameProfiler.lap(ProfilePhase.UNITS, time);
+		
+		//render inventory panel
+		this.renderPanel(g, world);
+		FrameProfiler.stop(ProfilePhase.PANEL, time);
+		
+		if(FrameProfiler.isOverlayShown()) {
+			this.renderProfile(g);
+		}
+
+		//free the sprites of units that have left the world
+		this.assets.evictUnused();
+		
+		FrameProfiler.stop(ProfilePhase.RENDER, renderStart);
+	}
+
+	/**
+	 * Collects the units and items on the visible tiles. Positions in the spatial index are a <br/>
+	 * tick ahead of the interpolated ones drawn, and sprites (and health bars) extend right and <br/>
+	 * down from their position, so the search reaches a tile beyond the view on each side.
+	 */
+	private void findVisible(World world) {
+		Camera camera = this.view;
+		float tileWidth = this.land.getTileWidth();
+		float tileHeight = this.land.getTileHeight();
+		
+		float left = (camera.getTileX() - 1) * tileWidth;
+		float top = (camera.getTileY() - 1) * tileHeight;
+		float right = (camera.getTileX() + world.findNumberOfTilesVisibleX()) * tileWidth;
+		float bottom = (camera.getTileY() + world.findNumberOfTilesVisibleY()) * tileHeight;
+		
+		this.visibleUnits.clear();
+		this.visibleItems.clear();
+		world.findUnitsInBox(left, top, right, bottom, this.visibleUnits);
+		world.findItemsInBox(left, top, right, bottom, this.visibleItems);
+	}
+	
+	/**
+	 * Draws a character's sprite, facing the way it last moved, at a screen position
+	 */
+	private void renderCharacter(GameCharacter charac, float x, float y) throws SlickException {
+		this.assets.get(charac.getSprite(), charac.getFlippedSprite()).draw(x, y);
+	}
+
+	/**
+	 * Draws an enemy's health bar above its sprite at a screen position
+	 */
+	private void renderHealthBar(Graphics g, Enemy charac, float x, float y) {
+		g.setColor(HEALTH_BAR_BACKGROUND);
+		g.fillRect(x - 16, y - 6, 100, 12);
+		g.setColor(HEALTH_BAR);
+		g.fillRect(x - 16, y - 6, 100 * charac.getHealth()/charac.getMaxHealth(), 12);
+		g.setColor(Color.yellow);
+		g.drawString(this.labels.getRatio(charac.getHealth(), charac.getMaxHealth()), x + 5, y - 9);
+	}
+	
+	/**
+	 * Rebuilds the panel's text if the player's health, damage or rate has changed since it was <br/>
+	 * last built, so that an unchanged panel is drawn without building any strings
+	 */
+	private void updatePanelText(Graphics g, Player player) {
+		if(player.getHealth() != this.panelHealth || player.getMaxHealth() != this.panelMaxHealth) {
+			this.panelHealth = player.getHealth();
+			this.panelMaxHealth = player.getMaxHealth();
+			this.healthText = this.labels.getRatio(this.panelHealth, this.panelMaxHealth);
+			this.healthTextWidth = g.getFont().getWidth(this.healthText);
+		}
+		if(player.getAttack() != this.panelAttack) {
+			this.panelAttack = player.getAttack();
+			this.attackText = Integer.toString(this.panelAttack);
+		}
+		if(player.getMaxSpeed() != this.panelMaxSpeed) {
+			this.panelMaxSpeed = player.getMaxSpeed();
+			this.maxSpeedText = Integer.toString(this.panelMaxSpeed);
+		}
+	}
+	
+	/** Renders the player's status panel.
+	 * @param g The current Slick graphics context.
+	 * @param world The world holding the player
+	 */
+	private void renderPanel(Graphics g, World world) throws SlickException
+	{
+		Player player = world.getPlayer();
+		
+		// Variables for layout
+		int text_x, text_y;         // Coordinates to draw text
+		int bar_x, bar_y;           // Coordinates to draw rectangles
+		int bar_width, bar_height;  // Size of rectangle to draw
+		int hp_bar_width;           // Size of red (HP) rectangle
+		int inv_x, inv_y;           // Coordinates to draw inventory item
+
+		float health_percent;       // Player's health, as a percentage
+		
+		this.updatePanelText(g, player);
+
+		// Panel background image
+		panel.draw(0, SCREEN_RESOLUTION_Y - PANEL_HEIGHT);
+
+		// Display the player's health
+		text_x = 15;
+		text_y = SCREEN_RESOLUTION_Y - PANEL_HEIGHT + 25;
+		g.setColor(LABEL);
+		g.drawString("Health:", text_x, text_y);
+
+		bar_x = 90;
+		bar_y = SCREEN_RESOLUTION_Y - PANEL_HEIGHT + 20;
+		bar_width = 90;
+		bar_height = 30;
+		health_percent = (float)player.getHealth()/(float)player.getMaxHealth();
+		hp_bar_width = (int) (bar_width * health_percent);
+		text_x = bar_x + (bar_width - this.healthTextWidth) / 2;
+		g.setColor(BAR_BG);
+		g.fillRect(bar_x, bar_y, bar_width, bar_height);
+		g.setColor(BAR);
+		g.fillRect(bar_x, bar_y, hp_bar_width, bar_height);
+		g.setColor(VALUE);
+		g.drawString(this.healthText, text_x, text_y);
+
+		// Display the player's damage and cooldown
+		text_x = 200;
+		g.setColor(LABEL);
+		g.drawString("Damage:", text_x, text_y);
+		text_x += 80;
+		g.setColor(VALUE);
+		g.drawString(this.attackText, text_x, text_y);
+		text_x += 40;
+		g.setColor(LABEL);
+		g.drawString("Rate:", text_x, text_y);
+		text_x += 55;
+		g.setColor(VALUE);
+		g.drawString(this.maxSpeedText, text_x, text_y);
+
+		// Display the player's inventory
+		g.setColor(LABEL);
+		g.drawString("Items:", 420, text_y);
+		bar_x = 490;
+		bar_y = SCREEN_RESOLUTION_Y - PANEL_HEIGHT + 10;
+		bar_width = 288;
+		bar_height += 20;
+		g.setColor(BAR_BG);
+		g.fillRect(bar_x, bar_y, bar_width, bar_height);
+
+		inv_x = 490;
+		inv_y = SCREEN_RESOLUTION_Y - PANEL_HEIGHT
+			+ ((PANEL_HEIGHT - 72) / 2);
+		List<Item> held = world.getHeldItems();
+		for(int i = 0; i < held.size(); i++) {
+			this.assets.get(held.get(i).getSprite()).draw(inv_x, inv_y);
+			inv_x += 72;
+		}
+	}
+
+	/**
+	 * Draws the frame profiler's last interval over the top left of the screen
+	 */
+	private void renderProfile(Graphics g) {
+		String[] lines = FrameProfiler.getSummary();
+		int lineHeight = g.getFont().getLineHeight();
+		
+		g.setColor(BAR_BG);
+		g.fillRect(0, 0, SCREEN_RESOLUTION_X, (lines.length + 1) * lineHeight + 10);
+		g.setColor(VALUE);
+		g.drawString(lines.length == 0 ? "Profiling..." : "Frame phases (last " + PROFILE_INTERVAL + "ms):", 10, 5);
+		for(int i = 0; i < lines.length; i++) {
+			g.drawString(lines[i], 10, 5 + (i + 1) * lineHeight);
+		}
+	}
+
+	/////////////////////////////////////////////////////////////////////////////
+
+	public AssetManager getAssets() {
+		return assets;
+	}
+}